@@ -0,0 +1,101 @@
+package com.dn.mygame;
+
+import android.graphics.Bitmap;
+
+/**
+ * Byte accounting for every bitmap the game keeps, by category, against two budgets.
+ *
+ * <p>Source pixels are loaded once and never evicted, so they get a fixed budget of their own
+ * that {@link #checkSourcesFit} enforces when they finish loading. Composed tiles share the
+ * cache budget: caches record what they hold with {@link #add} and {@link #remove} and evict
+ * while {@link #isOverBudget}, which sources never push them into. Bytes are {@link
+ * Bitmap#getByteCount}, the pixels alone.
+ */
+public class BitmapBudget {
+    public static final int SOURCE = 0; // Slices composed tiles are drawn from
+    public static final int OPAQUE = 1; // Composed tiles without alpha, RGB_565
+    public static final int ALPHA = 2; // Composed tiles that keep alpha, ARGB_8888
+    public static final int CATEGORIES = 3;
+
+    private static final String[] CATEGORY_NAMES = {"source", "opaque", "alpha"};
+
+    private final long[] bytes = new long[CATEGORIES];
+    private final int[] counts = new int[CATEGORIES];
+    private final long sourceBudgetBytes;
+    private long budgetBytes; // Composed tiles only
+
+    public BitmapBudget(long sourceBudgetBytes, long budgetBytes) {
+        this.sourceBudgetBytes = sourceBudgetBytes;
+        this.budgetBytes = budgetBytes;
+    }
+
+    public synchronized void add(int category, Bitmap bitmap) {
+        bytes[category] += bitmap.getByteCount();
+        counts[category]++;
+    }
+
+    public synchronized void remove(int category, Bitmap bitmap) {
+        bytes[category] -= bitmap.getByteCount();
+        counts[category]--;
+    }
+
+    public synchronized long getBytes(int category) {
+        return bytes[category];
+    }
+
+    public synchronized int getCount(int category) {
+        return counts[category];
+    }
+
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (long b : bytes) total += b;
+        return total;
+    }
+
+    public long getSourceBudgetBytes() {
+        return sourceBudgetBytes;
+    }
+
+    /** Budget of the composed tiles; sources have their own */
+    public synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /** Change the tile budget; caches trim on their next insert unless their owner trims now */
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /** Whether composed tiles exceed their budget, whatever the sources hold */
+    public synchronized boolean isOverBudget() {
+        return bytes[OPAQUE] + bytes[ALPHA] > budgetBytes;
+    }
+
+    /** Throw when the loaded sources alone exceed their budget, since none can be evicted */
+    public synchronized void checkSourcesFit() {
+        if (bytes[SOURCE] > sourceBudgetBytes) {
+            throw new IllegalStateException("Source bitmaps need " + bytes[SOURCE] / 1024
+                    + " KiB, over their " + sourceBudgetBytes / 1024 + " KiB budget");
+        }
+    }
+
+    public static String getCategoryName(int category) {
+        return CATEGORY_NAMES[category];
+    }
+
+    /** One line: KiB and bitmap count per category, then each budget and the total */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < CATEGORIES; c++) {
+            sb.append(CATEGORY_NAMES[c]).append(' ').append(bytes[c] / 1024).append(" KiB (")
+                    .append(counts[c]).append("), ");
+        }
+        sb.append("sources ").append(bytes[SOURCE] / 1024).append(" / ")
+                .append(sourceBudgetBytes / 1024).append(" KiB, tiles ")
+                .append((bytes[OPAQUE] + bytes[ALPHA]) / 1024).append(" / ")
+                .append(budgetBytes / 1024).append(" KiB, total ")
+                .append(getTotalBytes() / 1024).append(" KiB");
+        return sb.toString();
+    }
+}
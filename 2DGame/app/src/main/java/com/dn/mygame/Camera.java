@@ -19,6 +19,13 @@ public class Camera {
     // Reduced dead-zone ratio for tighter camera follow
     private static final float DEADZONE_TILE_RATIO = 0.15f; // Reduced from 0.25f
 
+    // Chunks on screen plus a prefetch margin: half the longer screen side all round, and
+    // in the direction of travel as far as the camera would move in LOOKAHEAD_UPDATES
+    private static final float PREFETCH_SCREEN_FRACTION = 0.5f;
+    private static final int LOOKAHEAD_UPDATES = 30;
+    private final ChunkWindow chunkWindow = new ChunkWindow();
+    private float lastOffsetX, lastOffsetY;
+
     public Camera(int screenWidth, int screenHeight, Player player) {
         this.player = player;
         updateScreenSize(screenWidth, screenHeight);
@@ -30,7 +37,7 @@ public class Camera {
         this.screenHeight = height;
         this.screenCenterX = width / 2;
         this.screenCenterY = height / 2;
-        recalcDeadZone();
+        recalcDeadZone(); // The chunk window follows on the next update
     }
 
     private void recalcDeadZone() {
@@ -51,6 +58,9 @@ public class Camera {
         float half = player.getTileSize() * 0.5f;
         viewOffsetX = screenCenterX - (player.getDrawX() + half);
         viewOffsetY = screenCenterY - (player.getDrawY() + half);
+        lastOffsetX = viewOffsetX; // A snap is not motion to prefetch for
+        lastOffsetY = viewOffsetY;
+        updateChunkWindow();
     }
 
     public void update() {
@@ -89,6 +99,33 @@ public class Camera {
         // Clamp offsets to keep player in dead-zone
         viewOffsetX = Math.max(leftBound - px, Math.min(viewOffsetX, rightBound - px));
         viewOffsetY = Math.max(topBound - py, Math.min(viewOffsetY, bottomBound - py));
+        updateChunkWindow();
+    }
+
+    // Cheap enough every update; the window only changes when a chunk boundary is crossed
+    private void updateChunkWindow() {
+        float chunkPixels = TileMap.CHUNK_SIZE * player.getTileSize();
+        float left = -viewOffsetX, top = -viewOffsetY;
+        float right = left + screenWidth, bottom = top + screenHeight;
+
+        // The world scrolls the opposite way to the offset
+        float aheadX = (lastOffsetX - viewOffsetX) * LOOKAHEAD_UPDATES;
+        float aheadY = (lastOffsetY - viewOffsetY) * LOOKAHEAD_UPDATES;
+        lastOffsetX = viewOffsetX;
+        lastOffsetY = viewOffsetY;
+        float margin = Math.max(screenWidth, screenHeight) * PREFETCH_SCREEN_FRACTION;
+
+        chunkWindow.set(
+                chunkOf(left, chunkPixels), chunkOf(top, chunkPixels),
+                chunkOf(right - 1, chunkPixels), chunkOf(bottom - 1, chunkPixels),
+                chunkOf(left - margin + Math.min(0, aheadX), chunkPixels),
+                chunkOf(top - margin + Math.min(0, aheadY), chunkPixels),
+                chunkOf(right + margin + Math.max(0, aheadX), chunkPixels),
+                chunkOf(bottom + margin + Math.max(0, aheadY), chunkPixels));
+    }
+
+    private static int chunkOf(float worldPixels, float chunkPixels) {
+        return (int) Math.floor(worldPixels / chunkPixels);
     }
 
           private void calculateSmoothing() {
@@ -105,4 +142,5 @@ public class Camera {
 
     public float getViewOffsetX() { return viewOffsetX; }
     public float getViewOffsetY() { return viewOffsetY; }
+    public ChunkWindow getChunkWindow() { return chunkWindow; } // Drawn and streamed by GameView
 }
@@ -4,62 +4,60 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
-import android.util.SparseArray;
 import android.view.MotionEvent;
-import java.util.*;
 
+/**
+ * On-screen D-pad with double-tap running and triple-tap dashing.
+ *
+ * <p>Touch callbacks run on the UI thread and only hit-test: each pointer change becomes one
+ * packed int in an {@link InputEventQueue}. The game thread drains the queue in {@link
+ * #poll}, so tap counting, held state and drawing all stay on one thread and nothing boxes.
+ * Directions are {@link TickInput} codes throughout.
+ */
 public class Dpad {
-    // Direction constants
-    public static final String DIR_UP = "up";
-    public static final String DIR_DOWN = "down";
-    public static final String DIR_LEFT = "left";
-    public static final String DIR_RIGHT = "right";
-
-    // Diagonal direction constants
-    public static final String DIR_UP_LEFT = "up-left";
-    public static final String DIR_UP_RIGHT = "up-right";
-    public static final String DIR_DOWN_LEFT = "down-left";
-    public static final String DIR_DOWN_RIGHT = "down-right";
-
-    public static final String DIR_CENTER = "center";
-
-    private static final String[] DIRECTIONS = {
-        DIR_UP,
-        DIR_DOWN,
-        DIR_LEFT,
-        DIR_RIGHT,
-        DIR_UP_LEFT,
-        DIR_UP_RIGHT,
-        DIR_DOWN_LEFT,
-        DIR_DOWN_RIGHT,
-        DIR_CENTER
+    // Button order of directionRects
+    private static final int[] DIRECTIONS = {
+        TickInput.UP,
+        TickInput.DOWN,
+        TickInput.LEFT,
+        TickInput.RIGHT,
+        TickInput.UP_LEFT,
+        TickInput.UP_RIGHT,
+        TickInput.DOWN_LEFT,
+        TickInput.DOWN_RIGHT
     };
 
-  // Unicode symbols for directions (same order as DIRECTIONS array)
+  // Unicode symbols for directions, indexed by TickInput code
     private static final String[] DIRECTION_SYMBOLS = {
-        "↑",    // DIR_UP
-        "↓",    // DIR_DOWN
-        "←",    // DIR_LEFT
-        "→",    // DIR_RIGHT
-        "↖",    // DIR_UP_LEFT
-        "↗",    // DIR_UP_RIGHT
-        "↙",    // DIR_DOWN_LEFT
-        "↘",    // DIR_DOWN_RIGHT
-        "●"     // DIR_CENTER
+        "",     // NONE
+        "↑",    // UP
+        "↓",    // DOWN
+        "←",    // LEFT
+        "→",    // RIGHT
+        "↖",    // UP_LEFT
+        "↗",    // UP_RIGHT
+        "↙",    // DOWN_LEFT
+        "↘",    // DOWN_RIGHT
+        "●"     // CENTER
     };
+    private static final int CODES = DIRECTION_SYMBOLS.length;
 
     // Timing constants
     private static final long MULTI_TAP_THRESHOLD = 400; // ms for double-tap detection
     private static final long RUN_HOLD_THRESHOLD = 500; // ms to hold for running
 
-    public interface OnDashListener {
-        void onDash(String direction);
-    }
+    // Queued touch events: type << 12 | pointer ID << 4 | direction code
+    private static final int EVENT_DOWN = 0;
+    private static final int EVENT_MOVE = 1;
+    private static final int EVENT_UP = 2;
+    private static final int MAX_POINTERS = 16; // Higher pointer IDs are ignored
+    private static final int QUEUE_CAPACITY = 256; // Drained every tick
 
     // Layout properties
     private final int dpadSize;
     private final int marginX;
     private final int marginY;
+    private final SimClock clock; // Tap and run thresholds use the game's tick time
 
     // Visual elements
     private final Rect[] directionRects = new Rect[8];
@@ -69,34 +67,44 @@ public class Dpad {
     // Text paints for symbols
     private final Paint inactiveTextPaint;
     private final Paint activeTextPaint;
-    // Input state
-    private String heldDirection;
+
+    // UI thread: the direction each pointer was last reported on, to skip repeated moves
+    private final int[] reportedDirection = new int[MAX_POINTERS];
+    private final InputEventQueue events = new InputEventQueue(QUEUE_CAPACITY);
+    private volatile boolean eventsDropped = false;
+
+    // Game thread from here on. Input state
+    private final int[] pointerDirection = new int[MAX_POINTERS]; // NONE when not on the pad
+    private final boolean[] pointerDown = new boolean[MAX_POINTERS];
+    private int pointersDown = 0;
+    private int heldDirection = TickInput.NONE;
     private boolean isTouchingDpad;
 
-    // Multi-tap and running state
-    private final Map<String, Long> lastTapTime = new HashMap<String, Long>();
-    private final Map<String, Integer> tapCount = new HashMap<String, Integer>();
+    // Multi-tap and running state, indexed by direction code
+    private final long[] lastTapTime = new long[CODES];
+    private final int[] tapCount = new int[CODES];
     private boolean readyToRun;
     private boolean running;
     private long holdStartTime;
 
     // Visual elements
     private final Paint activePaint; // Paint for active direction
-    private String lastTappedDirection;
+    private int lastTappedDirection = TickInput.NONE;
     private long tapHighlightExpireTime;
 
-    // Listener
-    private OnDashListener dashListener;
+    // Results for the tick being polled
+    private int pressedDirection;
+    private int dashDirection;
 
-    private final SparseArray<String> activePointers = new SparseArray<>();
-
-    public Dpad(int screenWidth, int screenHeight, int dpadSize, int marginX, int marginY) {
+    public Dpad(int screenWidth, int screenHeight, int dpadSize, int marginX, int marginY,
+            SimClock clock) {
         for (int i = 0; i < directionRects.length; i++) {
             directionRects[i] = new Rect();
         }
         this.dpadSize = dpadSize;
         this.marginX = marginX;
         this.marginY = marginY;
+        this.clock = clock;
 
         // Initialize paint
         dpadPaint = new Paint();
@@ -165,21 +173,21 @@ public class Dpad {
     public void draw(Canvas canvas) {
         if (canvas == null) return;
 
-        long currentTime = System.currentTimeMillis();
+        long currentTime = clock.getTimeMillis();
         boolean showTapHighlight = currentTime < tapHighlightExpireTime;
 
         // Draw direction buttons with symbols
         for (int i = 0; i < directionRects.length; i++) {
             Rect rect = directionRects[i];
-            String direction = DIRECTIONS[i];
-            boolean isActive = direction.equals(heldDirection)
-                    || (showTapHighlight && direction.equals(lastTappedDirection));
+            int direction = DIRECTIONS[i];
+            boolean isActive = direction == heldDirection
+                    || (showTapHighlight && direction == lastTappedDirection);
 
             // Draw button background
             canvas.drawRect(rect, isActive ? activePaint : dpadPaint);
 
             // Draw direction symbol
-            String symbol = DIRECTION_SYMBOLS[i];
+            String symbol = DIRECTION_SYMBOLS[direction];
             Paint textPaint = isActive ? activeTextPaint : inactiveTextPaint;
             float x = rect.centerX();
             float y = rect.centerY() - (textPaint.descent() + textPaint.ascent()) / 2;
@@ -188,7 +196,7 @@ public class Dpad {
 
         // Draw center button
         canvas.drawRect(centerRect, centerHeld ? activePaint : dpadPaint);
-        String centerSymbol = DIRECTION_SYMBOLS[8];
+        String centerSymbol = DIRECTION_SYMBOLS[TickInput.CENTER];
         Paint centerTextPaint = centerHeld ? activeTextPaint : inactiveTextPaint;
         float x = centerRect.centerX();
         float y = centerRect.centerY() - (centerTextPaint.descent() + centerTextPaint.ascent()) / 2;
@@ -196,22 +204,24 @@ public class Dpad {
     }
 
     // Ensure detectDirection checks all 8 directions
-    private String detectDirection(int x, int y) {
+    private int detectDirection(int x, int y) {
         if (centerRect.contains(x, y)) {
-            return DIR_CENTER;
+            return TickInput.CENTER;
         }
         for (int i = 0; i < directionRects.length; i++) {
             if (directionRects[i].contains(x, y)) {
                 return DIRECTIONS[i];
             }
         }
-        return null;
+        return TickInput.NONE;
     }
 
+    /** UI thread: queue the pointer changes on the pad; true when the event was the pad's */
     public boolean onTouchEvent(MotionEvent event) {
         int action = event.getActionMasked();
         int pointerIndex = event.getActionIndex();
         int pointerId = event.getPointerId(pointerIndex);
+        long stamp = clock.nanoTime(); // Start of the input-to-photon measurement
         boolean handled = false;
 
         switch (action) {
@@ -220,11 +230,10 @@ public class Dpad {
                 {
                     int x = (int) event.getX(pointerIndex);
                     int y = (int) event.getY(pointerIndex);
-                    String dir = detectDirection(x, y);
-                    if (dir != null) {
-                        activePointers.put(pointerId, dir);
-                        isTouchingDpad = true;
-                        updateHeldState();
+                    int dir = detectDirection(x, y);
+                    if (dir != TickInput.NONE && pointerId < MAX_POINTERS) {
+                        reportedDirection[pointerId] = dir;
+                        post(EVENT_DOWN, pointerId, dir, stamp);
                         handled = true;
                     }
                     break;
@@ -233,13 +242,15 @@ public class Dpad {
                 {
                     for (int i = 0; i < event.getPointerCount(); i++) {
                         int pid = event.getPointerId(i);
+                        if (pid >= MAX_POINTERS) continue;
                         int x = (int) event.getX(i);
                         int y = (int) event.getY(i);
-                        String newDir = detectDirection(x, y);
-                        String oldDir = activePointers.get(pid, null);
-                        if (oldDir != null && !oldDir.equals(newDir)) {
-                            activePointers.put(pid, newDir);
-                            updateHeldState();
+                        int newDir = detectDirection(x, y);
+                        int oldDir = reportedDirection[pid];
+                        // A pointer that slid off the pad stays off until it is lifted
+                        if (oldDir != TickInput.NONE && oldDir != newDir) {
+                            reportedDirection[pid] = newDir;
+                            post(EVENT_MOVE, pid, newDir, stamp);
                         }
                     }
                     handled = true;
@@ -248,11 +259,9 @@ public class Dpad {
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_POINTER_UP:
                 {
-                    activePointers.remove(pointerId);
-                    updateHeldState();
-                    if (activePointers.size() == 0) {
-                        isTouchingDpad = false;
-                        resetInputState();
+                    if (pointerId < MAX_POINTERS) {
+                        reportedDirection[pointerId] = TickInput.NONE;
+                        post(EVENT_UP, pointerId, TickInput.NONE, stamp);
                     }
                     handled = true;
                     break;
@@ -264,32 +273,108 @@ public class Dpad {
         return handled;
     }
 
+    private void post(int type, int pointerId, int direction, long stamp) {
+        if (!events.offer((type << 12) | (pointerId << 4) | direction, stamp)) {
+            eventsDropped = true; // The game thread resyncs by lifting every pointer
+        }
+    }
+
+    /**
+     * Game thread: apply the touches queued since the last tick and write the pad's state
+     * into input, which the caller has cleared. While not accepting (mid-teleport) touches
+     * only keep pointer tracking current; taps are not counted and nothing is held.
+     */
+    public void poll(TickInput input, boolean accept) {
+        pressedDirection = TickInput.NONE;
+        dashDirection = TickInput.NONE;
+        long touchNanos = 0; // Stamp of the first touch this tick that set a direction
+        int event;
+        while ((event = events.poll()) != InputEventQueue.EMPTY) {
+            int type = event >>> 12;
+            int pointerId = (event >>> 4) & 0xFF;
+            int direction = event & 0x0F;
+            if (type == EVENT_DOWN) {
+                pointerDown[pointerId] = true;
+                pointersDown++;
+                pointerDirection[pointerId] = direction;
+                if (!accept) continue;
+                boolean first = !isTouchingDpad;
+                isTouchingDpad = true;
+                updateHeldState();
+                if (first && heldDirection != TickInput.NONE) {
+                    pressedDirection = heldDirection; // Applied this tick; may stop a slide
+                }
+                if (touchNanos == 0 && heldDirection != TickInput.NONE) {
+                    touchNanos = events.getPolledStamp();
+                }
+            } else if (type == EVENT_MOVE) {
+                pointerDirection[pointerId] = direction;
+                if (!accept) continue;
+                updateHeldState();
+                if (touchNanos == 0 && heldDirection != TickInput.NONE) {
+                    touchNanos = events.getPolledStamp();
+                }
+            } else {
+                if (pointerDown[pointerId]) {
+                    pointerDown[pointerId] = false;
+                    pointersDown--;
+                }
+                pointerDirection[pointerId] = TickInput.NONE;
+                if (!accept) continue;
+                updateHeldState();
+                if (pointersDown == 0) {
+                    resetInputState();
+                }
+            }
+        }
+        if (eventsDropped) {
+            eventsDropped = false;
+            for (int i = 0; i < MAX_POINTERS; i++) {
+                pointerDown[i] = false;
+                pointerDirection[i] = TickInput.NONE;
+            }
+            pointersDown = 0;
+            centerHeld = false;
+            resetInputState();
+        }
+        if (!accept) {
+            centerHeld = false;
+            resetInputState();
+            return;
+        }
+
+        if (readyToRun
+                && !running
+                && (clock.getTimeMillis() - holdStartTime) > RUN_HOLD_THRESHOLD) {
+            running = true;
+            readyToRun = false;
+        }
+        input.heldDirection = heldDirection;
+        input.centerHeld = centerHeld;
+        input.running = running;
+        input.pressedDirection = pressedDirection;
+        input.dashDirection = dashDirection;
+        input.touchNanos = touchNanos;
+    }
+
     private void updateHeldState() {
         boolean newCenterHeld = false;
-        String newHeldDirection = null;
+        int newHeldDirection = TickInput.NONE;
 
         // Check if any pointer is on the center
-        for (int i = 0; i < activePointers.size(); i++) {
-            String dir = activePointers.valueAt(i);
-            if (DIR_CENTER.equals(dir)) {
+        for (int i = 0; i < MAX_POINTERS; i++) {
+            if (pointerDirection[i] == TickInput.CENTER) {
                 newCenterHeld = true;
                 break;
             }
         }
 
-        // If center is held, find the first non-center direction
-        if (newCenterHeld) {
-            for (int i = 0; i < activePointers.size(); i++) {
-                String dir = activePointers.valueAt(i);
-                if (!DIR_CENTER.equals(dir)) {
-                    newHeldDirection = dir;
-                    break;
-                }
-            }
-        } else {
-            // If not center held, use the first active direction
-            if (activePointers.size() > 0) {
-                newHeldDirection = activePointers.valueAt(0);
+        // Use the first pointer on a direction button; with center held it aims instead
+        for (int i = 0; i < MAX_POINTERS; i++) {
+            int dir = pointerDirection[i];
+            if (dir != TickInput.NONE && dir != TickInput.CENTER) {
+                newHeldDirection = dir;
+                break;
             }
         }
 
@@ -297,29 +382,28 @@ public class Dpad {
         heldDirection = newHeldDirection;
 
         // Handle action down for directions when center is not held
-        if (!newCenterHeld && newHeldDirection != null && isTouchingDpad) {
+        if (!newCenterHeld && newHeldDirection != TickInput.NONE && isTouchingDpad) {
             handleActionDown(newHeldDirection);
         }
     }
 
-    private void handleActionDown(String direction) {
-        long currentTime = System.currentTimeMillis();
-        Long lastTime = lastTapTime.get(direction);
-        int count = tapCount.containsKey(direction) ? tapCount.get(direction) : 0;
+    private void handleActionDown(int direction) {
+        long currentTime = clock.getTimeMillis();
+        int count = tapCount[direction];
 
         // Reset count if too much time passed since last tap
-        if (lastTime == null || (currentTime - lastTime) >= MULTI_TAP_THRESHOLD) {
+        if (count == 0 || (currentTime - lastTapTime[direction]) >= MULTI_TAP_THRESHOLD) {
             count = 1;
         } else {
             count++;
             // Set tap highlight
             lastTappedDirection = direction;
-            tapHighlightExpireTime = System.currentTimeMillis() + 200; // Highlight for 200ms
+            tapHighlightExpireTime = currentTime + 200; // Highlight for 200ms
         }
 
         // Update tap tracking
-        tapCount.put(direction, count);
-        lastTapTime.put(direction, currentTime);
+        tapCount[direction] = count;
+        lastTapTime[direction] = currentTime;
 
         // Handle multi-tap actions
         if (count == 2) {
@@ -327,10 +411,8 @@ public class Dpad {
             holdStartTime = currentTime;
             running = false;
         } else if (count >= 3) {
-            if (dashListener != null) {
-                dashListener.onDash(direction);
-            }
-            tapCount.put(direction, 0); // Reset after dash
+            dashDirection = direction;
+            tapCount[direction] = 0; // Reset after dash
         }
 
         heldDirection = direction;
@@ -341,30 +423,17 @@ public class Dpad {
     }
 
     public void resetInputState() {
-        heldDirection = null;
+        heldDirection = TickInput.NONE;
         running = false;
         readyToRun = false;
         isTouchingDpad = false;
     }
 
-    public void update() {
-        if (readyToRun
-                && !running
-                && (System.currentTimeMillis() - holdStartTime) > RUN_HOLD_THRESHOLD) {
-            running = true;
-            readyToRun = false;
-        }
-    }
-
-    public String getHeldDirection() {
+    public int getHeldDirection() {
         return heldDirection;
     }
 
     public boolean isRunning() {
         return running;
     }
-
-    public void setOnDashListener(OnDashListener listener) {
-        dashListener = listener;
-    }
-}
\ No newline at end of file
+}
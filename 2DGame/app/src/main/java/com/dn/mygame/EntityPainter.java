@@ -4,30 +4,24 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 
-public class Player extends Entity {
-    private Paint paint;
-
-    public Player(int startX, int startY, TileMap tileMap) {
-        super(startX, startY, tileMap);
-        paint = new Paint();
-        paint.setColor(Color.BLUE);
-    }
-
-    @Override
-    public void draw(Canvas canvas) {
-        if (isTeleporting()) {
-            float teleportProgress = (float) getTeleportTimer() / 
-                                   getTeleportDuration();
+/** Draws players and NPCs as a coloured body with eyes facing their last move */
+public class EntityPainter {
+    private final Paint paint = new Paint();
+
+    public void draw(Canvas canvas, Entity entity) {
+        if (entity.isTeleporting()) {
+            float teleportProgress = (float) entity.getTeleportTimer() /
+                                   entity.getTeleportDuration();
             paint.setAlpha((int) (255 * (1 - teleportProgress)));
         } else {
             paint.setAlpha(255);
         }
 
-        float tileSize = getTileMap().getTileSize();
-        float drawX = getDrawX();
-        float drawY = getDrawY();
+        float tileSize = entity.getTileMap().getTileSize();
+        float drawX = entity.getDrawX();
+        float drawY = entity.getDrawY();
         float halfTile = tileSize / 2f;
-        paint.setColor(Color.BLUE);
+        paint.setColor(entity instanceof Player ? Color.BLUE : Color.RED);
         canvas.drawCircle(
                 drawX + halfTile,
                 drawY + halfTile,
@@ -38,8 +32,8 @@ public class Player extends Entity {
         paint.setColor(Color.WHITE);
         float eyeOffset = 10f;
         float pupilSize = 5f;
-        int facingDx = getFacingDx();
-        int facingDy = getFacingDy();
+        int facingDx = entity.getFacingDx();
+        int facingDy = entity.getFacingDy();
         float eyeCenterX = drawX + halfTile + facingDx * eyeOffset;
         float eyeCenterY = drawY + halfTile + facingDy * eyeOffset;
 
@@ -50,11 +44,5 @@ public class Player extends Entity {
             canvas.drawCircle(eyeCenterX - pupilSize, eyeCenterY, pupilSize, paint);
             canvas.drawCircle(eyeCenterX + pupilSize, eyeCenterY, pupilSize, paint);
         }
-
-        if (isInvulnerable() && 
-           (getInvulnerabilityTimer() / 2) % 2 == 0) {
-            return;
-        }
-        paint.setAlpha(255);
     }
-}
\ No newline at end of file
+}
@@ -20,10 +20,10 @@ public class GameThread extends Thread {
 @Override
 public void run() {
     Canvas canvas;
-    long targetTime = 1000 / 60; // Target 60 FPS (~16ms per frame)
-    
+    SimClock clock = gameView.getClock();
+
     while (running) {
-        long startTime = System.currentTimeMillis();
+        clock.advance(); // Paces the loop (60 ticks/s) and fixes this tick's time
         canvas = null;
         try {
             canvas = surfaceHolder.lockCanvas();
@@ -35,14 +35,7 @@ public void run() {
             if (canvas != null)
                 surfaceHolder.unlockCanvasAndPost(canvas);
         }
-
-        // Frame timing control
-        long frameTime = System.currentTimeMillis() - startTime;
-        if (frameTime < targetTime) {
-            try {
-                sleep(targetTime - frameTime);
-            } catch (InterruptedException e) { /* Handle */ }
-        }
+        if (canvas != null) gameView.onFramePosted();
     }
 }
 }
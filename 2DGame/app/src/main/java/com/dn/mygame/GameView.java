@@ -6,17 +6,19 @@ import android.content.SharedPreferences;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Point;
+import android.graphics.Rect;
+import android.util.Log;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import static com.dn.mygame.TileMap.CHUNK_SIZE;
 
-public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpad.OnDashListener {
+public class GameView extends SurfaceView implements SurfaceHolder.Callback {
+    private static final String TAG = "GameView";
     // D-pad configuration
     private static final int DPAD_SIZE = 120;
     private static final int DPAD_MARGIN_X = 150;
@@ -24,25 +26,62 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
     private Dpad dpad;
 
     private Paint fadePaint = new Paint(), coordinatesPaint = new Paint();
-    private long lastMoveTime = 0;
-    private static final long MOVE_DELAY = 150;
-    private static final long RUN_MOVE_DELAY = 75;
-
-    // Direction mapping
-    private final Map<String, Point> dirMap = new HashMap<>();
+    // On-screen text is built in place and drawn from char arrays, so frames do not allocate
+    private static final int TEXT_CHARS = 64;
+    private final StringBuilder textBuilder = new StringBuilder(TEXT_CHARS);
+    private final char[] coordinatesText = new char[TEXT_CHARS]; // Rebuilt on tile change
+    private int coordinatesLength = 0;
+    private int coordinatesX, coordinatesY;
+
+    // Game loop clock; everything timed reads it
+    private static final int TICKS_PER_SECOND = 60;
+    private final SimClock clock = new SimClock.RealTime(TICKS_PER_SECOND);
+
+    // Input gathered for the next tick; the D-pad queues touches from the UI thread
+    private final TickInput tickInput = new TickInput();
+
+    // Session recording, replayable with InputReplayer; a debugging aid, off in release
+    static final boolean RECORD_SESSIONS = false;
+    private static final String SESSION_LOG = "last_session.inlog";
+    private static final String PREVIOUS_SESSION_LOG = "previous_session.inlog";
+    private InputRecorder recorder;
+
+    // Input-to-photon latency, shown under the coordinates; a diagnostics overlay, off in release
+    private static final boolean SHOW_LATENCY = false;
+    private static final long LATENCY_REFRESH_MILLIS = 1000;
+    private final InputLatency latency = new InputLatency(clock);
+    private final char[][] latencyLines = new char[InputLatency.STAGES][TEXT_CHARS];
+    private final int[] latencyLengths = new int[InputLatency.STAGES];
+    private long latencyRefreshTime = 0;
+
+    // World saves: a snapshot every half minute and on pause, written off the game thread
+    private static final String SAVE_FILE = "world.sav";
+    private static final long AUTOSAVE_MILLIS = 30000;
+    private final File saveFile;
+    private final WorldSaver saver;
+    private long lastSaveTime;
 
     // Game world
     private GameThread gameThread;
+    private GameWorld world;
     private Player player;
-    NPC npc;
     private TileMap tileMap;
     private Camera camera;
+    private TileMapRenderer tileRenderer;
+    private final EntityPainter entityPainter = new EntityPainter();
 
-    private List<Entity> entities = new ArrayList<>(); // Track all entities
+    private final List<Entity> visibleEntities = new ArrayList<>(); // Reused by draw culling
+    private final Rect clipBounds = new Rect();
 
     // Camera
     private boolean teleportingBefore = false;
 
+    // Startup
+    private final StartupPipeline startup;
+    private volatile boolean worldReady = false;
+    private volatile boolean pendingLoadState = false;
+    private boolean savedStateApplied = false;
+
     public GameView(Context context) {
         super(context);
         getHolder().addCallback(this);
@@ -50,36 +89,62 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
         coordinatesPaint.setColor(Color.WHITE);
         coordinatesPaint.setTextSize(20);
         coordinatesPaint.setTextAlign(Paint.Align.RIGHT);
-        tileMap = new TileMap(context);
-
-        TileMap.Point spawnPoint = tileMap.getSpawnPoint();
-        player = new Player(spawnPoint.x, spawnPoint.y, tileMap);
-        npc = new NPC(spawnPoint.x + 2, spawnPoint.y - 3, tileMap);
-        entities.add(player); // Add to entity list
-        entities.add(npc); // Add to entity list
-        dirMap.put("up", new Point(0, -1));
-        dirMap.put("down", new Point(0, 1));
-        dirMap.put("left", new Point(-1, 0));
-        dirMap.put("right", new Point(1, 0));
-        dirMap.put("up-left", new Point(-1, -1));
-        dirMap.put("up-right", new Point(1, -1));
-        dirMap.put("down-left", new Point(-1, 1));
-        dirMap.put("down-right", new Point(1, 1));
-        dirMap.put("center", new Point(0, 0));
+        saveFile = new File(context.getFilesDir(), SAVE_FILE);
+        saver = new WorldSaver(saveFile);
+        startup = new StartupPipeline(context, saveFile);
+        startup.start();
         setFocusable(true);
     }
 
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
 
-        dpad = new Dpad(getWidth(), getHeight(), DPAD_SIZE, DPAD_MARGIN_X, DPAD_MARGIN_Y);
-        dpad.setOnDashListener(this);
+        dpad = new Dpad(getWidth(), getHeight(), DPAD_SIZE, DPAD_MARGIN_X, DPAD_MARGIN_Y, clock);
 
         gameThread = new GameThread(holder, this);
         gameThread.setRunning(true);
         gameThread.start();
+    }
 
+    // Runs on the game thread once the startup pipeline has finished
+    private void initWorld() {
+        tileMap = startup.getTileMap();
+        tileMap.startClock(clock.getTimeMillis());
+        world = new GameWorld(tileMap);
+        if (SHOW_LATENCY) world.setInputLatency(latency); // Only measured while shown
+        player = world.getPlayer();
         camera = new Camera(getWidth(), getHeight(), player);
+        tileMap.addChunkWindow(camera.getChunkWindow()); // Streamed beside the simulation ring
+        tileRenderer = new TileMapRenderer(tileMap, TileLibrary.getInstance(getContext()),
+                camera.getChunkWindow());
+        worldReady = true;
+    }
+
+    /**
+     * Moves the last session's log aside so the next recording cannot truncate it while it is
+     * replayed. Call before this view starts recording.
+     *
+     * @return the moved log, or null if there was none
+     */
+    static File keepPreviousSession(Context context) {
+        File log = new File(context.getFilesDir(), SESSION_LOG);
+        File previous = new File(context.getFilesDir(), PREVIOUS_SESSION_LOG);
+        if (!log.exists()) return null;
+        if (previous.exists() && !previous.delete() || !log.renameTo(previous)) {
+            Log.w(TAG, "Could not keep the previous session log");
+            return null;
+        }
+        return previous;
+    }
+
+    private void startRecording() {
+        File log = new File(getContext().getFilesDir(), SESSION_LOG);
+        try {
+            recorder = new InputRecorder(new FileOutputStream(log), world,
+                    InputRecorder.DEFAULT_HASH_INTERVAL);
+        } catch (IOException e) {
+            Log.w(TAG, "Session recording unavailable", e);
+        }
     }
 
     @Override
@@ -105,40 +170,43 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
         }
     }
 
+    /** Clock the game thread advances once per tick; everything timed reads it */
+    public SimClock getClock() {
+        return clock;
+    }
+
+    public InputLatency getInputLatency() {
+        return latency;
+    }
+
     public void update() {
         if (dpad == null) return;
-        long now = System.currentTimeMillis();
-        dpad.update();
-        String currentDir = dpad.getHeldDirection();
-        long delay = dpad.isRunning() ? RUN_MOVE_DELAY : MOVE_DELAY;
-
-        if (dpad.isCenterHeld()) {
-            if (currentDir != null) {
-                Point d = dirMap.get(currentDir);
-                player.setHoldDirection(d.x, d.y, false);
-            }
-        } else {
-            if (currentDir != null && now - lastMoveTime > delay) {
-                Point d = dirMap.get(currentDir);
-                if (d != null) {
-                    player.move(d.x, d.y, tileMap, entities);
-                    lastMoveTime = now;
-                }
-            }
-
-            if (currentDir != null) {
-                Point d = dirMap.get(currentDir);
-                player.setHoldDirection(d.x, d.y, dpad.isRunning());
-            } else {
-                player.setHoldDirection(0, 0, false);
-            }
+        if (!worldReady) {
+            if (!startup.isReady()) return;
+            initWorld();
+        }
+        if (pendingLoadState) {
+            pendingLoadState = false;
+            applySavedState();
         }
+        if (RECORD_SESSIONS && recorder == null) {
+            startRecording(); // After any saved state is applied, so replays start from it
+        }
+        long now = clock.getTimeMillis();
+        tickInput.clear();
+        dpad.poll(tickInput, !teleportingBefore); // Touches are ignored mid-teleport
+
         boolean wasTeleporting = player.isTeleporting();
-        player.update(tileMap);
-        npc.update(tileMap);
-        npc.updateAI(entities);
-        tileMap.update();
+        world.step(tickInput, now);
+        if (recorder != null) recorder.record(tickInput, now, world);
+        if (savedStateApplied && now - lastSaveTime >= AUTOSAVE_MILLIS) {
+            lastSaveTime = now;
+            // Between ticks; the saver compresses it. Capture allocates its buffers, which
+            // SteadyTickAllocationTest bounds apart from the tick
+            saver.save(WorldSnapshot.capture(world));
+        }
         camera.update();
+        tileMap.streamChunks(); // Only does work when the camera crossed a chunk boundary
 
         if (wasTeleporting && player.isTeleporting()) {
             camera.recalcInitialOffset();
@@ -154,30 +222,17 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
                 && player.isInvulnerable()) {
             camera.recalcInitialOffset();
         }
-
-        int chunkRange = 3;
-        int playerChunkX = Math.floorDiv(player.getX(), CHUNK_SIZE);
-        int playerChunkY = Math.floorDiv(player.getY(), CHUNK_SIZE);
-        // Update active chunks around the player (radius = 3)
-        tileMap.updateActiveChunks(playerChunkX, playerChunkY, 3);
-        preloadChunks(playerChunkX, playerChunkY, chunkRange);
         teleportingBefore = player.isTeleporting();
     }
 
-    private void preloadChunks(int centerX, int centerY, int radius) {
-        for (int y = -radius; y <= radius; y++) {
-            for (int x = -radius; x <= radius; x++) {
-                int cx = centerX + x;
-                int cy = centerY + y;
-                tileMap.getTile(cx * CHUNK_SIZE, cy * CHUNK_SIZE);
-            }
-        }
-    }
-
     @Override
     public void draw(Canvas canvas) {
         super.draw(canvas);
-        if (canvas == null || dpad == null || camera == null) return;
+        if (canvas == null) return;
+        if (!worldReady || dpad == null || camera == null) {
+            canvas.drawColor(Color.BLACK); // Loading
+            return;
+        }
 
         boolean teleporting = player.isTeleporting();
         int tTimer = player.getTeleportTimer();
@@ -208,56 +263,102 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
         }
 
         if (player != null) {
-            String coordinates =
-                    String.format("Coordinates: {x: %d, y: %d}", player.getX(), player.getY());
+            if (coordinatesLength == 0 || player.getX() != coordinatesX
+                    || player.getY() != coordinatesY) {
+                coordinatesX = player.getX();
+                coordinatesY = player.getY();
+                textBuilder.setLength(0);
+                textBuilder.append("Coordinates: {x: ").append(coordinatesX)
+                        .append(", y: ").append(coordinatesY).append('}');
+                coordinatesLength = copyText(textBuilder, coordinatesText);
+            }
             float x = getWidth() - 20;
             float y = 50;
-            canvas.drawText(coordinates, x, y, coordinatesPaint);
+            canvas.drawText(coordinatesText, 0, coordinatesLength, x, y, coordinatesPaint);
+        }
+        if (SHOW_LATENCY) {
+            drawLatency(canvas);
+        }
+    }
+
+    // Percentiles change slowly; reformat them once a second rather than every frame
+    private void drawLatency(Canvas canvas) {
+        long now = clock.getTimeMillis();
+        if (latencyLengths[0] == 0 || now - latencyRefreshTime >= LATENCY_REFRESH_MILLIS) {
+            latencyRefreshTime = now;
+            for (int stage = 0; stage < InputLatency.STAGES; stage++) {
+                textBuilder.setLength(0);
+                textBuilder.append(InputLatency.getStageName(stage)).append(" p50 ");
+                appendTenths(textBuilder, latency.getPercentileMillis(stage, 0.5f));
+                textBuilder.append(" / p95 ");
+                appendTenths(textBuilder, latency.getPercentileMillis(stage, 0.95f));
+                textBuilder.append(" ms");
+                latencyLengths[stage] = copyText(textBuilder, latencyLines[stage]);
+            }
         }
+        float x = getWidth() - 20;
+        for (int stage = 0; stage < InputLatency.STAGES; stage++) {
+            canvas.drawText(latencyLines[stage], 0, latencyLengths[stage], x, 80 + 25 * stage,
+                    coordinatesPaint);
+        }
+    }
+
+    // One decimal place without the garbage that formatting a float makes
+    private static void appendTenths(StringBuilder sb, float value) {
+        int tenths = Math.round(value * 10);
+        if (tenths < 0) {
+            sb.append('-');
+            tenths = -tenths;
+        }
+        sb.append(tenths / 10).append('.').append((char) ('0' + tenths % 10));
+    }
+
+    private static int copyText(StringBuilder sb, char[] out) {
+        int length = Math.min(sb.length(), out.length);
+        sb.getChars(0, length, out, 0);
+        return length;
+    }
+
+    /** Game thread, after a frame has been handed to the compositor */
+    public void onFramePosted() {
+        latency.framePosted();
     }
 
     private void drawWorld(Canvas canvas) {
         canvas.save();
         canvas.translate(camera.getViewOffsetX(), camera.getViewOffsetY());
-        tileMap.draw(canvas);
+        tileRenderer.draw(canvas);
         canvas.restore();
     }
 
     private void drawWorldAndPlayer(Canvas canvas) {
         canvas.save();
         canvas.translate(camera.getViewOffsetX(), camera.getViewOffsetY());
-        tileMap.draw(canvas);
-        player.draw(canvas);
-        npc.draw(canvas);
+        tileRenderer.draw(canvas);
+        drawVisibleEntities(canvas);
         canvas.restore();
     }
 
-    @Override
-    public boolean onTouchEvent(MotionEvent e) {
-        if (teleportingBefore || dpad == null) return true;
-
-        boolean handled = dpad.onTouchEvent(e);
-        if (handled) {
-            if (e.getAction() == MotionEvent.ACTION_DOWN) {
-                String dir = dpad.getHeldDirection();
-                if (player.isSliding() && dir != null) {
-                    Point d = dirMap.get(dir);
-                    if (d.x == -player.getSlideDx() && d.y == -player.getSlideDy()) {
-                        player.requestStopSliding();
-                    }
-                }
-            }
-            return true;
+    // Draw only entities inside the translated clip, with a tile of slack for easing
+    private void drawVisibleEntities(Canvas canvas) {
+        canvas.getClipBounds(clipBounds);
+        int ts = tileMap.getTileSize();
+        visibleEntities.clear();
+        tileMap.getSpatialIndex().queryRect(
+                Math.floorDiv(clipBounds.left, ts) - 1,
+                Math.floorDiv(clipBounds.top, ts) - 1,
+                Math.floorDiv(clipBounds.right, ts) + 1,
+                Math.floorDiv(clipBounds.bottom, ts) + 1,
+                visibleEntities);
+        for (int i = 0; i < visibleEntities.size(); i++) {
+            entityPainter.draw(canvas, visibleEntities.get(i));
         }
-        return false;
     }
 
     @Override
-    public void onDash(String direction) {
-        Point d = dirMap.get(direction);
-        if (d != null) {
-            player.dash(d.x, d.y, tileMap);
-        }
+    public boolean onTouchEvent(MotionEvent e) {
+        if (!worldReady || dpad == null) return true;
+        return dpad.onTouchEvent(e); // Only queues; the game thread applies it next tick
     }
 
     public void pause() {
@@ -266,6 +367,12 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
             gameThread.join();
         } catch (InterruptedException ignored) {
         }
+        if (recorder != null) {
+            recorder.flush();
+            if (recorder.getFailure() != null) {
+                Log.w(TAG, "Input recording stopped", recorder.getFailure());
+            }
+        }
     }
 
     public void resume() {
@@ -276,20 +383,38 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
         }
     }
 
+    // After pause(), so the game thread is stopped and the world can be copied here
     public void saveState() {
-        SharedPreferences prefs =
-                getContext().getSharedPreferences("GameState", Context.MODE_PRIVATE);
-        prefs.edit()
-                .putInt("playerX", player.getX())
-                .putInt("playerY", player.getY())
-                .putInt("spawnX", player.getSpawnX())
-                .putInt("spawnY", player.getSpawnY())
-                .putInt("npcX", npc.getX())
-                .putInt("npcY", npc.getY())
-                .apply();
+        if (!worldReady || !savedStateApplied) return; // Never overwrite a save not yet loaded
+        if (saver.getFailure() != null) {
+            Log.w(TAG, "Last world save failed", saver.getFailure());
+        }
+        saver.save(WorldSnapshot.capture(world));
     }
 
     public void loadState() {
+        if (!savedStateApplied) {
+            pendingLoadState = true; // Applied on the game thread before the next tick
+        }
+    }
+
+    // Resuming the world still in memory applies nothing: the saved state is this state
+    private void applySavedState() {
+        savedStateApplied = true;
+        WorldSnapshot snapshot = startup.getSnapshot();
+        if (snapshot != null) {
+            world.restore(snapshot, clock.getTimeMillis());
+        } else if (!saveFile.exists()) {
+            loadLegacyState();
+        }
+        lastSaveTime = clock.getTimeMillis();
+        // Recenter the camera safely after resuming
+        player.snapToPosition();
+        camera.recalcInitialOffset();
+    }
+
+    // Positions saved by versions before world snapshots
+    private void loadLegacyState() {
         SharedPreferences prefs =
                 getContext().getSharedPreferences("GameState", Context.MODE_PRIVATE);
         player.setPosition(
@@ -298,12 +423,10 @@ public class GameView extends SurfaceView implements SurfaceHolder.Callback, Dpa
         player.setSpawn(
                 prefs.getInt("spawnX", player.getSpawnX()),
                 prefs.getInt("spawnY", player.getSpawnY()));
-        npc.setPosition(prefs.getInt("npcX", npc.getX()), prefs.getInt("npcY", npc.getY()));
-        // Recenter the camera safely after resuming
-        player.snapToPosition();
-        npc.snapToPosition();
-        if (camera != null) {
-            camera.recalcInitialOffset();
+        NPC npc = world.getNpc();
+        if (npc != null) {
+            npc.setPosition(prefs.getInt("npcX", npc.getX()), prefs.getInt("npcY", npc.getY()));
+            npc.snapToPosition();
         }
     }
 }
@@ -2,6 +2,11 @@ package com.dn.mygame;
  
 import android.app.Activity; 
 import android.os.Bundle; 
+import android.util.Log;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
  
 public class MainActivity extends Activity { 
    private GameView gameView; 
@@ -12,12 +17,35 @@ public class MainActivity extends Activity {
  
    protected void onCreate(Bundle var1) { 
       super.onCreate(var1); 
+      // Before the view records, so a replay never reads a log being rewritten
+      File previousSession = GameView.RECORD_SESSIONS ? GameView.keepPreviousSession(this) : null;
       this.requestWindowFeature(1); 
       this.getWindow().setFlags(1024, 1024); 
       this.gameView = new GameView(this); 
       this.setContentView(this.gameView); 
       this.hideSystemUI(); 
+      // adb shell am start -n com.dn.mygame/.MainActivity --ez replay true
+      if (previousSession != null && this.getIntent().getBooleanExtra("replay", false)) {
+         this.replaySession(previousSession);
+      }
    } 
+
+   // Re-run a recorded session headlessly and log its speed and hash checks
+   private void replaySession(final File log) {
+      final android.content.Context context = this.getApplicationContext();
+      new Thread(new Runnable() {
+         @Override
+         public void run() {
+            try (InputStream in = new FileInputStream(log)) {
+               InputReplayer.Result result = InputReplayer.replay(
+                     new TileMap(TileLibrary.getInstance(context)), in);
+               Log.i("Replay", result.toString());
+            } catch (IOException e) {
+               Log.e("Replay", "Replay failed", e);
+            }
+         }
+      }, "Replay").start();
+   }
  
    @Override
 protected void onPause() {
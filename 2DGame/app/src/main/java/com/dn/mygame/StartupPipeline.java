@@ -0,0 +1,134 @@
+package com.dn.mygame;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the world off the UI thread in stages.
+ *
+ * <p>The tileset decode runs on its own thread while the tile definitions are parsed, the
+ * spawn ring is generated and the last save is decompressed; the stages only join before the
+ * first frame needs bitmaps. The save is applied later, on the game thread.
+ */
+public class StartupPipeline {
+    private static final String TAG = "StartupPipeline";
+    private static final int SPAWN_RING_RADIUS = 1; // Chunks generated before the first frame
+
+    private final Context context;
+    private final File saveFile;
+    private final Map<String, Long> stageTimings = new LinkedHashMap<>();
+    private volatile TileMap tileMap;
+    private volatile WorldSnapshot snapshot;
+    private volatile boolean ready = false;
+
+    public StartupPipeline(Context context, File saveFile) {
+        this.context = context.getApplicationContext();
+        this.saveFile = saveFile;
+    }
+
+    public void start() {
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        }, "StartupPipeline");
+        loader.start();
+    }
+
+    private void load() {
+        long startTime = System.nanoTime();
+        ExecutorService decodePool = Executors.newSingleThreadExecutor();
+        final Executor timedDecode = timedExecutor("decode", decodePool);
+
+        // Stage 1: parse tile definitions, decode runs concurrently
+        long stageStart = System.nanoTime();
+        TileLibrary lib = TileLibrary.getInstance(context, timedDecode);
+        recordStage("parse", stageStart);
+
+        // Stage 2: generate the spawn ring, only needs IDs and logic
+        stageStart = System.nanoTime();
+        TileMap map = new TileMap(lib);
+        prewarmSpawnTiles(lib, map);
+        TileMap.Point spawn = map.getSpawnPoint();
+        int spawnChunkX = Math.floorDiv(spawn.x, TileMap.CHUNK_SIZE);
+        int spawnChunkY = Math.floorDiv(spawn.y, TileMap.CHUNK_SIZE);
+        for (int y = -SPAWN_RING_RADIUS; y <= SPAWN_RING_RADIUS; y++) {
+            for (int x = -SPAWN_RING_RADIUS; x <= SPAWN_RING_RADIUS; x++) {
+                map.getTile((spawnChunkX + x) * TileMap.CHUNK_SIZE,
+                        (spawnChunkY + y) * TileMap.CHUNK_SIZE);
+            }
+        }
+        recordStage("world", stageStart);
+
+        // Stage 3: decompress the last save; a broken one is skipped, not fatal
+        stageStart = System.nanoTime();
+        try {
+            snapshot = WorldSaver.load(saveFile);
+        } catch (IOException e) {
+            Log.w(TAG, "Saved world unreadable, starting fresh", e);
+        }
+        recordStage("save", stageStart);
+
+        // Join: the first frame needs the sliced tileset
+        stageStart = System.nanoTime();
+        lib.awaitTileset();
+        recordStage("join", stageStart);
+        decodePool.shutdown();
+
+        recordStage("total", startTime);
+        Log.i(TAG, "Startup stages (ms): " + getStageTimings());
+
+        tileMap = map;
+        ready = true;
+    }
+
+    // Compose the tiles used by the biomes around spawn on a background thread
+    private void prewarmSpawnTiles(final TileLibrary lib, final TileMap map) {
+        Thread prewarm = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lib.prewarm(map.getSpawnTileIds());
+            }
+        }, "TileMap-prewarm");
+        prewarm.setDaemon(true);
+        prewarm.setPriority(Thread.MIN_PRIORITY);
+        prewarm.start();
+    }
+
+    private Executor timedExecutor(final String stage, final Executor delegate) {
+        return new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                delegate.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        long stageStart = System.nanoTime();
+                        command.run();
+                        recordStage(stage, stageStart);
+                    }
+                });
+            }
+        };
+    }
+
+    private synchronized void recordStage(String stage, long stageStartNanos) {
+        stageTimings.put(stage, (System.nanoTime() - stageStartNanos) / 1000000);
+    }
+
+    // Getters
+    public boolean isReady() { return ready; }
+    public TileMap getTileMap() { return tileMap; }
+    public WorldSnapshot getSnapshot() { return snapshot; } // Null without a readable save
+
+    public synchronized Map<String, Long> getStageTimings() {
+        return new LinkedHashMap<>(stageTimings);
+    }
+}
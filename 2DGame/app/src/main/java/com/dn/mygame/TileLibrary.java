@@ -6,6 +6,7 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.util.Log;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -15,102 +16,207 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Optimized Singleton TileLibrary for Java 1.7
  *
  * <p>Uses try-with-resources
  *
- * <p>Caches slices and full tiles
+ * <p>Caches slices; full tiles are composed on first use and kept in a byte-bounded LRU
  *
- * <p>Parses JSON assets efficiently
+ * <p>Slices are classified when the tileset is sliced: fully opaque ones are stored as
+ * RGB_565, and a tile composed only of those (the base terrains) is RGB_565 too, half the
+ * bytes of ARGB_8888. Overlays keep their alpha. Every bitmap is counted in a {@link
+ * BitmapBudget} by category. The slices stay loaded for as long as tiles can be recomposed,
+ * so they have a fixed budget of their own that loading checks; the composed tile cache
+ * evicts to keep the tiles under the rest.
+ *
+ * <p>Parses JSON assets efficiently while the tileset decodes on a separate executor
  *
  * <p>Now uses only a single "flip" string in JSON ("horizontally-vertically").
+ *
+ * <p>Prefers the binary tiles.bin table compiled by the tools module; the JSON files are the
+ * fallback when the table is missing or has an unknown version.
+ *
+ * <p>IDs, logic and animation frames live in the {@link TileRegistry} it extends, which the
+ * headless core uses on its own; this class adds the Android asset loading and the bitmaps.
+ * Bitmaps are a dense array indexed by tile ID like the rest of the registry.
  */
-public class TileLibrary {
+public class TileLibrary extends TileRegistry {
+    private static final String TAG = "TileLibrary";
     private static volatile TileLibrary instance;
-    private static final int TILE_SIZE = 64;
     private static final int SLICE_SIZE = 16;
-
-    // ID management
-    private final Map<String, Byte> nameToId = new HashMap<>();
-    private final Map<Byte, String> idToName = new HashMap<>();
-    private byte nextId = 1; // 0 reserved for empty
+    private static final String TILE_TABLE_ASSET = "tiles.bin";
+    private static final int SOURCE_BUDGET_BYTES = 1024 * 1024; // A 512 x 512 ARGB tileset
+    private static final int DEFAULT_BITMAP_BUDGET_BYTES = 5 * 1024 * 1024; // Composed tiles
 
     // Existing fields
-    private final Bitmap[] sliceBitmaps;
-    private final Map<String, Integer> tileLogic = new HashMap<>();
-    private final Map<String, Bitmap> fullTileCache = new HashMap<>();
+    private final FutureTask<Bitmap[]> sliceTask;
+    private final AtomicReferenceArray<Bitmap> bitmapById = new AtomicReferenceArray<>(MAX_TILES);
+    private final long[] lastUsed = new long[MAX_TILES]; // Recency hint for eviction
+    private long useClock = 0;
+    private final BitmapBudget bitmapBudget = new BitmapBudget(SOURCE_BUDGET_BYTES,
+            DEFAULT_BITMAP_BUDGET_BYTES);
     private final Rect drawRect = new Rect();
 
-    /** Private constructor */
-    private TileLibrary(Context ctx) {
+    /** Private constructor; the tileset decode runs on decodeExecutor */
+    private TileLibrary(Context ctx, Executor decodeExecutor) {
         Context appCtx = ctx.getApplicationContext();
-        sliceBitmaps = loadSlices(appCtx.getAssets(), "tileset.png");
-        Tile.initialize(sliceBitmaps);
+        final AssetManager assets = appCtx.getAssets();
+        sliceTask = new FutureTask<>(new Callable<Bitmap[]>() {
+            @Override
+            public Bitmap[] call() {
+                Bitmap[] slices = loadSlices(assets, "tileset.png");
+                Tile.initialize(slices);
+                return slices;
+            }
+        });
+        decodeExecutor.execute(sliceTask);
 
-        try {
-            JSONObject logicJson = loadJson(appCtx.getAssets(), "tile_logic.json");
-            if (logicJson != null) parseLogic(logicJson);
+        long startTime = System.nanoTime();
+        String source = TILE_TABLE_ASSET;
+        if (!loadTable(assets, TILE_TABLE_ASSET)) {
+            source = "JSON";
+            try {
+                JSONObject logicJson = loadJson(assets, "tile_logic.json");
+                if (logicJson != null) parseLogic(logicJson);
 
-            JSONObject piecesJson = loadJson(appCtx.getAssets(), "tile_pieces.json");
-            if (piecesJson != null) buildFullTiles(piecesJson);
-        } catch (JSONException e) {
-            e.printStackTrace();
+                JSONObject piecesJson = loadJson(assets, "tile_pieces.json");
+                if (piecesJson != null) parsePieces(piecesJson);
+
+                JSONObject animationsJson = loadJson(assets, "tile_animations.json");
+                if (animationsJson != null) parseAnimations(animationsJson);
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+            freeze();
         }
+        Log.d(TAG, "Loaded " + (getTileCount() - 1) + " tile definitions from " + source + " in "
+                + (System.nanoTime() - startTime) / 1000 + " us");
     }
 
     /** Double-checked locking singleton */
     public static TileLibrary getInstance(Context ctx) {
+        return getInstance(ctx, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run(); // Decode inline when no startup pipeline is involved
+            }
+        });
+    }
+
+    /** Singleton access that decodes the tileset on the given executor if first to load */
+    static TileLibrary getInstance(Context ctx, Executor decodeExecutor) {
         if (instance == null) {
             synchronized (TileLibrary.class) {
                 if (instance == null) {
-                    instance = new TileLibrary(ctx);
+                    instance = new TileLibrary(ctx, decodeExecutor);
                 }
             }
         }
         return instance;
     }
 
-    public int getTileSize() {
-        return TILE_SIZE;
+    /** Block until the tileset has been decoded and sliced */
+    public void awaitTileset() {
+        try {
+            sliceTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to load tileset", e.getCause());
+        }
     }
 
-        /** New: Get byte ID for texture name */
-    public byte getId(String name) {
-        if (!nameToId.containsKey(name)) {
-            nameToId.put(name, nextId);
-            idToName.put(nextId, name);
-            nextId++;
+    /** Get bitmap by ID, composing it on first use */
+    public Bitmap getBitmap(byte id) {
+        int index = id & 0xFF;
+        Bitmap full = bitmapById.get(index);
+        if (full != null) {
+            lastUsed[index] = ++useClock; // Racy by design, only orders evictions
+            return full;
         }
-        return nameToId.get(name);
+        return composeAndCache(index);
     }
 
-    /** New: Get texture name from byte ID */
-    public String getName(byte id) {
-        return idToName.getOrDefault(id, "");
+    /** Get bitmap by name (keep for compatibility) */
+    public Bitmap getBitmap(String name) {
+        return getBitmap(getId(name));
     }
 
-    /** Updated: Get logic constant by ID */
-    public int getLogic(byte id) {
-        String name = getName(id);
-        return tileLogic.getOrDefault(name, TileMap.SPACE);
+    private synchronized Bitmap composeAndCache(int index) {
+        Bitmap full = bitmapById.get(index);
+        if (full != null) return full;
+
+        PieceSpec spec = getPieces(index);
+        if (spec == null) return null;
+
+        full = composeTile(spec);
+        bitmapById.set(index, full);
+        lastUsed[index] = ++useClock;
+        bitmapBudget.add(categoryOf(full), full);
+        trimFullTileCache(index);
+        return full;
     }
 
-    /** New: Get bitmap by ID */
-    public Bitmap getBitmap(byte id) {
-        return fullTileCache.get(getName(id));
+    private static int categoryOf(Bitmap composed) {
+        return composed.getConfig() == Bitmap.Config.RGB_565
+                ? BitmapBudget.OPAQUE : BitmapBudget.ALPHA;
     }
 
-    /** Existing: Get bitmap by name (keep for compatibility) */
-    public Bitmap getBitmap(String name) {
-        return fullTileCache.get(name);
+    /** Bytes currently held by composed full tiles */
+    public int getFullTileCacheBytes() {
+        return (int) (bitmapBudget.getBytes(BitmapBudget.OPAQUE)
+                + bitmapBudget.getBytes(BitmapBudget.ALPHA));
+    }
+
+    /** Byte accounting of every bitmap the library holds */
+    public BitmapBudget getBitmapBudget() {
+        return bitmapBudget;
+    }
+
+    /** Change the composed tile budget, evicting tiles at once if it shrank */
+    public synchronized void setBitmapBudgetBytes(long budgetBytes) {
+        bitmapBudget.setBudgetBytes(budgetBytes);
+        trimFullTileCache(-1);
+    }
+
+    /** Compose the given tiles ahead of their first draw */
+    public void prewarm(Collection<Byte> ids) {
+        long startTime = System.nanoTime();
+        for (byte id : ids) {
+            getBitmap(id);
+        }
+        Log.d(TAG, "Prewarmed " + ids.size() + " tiles in "
+                + (System.nanoTime() - startTime) / 1000000 + " ms, cache "
+                + bitmapBudget.summary());
+    }
+
+    /** Evict least recently drawn tiles until the composed tiles fit their budget */
+    private void trimFullTileCache(int keepIndex) {
+        // Always keep the tile just composed, even if it alone exceeds the budget
+        while (bitmapBudget.isOverBudget()) {
+            int oldest = -1;
+            for (int i = 0; i < getTileCount(); i++) {
+                if (i != keepIndex && bitmapById.get(i) != null
+                        && (oldest < 0 || lastUsed[i] < lastUsed[oldest])) {
+                    oldest = i;
+                }
+            }
+            if (oldest < 0) break;
+            Bitmap evicted = bitmapById.getAndSet(oldest, null);
+            bitmapBudget.remove(categoryOf(evicted), evicted);
+        }
     }
 
-    /** Load and slice master tileset into SLICE_SIZE pieces */
+    /** Load and slice master tileset into SLICE_SIZE pieces, opaque ones as RGB_565 */
     private Bitmap[] loadSlices(AssetManager assets, String assetName) {
         Bitmap tileset;
         try (InputStream is = assets.open(assetName)) {
@@ -122,18 +228,57 @@ public class TileLibrary {
         int cols = tileset.getWidth() / SLICE_SIZE;
         int rows = tileset.getHeight() / SLICE_SIZE;
         Bitmap[] slices = new Bitmap[cols * rows];
+        int[] pixels = new int[SLICE_SIZE * SLICE_SIZE];
         int idx = 0;
         for (int y = 0; y < rows; y++) {
             for (int x = 0; x < cols; x++) {
-                slices[idx++] =
+                Bitmap slice =
                         Bitmap.createBitmap(
                                 tileset, x * SLICE_SIZE, y * SLICE_SIZE, SLICE_SIZE, SLICE_SIZE);
+                slice.getPixels(pixels, 0, SLICE_SIZE, 0, 0, SLICE_SIZE, SLICE_SIZE);
+                if (isOpaque(pixels)) {
+                    Bitmap compact = slice.copy(Bitmap.Config.RGB_565, false);
+                    slice.recycle();
+                    slice = compact;
+                }
+                bitmapBudget.add(BitmapBudget.SOURCE, slice);
+                slices[idx++] = slice;
             }
         }
         tileset.recycle();
+        bitmapBudget.checkSourcesFit();
         return slices;
     }
 
+    private static boolean isOpaque(int[] argb) {
+        for (int pixel : argb) {
+            if ((pixel >>> 24) != 0xFF) return false;
+        }
+        return true;
+    }
+
+    /** Read the compiled tile table; false means fall back to JSON */
+    private boolean loadTable(AssetManager assets, String assetName) {
+        InputStream is;
+        try {
+            is = assets.open(assetName);
+        } catch (IOException e) {
+            return false; // Table not packaged
+        }
+        try {
+            loadTable(is);
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, assetName + ": " + e.getMessage() + ", using JSON", e);
+            return false;
+        } finally {
+            try {
+                is.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
     /** Read an asset into a JSONObject */
     private JSONObject loadJson(AssetManager assets, String assetName) {
         StringBuilder sb = new StringBuilder();
@@ -150,8 +295,7 @@ public class TileLibrary {
         return null;
     }
 
-    /** Populate tileLogic map from JSON */
-      /** Updated logic parser with ID registration */
+    /** Populate logic by ID from JSON */
     private void parseLogic(JSONObject root) throws JSONException {
         Iterator<String> keys = root.keys();
         while (keys.hasNext()) {
@@ -163,44 +307,78 @@ public class TileLibrary {
 
             JSONArray arr = root.getJSONArray(key);
             for (int i = 0; i < arr.length(); i++) {
-                String tileName = arr.getString(i);
-                tileLogic.put(tileName, logicVal);
-                getId(tileName); // Register ID
+                setLogic(register(arr.getString(i)), logicVal);
             }
         }
     }
 
 
-    /** Build full 64x64 tiles from JSON definitions using only "flip" string */
-        /** Updated tile builder with ID registration */
-    private void buildFullTiles(JSONObject root) throws JSONException {
-        int half = TILE_SIZE / 2;
+    /** Record the four-piece layout of every tile; bitmaps are composed lazily */
+    private void parsePieces(JSONObject root) throws JSONException {
         Iterator<String> names = root.keys();
 
         while (names.hasNext()) {
             String name = names.next();
-            getId(name); // Register main tile name
-            
-            JSONArray arr = root.getJSONArray(name);
-            Bitmap full = Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
-            Canvas canvas = new Canvas(full);
+            int id = register(name);
 
+            JSONArray arr = root.getJSONArray(name);
+            PieceSpec spec = new PieceSpec();
             for (int i = 0; i < 4; i++) {
                 JSONObject o = arr.getJSONObject(i);
-                int id = o.getInt("id");
                 String flipStr = o.optString("flip", "false-false");
                 String[] parts = flipStr.split("-");
-                boolean fh = Boolean.parseBoolean(parts[0]);
-                boolean fv = Boolean.parseBoolean(parts[1]);
-                int rot = o.optInt("rotate", 0);
-
-                Tile part = Tile.get(id).transform(fh, fv, rot);
-                int dx = (i & 1) * half;
-                int dy = ((i >>> 1) & 1) * half;
-                drawRect.set(dx, dy, dx + half, dy + half);
-                canvas.drawBitmap(part.getBitmap(), null, drawRect, null);
+                spec.sliceIds[i] = o.getInt("id");
+                spec.flipH[i] = Boolean.parseBoolean(parts[0]);
+                spec.flipV[i] = Boolean.parseBoolean(parts[1]);
+                spec.rotations[i] = o.optInt("rotate", 0);
+            }
+            setPieces(id, spec);
+        }
+    }
+
+    /** Read frame lists for animated tiles */
+    private void parseAnimations(JSONObject root) throws JSONException {
+        Iterator<String> names = root.keys();
+
+        while (names.hasNext()) {
+            String name = names.next();
+            JSONObject o = root.getJSONObject(name);
+            JSONArray arr = o.getJSONArray("frames");
+            int frameMillis = o.optInt("frameMillis", 0);
+            if (arr.length() == 0 || frameMillis <= 0) continue;
+
+            int id = register(name);
+            byte[] frames = new byte[arr.length()];
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = (byte) register(arr.getString(i));
             }
-            fullTileCache.put(name, full);
+            setAnimation(id, frames, frameMillis, o.optBoolean("phaseFromPosition", false));
+        }
+    }
+
+    /** Build a full 64x64 tile from its four transformed slices; RGB_565 if all are opaque */
+    private Bitmap composeTile(PieceSpec spec) {
+        awaitTileset();
+        int half = TILE_SIZE / 2;
+        boolean opaque = true;
+        for (int i = 0; i < 4; i++) {
+            opaque &= Tile.get(spec.sliceIds[i]).getBitmap().getConfig() == Bitmap.Config.RGB_565;
+        }
+        Bitmap full = Bitmap.createBitmap(TILE_SIZE, TILE_SIZE,
+                opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(full);
+
+        for (int i = 0; i < 4; i++) {
+            Tile source = Tile.get(spec.sliceIds[i]);
+            Tile part = source.transform(spec.flipH[i], spec.flipV[i], spec.rotations[i]);
+            int dx = (i & 1) * half;
+            int dy = ((i >>> 1) & 1) * half;
+            drawRect.set(dx, dy, dx + half, dy + half);
+            canvas.drawBitmap(part.getBitmap(), null, drawRect, null);
+            // A transform that cancels out (both flips plus a half turn) can hand back the
+            // slice's own bitmap in a new Tile, so compare bitmaps rather than tiles
+            if (part.getBitmap() != source.getBitmap()) part.getBitmap().recycle();
         }
+        return full;
     }
-}
\ No newline at end of file
+}
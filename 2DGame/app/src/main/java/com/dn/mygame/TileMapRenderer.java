@@ -0,0 +1,79 @@
+package com.dn.mygame;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+
+/**
+ * Draws the tiles of a {@link TileMap} with the library's bitmaps: the camera's visible chunks,
+ * cut to the canvas clip. Chunks the streamer has not loaded yet are left blank rather than
+ * generated mid-frame.
+ */
+public class TileMapRenderer {
+    private final TileMap map;
+    private final TileLibrary lib;
+    private final ChunkWindow window;
+    private final Rect clip = new Rect();
+    private final Matrix flip = new Matrix(); // Mirrors flipH overlays in place, reused per tile
+
+    public TileMapRenderer(TileMap map, TileLibrary lib, ChunkWindow window) {
+        this.map = map;
+        this.lib = lib;
+        this.window = window;
+    }
+
+    public void draw(Canvas canvas) {
+        canvas.getClipBounds(clip);
+        int ts = map.getTileSize();
+        int cs = TileMap.CHUNK_SIZE;
+        int clipStartX = Math.floorDiv(clip.left, ts);
+        int clipEndX = Math.floorDiv(clip.right - 1, ts);
+        int clipStartY = Math.floorDiv(clip.top, ts);
+        int clipEndY = Math.floorDiv(clip.bottom - 1, ts);
+
+        for (int cy = window.getMinY(); cy <= window.getMaxY(); cy++) {
+            for (int cx = window.getMinX(); cx <= window.getMaxX(); cx++) {
+                TileMap.TileData[][] chunk = map.getLoadedChunk(cx, cy);
+                if (chunk == null) continue;
+                int startX = Math.max(cx * cs, clipStartX), endX = Math.min(cx * cs + cs - 1, clipEndX);
+                int startY = Math.max(cy * cs, clipStartY), endY = Math.min(cy * cs + cs - 1, clipEndY);
+                for (int y = startY; y <= endY; y++) {
+                    TileMap.TileData[] row = chunk[y - cy * cs];
+                    for (int x = startX; x <= endX; x++) {
+                        drawTile(canvas, x, y, row[x - cx * cs]);
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawTile(Canvas canvas, int x, int y, TileMap.TileData td) {
+        int ts = map.getTileSize();
+        long simulationTimeMillis = map.getSimulationTimeMillis();
+
+        // Animated tiles resolve to their current frame
+        byte baseId = lib.resolveFrame(td.baseId, x, y, simulationTimeMillis);
+        byte overlayId = lib.resolveFrame(td.overlayId, x, y, simulationTimeMillis);
+
+        // Draw base tile
+        Bitmap baseBitmap = lib.getBitmap(baseId);
+        if (baseBitmap != null) {
+            canvas.drawBitmap(baseBitmap, x * ts, y * ts, null);
+        }
+
+        // Draw overlay with flipH check
+        if (overlayId != TileLibrary.EMPTY) {
+            Bitmap overlayBitmap = lib.getBitmap(overlayId);
+            if (overlayBitmap != null) {
+                if ((td.flags & 0x01) != 0) { // Check flipH flag (bit 0)
+                    flip.setScale(-1, 1);
+                    flip.postTranslate(x * ts + overlayBitmap.getWidth(), y * ts);
+                    canvas.drawBitmap(overlayBitmap, flip, null);
+                } else {
+                    canvas.drawBitmap(overlayBitmap, x * ts, y * ts, null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.dn.mygame;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Shared setup for the benchmarks: the tile table, and the world origins they run at.
+ *
+ * <p>The world has no seed of its own; terrain, pits, trees and teleporters are a pure function
+ * of chunk coordinates. Benchmarks therefore take an origin chunk as their seed parameter:
+ * each origin is a different, reproducible stretch of world.
+ */
+final class BenchTiles {
+    /** System property naming the compiled tile table; the jmh task sets it for every fork */
+    static final String TABLE_PROPERTY = "tiles.table";
+
+    private BenchTiles() {
+    }
+
+    static TileRegistry load() throws IOException {
+        String path = System.getProperty(TABLE_PROPERTY);
+        if (path == null) {
+            throw new IllegalStateException("Set -D" + TABLE_PROPERTY + "=app/src/main/assets/tiles.bin");
+        }
+        TileRegistry registry = new TileRegistry();
+        try (InputStream in = new FileInputStream(path)) {
+            registry.loadTable(in);
+        }
+        return registry;
+    }
+
+    /** A tile that moves, dashes and triggers treat as plain ground */
+    static boolean isPlain(TileMap map, int x, int y) {
+        return map.isTraversable(x, y) && !map.isJumpPad(x, y) && !map.isTeleporter(x, y)
+                && !map.isPit(x, y) && !map.isSlippery(x, y);
+    }
+}
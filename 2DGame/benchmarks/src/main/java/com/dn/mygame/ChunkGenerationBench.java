@@ -0,0 +1,105 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.dn.mygame.TileMap.CHUNK_SIZE;
+
+/**
+ * {@link TileMap#generateChunk} whole and stage by stage.
+ *
+ * <p>Each invocation works on the next of an 8 x 8 block of chunks at the origin, so the
+ * numbers average over the terrain there rather than one lucky chunk. Later stages start from
+ * the earlier stages' output, computed once in setup. Pit clusters write into the proximity
+ * mask, so that stage first copies back the mask the base stage left.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkGenerationBench {
+    private static final int BLOCK = 8; // Chunks per side of the rotation
+    private static final int CHUNKS = BLOCK * BLOCK;
+
+    @Param({"0", "4096", "-65536"})
+    public int originChunk;
+
+    private TileMap map;
+    private final int[] cxs = new int[CHUNKS], cys = new int[CHUNKS];
+    private final TileMap.TileData[][][] base = new TileMap.TileData[CHUNKS][][];
+    private final boolean[][][] basePits = new boolean[CHUNKS][][];
+    private final TileMap.TileData[][][] withPits = new TileMap.TileData[CHUNKS][][];
+    private final TileMap.TileData[][][] connected = new TileMap.TileData[CHUNKS][][];
+    private final boolean[][] pits = new boolean[CHUNK_SIZE][CHUNK_SIZE];
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        map = new TileMap(BenchTiles.load());
+        for (int i = 0; i < CHUNKS; i++) {
+            int cx = originChunk + i % BLOCK, cy = originChunk + i / BLOCK;
+            cxs[i] = cx;
+            cys[i] = cy;
+            basePits[i] = new boolean[CHUNK_SIZE][CHUNK_SIZE];
+            base[i] = map.createBaseChunk(cx, cy, basePits[i]);
+            copyPits(basePits[i], pits);
+            withPits[i] = map.addPitClusters(base[i], cx, cy, pits);
+            connected[i] = map.processConnections(withPits[i], cx, cy);
+        }
+    }
+
+    @Benchmark
+    public TileMap.TileData[][] generateChunk() {
+        int i = next();
+        return map.generateChunk(cxs[i], cys[i]);
+    }
+
+    @Benchmark
+    public TileMap.TileData[][] baseTerrain() {
+        int i = next();
+        return map.createBaseChunk(cxs[i], cys[i], new boolean[CHUNK_SIZE][CHUNK_SIZE]);
+    }
+
+    @Benchmark
+    public TileMap.TileData[][] pitClusters() {
+        int i = next();
+        copyPits(basePits[i], pits);
+        return map.addPitClusters(base[i], cxs[i], cys[i], pits);
+    }
+
+    @Benchmark
+    public TileMap.TileData[][] connections() {
+        int i = next();
+        return map.processConnections(withPits[i], cxs[i], cys[i]);
+    }
+
+    @Benchmark
+    public TileMap.TileData[][] verticalStructures() {
+        int i = next();
+        return map.addVerticalStructures(connected[i], cxs[i], cys[i]);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (cursor + 1) % CHUNKS;
+        return i;
+    }
+
+    private static void copyPits(boolean[][] from, boolean[][] to) {
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            System.arraycopy(from[y], 0, to[y], 0, CHUNK_SIZE);
+        }
+    }
+}
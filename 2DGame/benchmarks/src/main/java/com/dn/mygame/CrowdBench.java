@@ -0,0 +1,106 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@link SpatialIndex} stress case: 10,000 wandering NPCs around the spawn.
+ *
+ * <p>A tick moves NPCs through the index and checks every step's target tile against it.
+ * The queries are the ones collision, AI and draw culling make: one tile, a small radius and
+ * a screen of tiles, at random spots in the crowd. The crowd stays within the active ring, so
+ * nobody falls asleep and the population stays at 10,000.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrowdBench {
+    private static final int NPCS = 10000;
+    private static final int SCATTER_TILES = 3 * TileMap.CHUNK_SIZE; // Inside the active ring
+    private static final int QUERIES = 1024; // Power of two, walked with a mask
+    private static final int RADIUS = 4;
+    private static final int SCREEN_WIDTH = 40, SCREEN_HEIGHT = 24; // Tiles on a phone screen
+    private static final int TICKS_PER_SECOND = 60;
+
+    private TileMap map;
+    private GameWorld world;
+    private SpatialIndex index;
+    private final TickInput input = new TickInput();
+    private SimClock clock;
+    private final int[] xs = new int[QUERIES], ys = new int[QUERIES];
+    private final List<Entity> found = new ArrayList<>();
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        Random rnd = new Random(1);
+        map = new TileMap(BenchTiles.load());
+        world = new GameWorld(map);
+        index = map.getSpatialIndex();
+        Player player = world.getPlayer();
+        int spawnX = player.getX(), spawnY = player.getY();
+        for (int i = 1; i < NPCS; i++) { // The world starts with one NPC
+            int x = spawnX + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            int y = spawnY + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            world.addEntity(new NPC(x, y, map, rnd.nextLong()));
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            xs[i] = spawnX + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            ys[i] = spawnY + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+        }
+        clock = new SimClock.AsFastAsPossible(TICKS_PER_SECOND, 0L);
+        map.startClock(clock.getTimeMillis());
+    }
+
+    @Benchmark
+    public long tick() {
+        clock.advance();
+        world.step(input, clock.getTimeMillis());
+        return map.getSimulationTimeMillis();
+    }
+
+    @Benchmark
+    public boolean isOccupied() {
+        int i = next();
+        return index.isOccupied(xs[i], ys[i], null);
+    }
+
+    @Benchmark
+    public int queryRadius() {
+        int i = next();
+        found.clear();
+        index.queryRadius(xs[i], ys[i], RADIUS, found);
+        return found.size();
+    }
+
+    @Benchmark
+    public int queryScreen() {
+        int i = next();
+        found.clear();
+        index.queryRect(xs[i] - SCREEN_WIDTH / 2, ys[i] - SCREEN_HEIGHT / 2,
+                xs[i] + SCREEN_WIDTH / 2, ys[i] + SCREEN_HEIGHT / 2, found);
+        return found.size();
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (cursor + 1) & (QUERIES - 1);
+        return i;
+    }
+}
@@ -0,0 +1,143 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.dn.mygame.TileMap.CHUNK_SIZE;
+
+/**
+ * A crowd chasing one target after it moved: every chaser planning its own route with
+ * {@link PathFinder}, against one {@link FlowField} that every chaser reads, either rebuilt
+ * or repaired in place.
+ *
+ * <p>Each invocation is one replan of the whole crowd. The A* side finds and refines a path
+ * per chaser; the flow field sides move the target a tile, rebuild the field in one go rather
+ * than spread over ticks or repair it, and read each chaser's step. The repaired field
+ * rebuilds every {@link FlowField#DEFAULT_MAX_REPAIRS} moves, as it does in the game. Chasers
+ * stand on plain tiles of the 7 x 7 chunk ring around the target that both can route from.
+ * The crowd a 60 fps frame affords is how many chasers fit in its 16.7 ms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrowdChaseBench {
+    private static final int RADIUS_CHUNKS = 3; // The active ring
+    private static final int MAX_ATTEMPTS = 10000;
+
+    @Param({"0", "4096", "-65536"})
+    public int originChunk;
+
+    @Param({"100", "1000"})
+    public int chasers;
+
+    private TileMap map;
+    private PathFinder finder;
+    private FlowField field; // Rebuilt on every move
+    private FlowField repairedField;
+    private int[] chaserX, chaserY;
+    private final int[] targetX = new int[2], targetY = new int[2]; // Two neighbouring tiles
+    private int targetIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        map = new TileMap(BenchTiles.load());
+        int first = originChunk - RADIUS_CHUNKS, last = originChunk + RADIUS_CHUNKS;
+        map.loadChunks(first, first, last, last);
+        finder = map.getPathFinder();
+        field = new FlowField(map, RADIUS_CHUNKS, Integer.MAX_VALUE);
+        field.setMaxRepairs(0);
+        repairedField = new FlowField(map, RADIUS_CHUNKS, Integer.MAX_VALUE);
+        findTargets();
+
+        Random rnd = new Random(originChunk);
+        chaserX = new int[chasers];
+        chaserY = new int[chasers];
+        int minTile = first * CHUNK_SIZE, ringTiles = (2 * RADIUS_CHUNKS + 1) * CHUNK_SIZE;
+        field.update(targetX[0], targetY[0]);
+        repairedField.update(targetX[0], targetY[0]);
+        int found = 0;
+        for (int attempt = 0; found < chasers && attempt < MAX_ATTEMPTS; attempt++) {
+            int x = minTile + rnd.nextInt(ringTiles), y = minTile + rnd.nextInt(ringTiles);
+            if (!BenchTiles.isPlain(map, x, y) || field.getDistance(x, y) <= 0) continue;
+            if (finder.findPath(x, y, targetX[0], targetY[0]) == null) continue;
+            chaserX[found] = x;
+            chaserY[found] = y;
+            found++;
+        }
+        if (found < chasers) {
+            throw new IllegalStateException("Only " + found + " chasers can reach the target at chunk " + originChunk);
+        }
+    }
+
+    @Benchmark
+    public int perNpcAStar() {
+        int tx = moveTarget(), ty = targetY[targetIndex];
+        int steps = 0;
+        for (int i = 0; i < chasers; i++) {
+            Path path = finder.findPath(chaserX[i], chaserY[i], tx, ty);
+            if (path == null || !path.sync(chaserX[i], chaserY[i])) continue;
+            if (path.needsRefinement() && !finder.refineNextLeg(path, chaserX[i], chaserY[i])) continue;
+            steps += path.getStepDx() + 2 * path.getStepDy();
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int sharedFlowField() {
+        field.update(moveTarget(), targetY[targetIndex]);
+        int steps = 0;
+        for (int i = 0; i < chasers; i++) {
+            steps += field.getDirection(chaserX[i], chaserY[i]);
+        }
+        return steps;
+    }
+
+    @Benchmark
+    public int repairedFlowField() {
+        repairedField.update(moveTarget(), targetY[targetIndex]);
+        int steps = 0;
+        for (int i = 0; i < chasers; i++) {
+            steps += repairedField.getDirection(chaserX[i], chaserY[i]);
+        }
+        return steps;
+    }
+
+    // Alternate between the two target tiles, so every replan follows a move
+    private int moveTarget() {
+        targetIndex ^= 1;
+        return targetX[targetIndex];
+    }
+
+    // A plain tile near the ring's centre with a plain neighbour to step to
+    private void findTargets() {
+        int center = originChunk * CHUNK_SIZE + CHUNK_SIZE / 2;
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            for (int y = center - r; y <= center + r; y++) {
+                for (int x = center - r; x <= center + r; x++) {
+                    if (BenchTiles.isPlain(map, x, y) && BenchTiles.isPlain(map, x + 1, y)) {
+                        targetX[0] = x;
+                        targetY[0] = y;
+                        targetX[1] = x + 1;
+                        targetY[1] = y;
+                        return;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No open ground near chunk " + originChunk);
+    }
+}
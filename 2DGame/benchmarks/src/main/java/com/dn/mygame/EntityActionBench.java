@@ -0,0 +1,147 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.dn.mygame.TileMap.CHUNK_SIZE;
+
+/**
+ * {@link MovementComponent#move}, {@link DashComponent#dash} and teleporter resolution on a
+ * loaded block of chunks.
+ *
+ * <p>Entities stand on lanes of plain ground found in setup and go back and forth, so every
+ * invocation does a real step. A dash starts a cooldown, so dashers take turns: each
+ * invocation dashes the next one and advances the timer wheel a tick, and a dasher's cooldown
+ * has run out by the time its turn comes round again. Teleporter lookups resolve the
+ * teleporters in the block, or plain tiles for the miss case.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityActionBench {
+    private static final int BLOCK = 8; // Chunks per side, inside the cache
+    private static final int DASHERS = 32; // More turns than the dash cooldown's ticks
+    private static final int DASH_LANE = 3; // Start plus dash distance
+
+    @Param({"0", "4096", "-65536"})
+    public int originChunk;
+
+    private TileMap map;
+    private TimerWheel timers;
+    private Player walker;
+    private int walkerDx = 1;
+    private final Player[] dashers = new Player[DASHERS];
+    private final int[] dashDx = new int[DASHERS];
+    private int dashCursor;
+    private int[] teleporters; // x, y pairs
+    private int[] plainTiles; // x, y pairs
+    private int teleporterCursor, plainCursor;
+
+    @Setup
+    public void setup() throws IOException {
+        map = new TileMap(BenchTiles.load());
+        timers = map.getTimerWheel();
+        map.loadChunks(originChunk, originChunk, originChunk + BLOCK - 1, originChunk + BLOCK - 1);
+
+        // Lanes on every other row, so nobody blocks another's step
+        int originTile = originChunk * CHUNK_SIZE, size = BLOCK * CHUNK_SIZE;
+        List<int[]> lanes = new ArrayList<>();
+        for (int y = originTile; y < originTile + size && lanes.size() <= DASHERS; y += 2) {
+            for (int x = originTile; x + DASH_LANE <= originTile + size; x++) {
+                if (isPlainRun(x, y, DASH_LANE)) {
+                    lanes.add(new int[] {x, y});
+                    break;
+                }
+            }
+        }
+        if (lanes.size() <= DASHERS) {
+            throw new IllegalStateException("Too little plain ground at chunk " + originChunk);
+        }
+        walker = spawn(lanes.get(0));
+        for (int i = 0; i < DASHERS; i++) {
+            dashers[i] = spawn(lanes.get(i + 1));
+            dashDx[i] = 1;
+        }
+
+        List<Integer> found = new ArrayList<>();
+        for (int y = originTile; y < originTile + size; y++) {
+            for (int x = originTile; x < originTile + size; x++) {
+                if (map.getTeleporterDestination(x, y) != null) {
+                    found.add(x);
+                    found.add(y);
+                }
+            }
+        }
+        if (found.isEmpty()) {
+            throw new IllegalStateException("No teleporters at chunk " + originChunk);
+        }
+        teleporters = new int[found.size()];
+        for (int i = 0; i < teleporters.length; i++) {
+            teleporters[i] = found.get(i);
+        }
+        plainTiles = new int[2 * lanes.size()];
+        for (int i = 0; i < lanes.size(); i++) {
+            plainTiles[2 * i] = lanes.get(i)[0];
+            plainTiles[2 * i + 1] = lanes.get(i)[1];
+        }
+    }
+
+    @Benchmark
+    public int move() {
+        walker.move(walkerDx, 0, map);
+        walkerDx = -walkerDx;
+        return walker.getX();
+    }
+
+    @Benchmark
+    public int dash() {
+        int i = dashCursor;
+        dashCursor = (dashCursor + 1) % DASHERS;
+        dashers[i].dash(dashDx[i], 0, map);
+        dashDx[i] = -dashDx[i];
+        timers.advance();
+        return dashers[i].getX();
+    }
+
+    @Benchmark
+    public TileMap.Point teleporterHit() {
+        int i = teleporterCursor;
+        teleporterCursor = (teleporterCursor + 2) % teleporters.length;
+        return map.getTeleporterDestination(teleporters[i], teleporters[i + 1]);
+    }
+
+    @Benchmark
+    public TileMap.Point teleporterMiss() {
+        int i = plainCursor;
+        plainCursor = (plainCursor + 2) % plainTiles.length;
+        return map.getTeleporterDestination(plainTiles[i], plainTiles[i + 1]);
+    }
+
+    private boolean isPlainRun(int x, int y, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!BenchTiles.isPlain(map, x + i, y)) return false;
+        }
+        return true;
+    }
+
+    private Player spawn(int[] lane) {
+        Player player = new Player(lane[0], lane[1], map);
+        map.getSpatialIndex().add(player);
+        return player;
+    }
+}
@@ -0,0 +1,195 @@
+package com.dn.mygame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Stress harness: runs the simulation without a view for a fixed number of ticks and
+ * reports ticks/s, chunk generation rate and heap use.
+ *
+ * <p>Usage: HeadlessRunner tiles.bin [players] [npcs] [ticks] [seed]
+ *
+ * <p>The first player is driven through {@link GameWorld#step} like the D-pad would drive it,
+ * running in a direction that turns every few seconds. Once it is half a chunk from spawn
+ * it steers back, so it keeps crossing chunk borders while the active ring stays over the
+ * crowd. The other players random-walk around spawn. NPCs are scattered around spawn and
+ * wander; once a second, any that strayed too far are given a goal near spawn and path
+ * back. Teleporters still carry NPCs hundreds of tiles off the ring, where they fall asleep,
+ * so each one that does is replaced by a fresh NPC near spawn and the crowd stays at the
+ * size asked for. The report gives the average and fewest NPCs awake and the replacements,
+ * and warns when the crowd thinned below {@link #MIN_AWAKE_SHARE} anyway, since asleep NPCs
+ * cost nothing and ticks/s would then measure an emptier world. Ticks run on a {@link
+ * SimClock.AsFastAsPossible} clock: 60 Hz simulated time, computed as fast as the CPU allows.
+ * Each heading change counts as a touch for {@link InputLatency}, whose queue, gate and ease
+ * stages are reported in simulated time; there are no frames, so display stays empty.
+ * Finally the world is saved as a {@link WorldSnapshot} and loaded into a fresh map, timing
+ * the game-thread capture and the load.
+ */
+public class HeadlessRunner {
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int TURN_TICKS = 300; // Ticks between heading changes
+    private static final int HEAP_SAMPLE_TICKS = 60;
+    // The lead stays within a chunk of spawn's, so its 7 x 7 ring always covers the two
+    // chunks around spawn's, where the NPCs are kept
+    private static final int LEASH_TILES = TileMap.CHUNK_SIZE / 2; // Lead steers home beyond this
+    private static final int SCATTER_TILES = TileMap.CHUNK_SIZE + TileMap.CHUNK_SIZE / 2;
+    private static final int DETOUR_TICKS = 30; // Homeward leg before trying another
+    private static final int HERD_TICKS = 60; // Ticks between sending strays home
+    private static final double MIN_AWAKE_SHARE = 0.9;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessRunner tiles.bin [players] [npcs] [ticks] [seed]");
+            System.exit(2);
+        }
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int npcs = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int ticks = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+
+        TileRegistry registry = new TileRegistry();
+        try (InputStream in = new FileInputStream(args[0])) {
+            registry.loadTable(in);
+        }
+        System.out.println(run(registry, players, npcs, ticks, seed));
+    }
+
+    /** Build a world with the given population and step it; the report is human readable */
+    public static String run(TileRegistry registry, int players, int npcs, int ticks, long seed)
+            throws IOException {
+        Random rnd = new Random(seed);
+        TileMap map = new TileMap(registry);
+        GameWorld world = new GameWorld(map);
+        Player lead = world.getPlayer();
+        int spawnX = lead.getX(), spawnY = lead.getY();
+
+        List<Player> walkers = new ArrayList<>();
+        for (int i = 1; i < players; i++) {
+            Player p = new Player(spawnX + rnd.nextInt(9) - 4, spawnY + rnd.nextInt(9) - 4, map);
+            world.addEntity(p);
+            walkers.add(p);
+        }
+        for (int i = 1; i < npcs; i++) { // The world starts with one NPC
+            world.addEntity(newNpc(map, spawnX, spawnY, rnd));
+        }
+
+        TickInput input = new TickInput();
+        SimClock clock = new SimClock.AsFastAsPossible(TICKS_PER_SECOND, 0L);
+        map.startClock(clock.getTimeMillis());
+        InputLatency latency = new InputLatency(clock);
+        world.setInputLatency(latency);
+        long chunksBefore = map.getGeneratedChunkCount();
+        long peakHeap = usedHeap();
+        long awakeNpcTicks = 0;
+        int fewestAwake = Integer.MAX_VALUE;
+        int replaced = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            clock.advance();
+            input.clear();
+            input.heldDirection = heading(tick, lead.getX() - spawnX, lead.getY() - spawnY);
+            input.running = true;
+            if (tick % TURN_TICKS == 0) input.touchNanos = clock.nanoTime();
+            for (int i = 0; i < walkers.size(); i++) {
+                if (rnd.nextInt(8) == 0) walkers.get(i).move(rnd.nextInt(3) - 1, rnd.nextInt(3) - 1, map);
+            }
+            world.step(input, clock.getTimeMillis());
+            if (tick % HEAP_SAMPLE_TICKS == 0) peakHeap = Math.max(peakHeap, usedHeap());
+            if (tick % HERD_TICKS == 0) herd(world.getEntities(), spawnX, spawnY, rnd);
+            int awake = world.getEntities().size() - players; // Every entity but the players
+            awakeNpcTicks += awake;
+            fewestAwake = Math.min(fewestAwake, awake);
+            for (; awake < npcs; awake++) {
+                world.addEntity(newNpc(map, spawnX, spawnY, rnd));
+                replaced++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long chunks = map.getGeneratedChunkCount() - chunksBefore;
+        double seconds = elapsed / 1e9;
+
+        if (fewestAwake < MIN_AWAKE_SHARE * npcs) {
+            System.err.println(String.format("Warning: only %d of %d NPCs stayed awake; "
+                    + "ticks/s measures a thinner crowd", fewestAwake, npcs));
+        }
+        return String.format(
+                "%d players, %d NPCs (%.0f awake on average, %d at fewest, %d replaced after "
+                        + "leaving the ring, %d asleep at end), %d ticks in %.2f s: %.0f ticks/s, %.0f awake NPC ticks/s, "
+                        + "%d chunks generated (%.1f chunks/s), heap %d MiB peak, %d MiB at end%n%s",
+                players, npcs, (double) awakeNpcTicks / ticks, fewestAwake, replaced,
+                world.getSleepingCount(), ticks, seconds, ticks / seconds, awakeNpcTicks / seconds,
+                chunks, chunks / seconds, peakHeap >> 20, usedHeap() >> 20, latency.summary())
+                + "\n" + saveAndLoad(registry, world);
+    }
+
+    // An NPC on plain ground in the scatter area, so it does not start on a teleporter
+    private static NPC newNpc(TileMap map, int spawnX, int spawnY, Random rnd) {
+        int x, y;
+        do {
+            x = spawnX + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            y = spawnY + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+        } while (!BenchTiles.isPlain(map, x, y));
+        return new NPC(x, y, map, rnd.nextLong());
+    }
+
+    // Give NPCs that wandered past the scatter area a goal back inside it
+    private static void herd(List<Entity> entities, int spawnX, int spawnY, Random rnd) {
+        for (int i = 0; i < entities.size(); i++) {
+            if (!(entities.get(i) instanceof NPC)) continue;
+            NPC npc = (NPC) entities.get(i);
+            if (npc.hasGoal()) continue;
+            int dx = npc.getX() - spawnX, dy = npc.getY() - spawnY;
+            if (Math.max(Math.abs(dx), Math.abs(dy)) <= SCATTER_TILES) continue;
+            npc.setGoal(spawnX + rnd.nextInt(2 * LEASH_TILES + 1) - LEASH_TILES,
+                    spawnY + rnd.nextInt(2 * LEASH_TILES + 1) - LEASH_TILES);
+        }
+    }
+
+    // Turn every few seconds; beyond the leash, head back toward spawn instead, diagonally
+    // or along either axis in turn so one obstacle cannot pin the lead
+    private static int heading(int tick, int dx, int dy) {
+        if (Math.max(Math.abs(dx), Math.abs(dy)) <= LEASH_TILES) {
+            return TickInput.UP + (tick / TURN_TICKS) % 8; // UP..DOWN_RIGHT
+        }
+        int sx = -Integer.signum(dx), sy = -Integer.signum(dy);
+        int leg = (tick / DETOUR_TICKS) % 3;
+        if (leg == 1 && sx != 0) sy = 0;
+        if (leg == 2 && sy != 0) sx = 0;
+        if (sy < 0) return sx < 0 ? TickInput.UP_LEFT : sx > 0 ? TickInput.UP_RIGHT : TickInput.UP;
+        if (sy > 0) return sx < 0 ? TickInput.DOWN_LEFT : sx > 0 ? TickInput.DOWN_RIGHT : TickInput.DOWN;
+        return sx < 0 ? TickInput.LEFT : TickInput.RIGHT;
+    }
+
+    // Snapshot the world, compress it, and restore it into a fresh map
+    private static String saveAndLoad(TileRegistry registry, GameWorld world) throws IOException {
+        long start = System.nanoTime();
+        WorldSnapshot snapshot = WorldSnapshot.capture(world);
+        long captureNanos = System.nanoTime() - start;
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        snapshot.writeTo(file);
+
+        TileMap map = new TileMap(registry);
+        GameWorld loaded = new GameWorld(map);
+        long chunksBefore = map.getGeneratedChunkCount();
+        start = System.nanoTime();
+        loaded.restore(WorldSnapshot.readFrom(new ByteArrayInputStream(file.toByteArray())),
+                map.getLastUpdateMillis());
+        long loadNanos = System.nanoTime() - start;
+        return String.format(
+                "save: %d awake, %d asleep, %.1f KiB compressed, captured in %.2f ms; "
+                        + "loaded in %.1f ms generating %d chunks",
+                loaded.getEntities().size(), loaded.getSleepingCount(), file.size() / 1024.0,
+                captureNanos / 1e6, loadNanos / 1e6, map.getGeneratedChunkCount() - chunksBefore);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
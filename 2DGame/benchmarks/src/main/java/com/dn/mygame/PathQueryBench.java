@@ -0,0 +1,113 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.dn.mygame.TileMap.CHUNK_SIZE;
+
+/**
+ * Path queries per second: {@link PathFinder#findPath} against a flat tile A* over the same
+ * loaded block, the way a query would run without the portal graph.
+ *
+ * <p>Queries run between plain tiles of a 7 x 7 block of chunks, the size of the active ring,
+ * with goals about the given distance from their starts. Setup keeps only pairs both searches
+ * can route. Warm queries share the map's finder, whose chunk graphs are built by the end of
+ * warm-up; cold ones start a fresh finder, so they also pay for the graphs they touch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathQueryBench {
+    private static final int BLOCK = 7; // Chunks per side, the active ring
+    private static final int PAIRS = 256; // Power of two, walked with a mask
+    private static final int MAX_ATTEMPTS = 100 * PAIRS;
+
+    @Param({"0", "4096", "-65536"})
+    public int originChunk;
+
+    @Param({"12", "48"})
+    public int distance;
+
+    private TileMap map;
+    private PathFinder finder;
+    private int minTile, blockTiles;
+    private final int[] startX = new int[PAIRS], startY = new int[PAIRS];
+    private final int[] goalX = new int[PAIRS], goalY = new int[PAIRS];
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        map = new TileMap(BenchTiles.load());
+        map.loadChunks(originChunk, originChunk, originChunk + BLOCK - 1, originChunk + BLOCK - 1);
+        finder = map.getPathFinder();
+        minTile = originChunk * CHUNK_SIZE;
+        blockTiles = BLOCK * CHUNK_SIZE;
+
+        Random rnd = new Random(originChunk);
+        int found = 0;
+        for (int attempt = 0; found < PAIRS && attempt < MAX_ATTEMPTS; attempt++) {
+            double angle = rnd.nextDouble() * 2 * Math.PI;
+            int sx = minTile + rnd.nextInt(blockTiles), sy = minTile + rnd.nextInt(blockTiles);
+            int gx = sx + (int) Math.round(distance * Math.cos(angle));
+            int gy = sy + (int) Math.round(distance * Math.sin(angle));
+            if (!inBlock(gx, gy) || !BenchTiles.isPlain(map, sx, sy) || !BenchTiles.isPlain(map, gx, gy)) {
+                continue;
+            }
+            if (finder.findPath(sx, sy, gx, gy) == null
+                    || finder.findFlatCost(minTile, minTile, blockTiles, blockTiles, sx, sy, gx, gy) < 0) {
+                continue;
+            }
+            startX[found] = sx;
+            startY[found] = sy;
+            goalX[found] = gx;
+            goalY[found] = gy;
+            found++;
+        }
+        if (found < PAIRS) {
+            throw new IllegalStateException("Only " + found + " routable pairs at chunk " + originChunk);
+        }
+    }
+
+    @Benchmark
+    public Path hpaWarm() {
+        int i = next();
+        return finder.findPath(startX[i], startY[i], goalX[i], goalY[i]);
+    }
+
+    @Benchmark
+    public Path hpaCold() {
+        int i = next();
+        return new PathFinder(map).findPath(startX[i], startY[i], goalX[i], goalY[i]);
+    }
+
+    @Benchmark
+    public int flatAStar() {
+        int i = next();
+        return finder.findFlatCost(minTile, minTile, blockTiles, blockTiles,
+                startX[i], startY[i], goalX[i], goalY[i]);
+    }
+
+    private boolean inBlock(int x, int y) {
+        return x >= minTile && y >= minTile && x < minTile + blockTiles && y < minTile + blockTiles;
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (cursor + 1) & (PAIRS - 1);
+        return i;
+    }
+}
@@ -0,0 +1,75 @@
+package com.dn.mygame;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Latency harness for tapping: the same tap sequence with and without the command buffer.
+ *
+ * <p>Usage: TapLatencyBench tiles.bin [ticks] [seed] [bufferTicks]
+ *
+ * <p>The player taps a random direction every 8 to 16 ticks (133 to 267 ms), each tap held
+ * for two ticks. The move delay is 150 ms, so a brisk tap now and then lands while the last
+ * move is still gated; slides and invulnerability swallow others. Without the buffer those
+ * taps are lost and the next tap has to move the player, which {@link InputLatency} measures
+ * as one long gate. Every tick is measured, not just a recent window. Times are simulated (see {@link
+ * SimClock.AsFastAsPossible}), so results do not depend on the machine.
+ */
+public class TapLatencyBench {
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int MIN_TAP_GAP = 8;
+    private static final int MAX_TAP_GAP = 16;
+    private static final int TAP_TICKS = 2;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TapLatencyBench tiles.bin [ticks] [seed] [bufferTicks]");
+            System.exit(2);
+        }
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        int bufferTicks = args.length > 3 ? Integer.parseInt(args[3]) : 12;
+
+        TileRegistry registry = new TileRegistry();
+        try (InputStream in = new FileInputStream(args[0])) {
+            registry.loadTable(in);
+        }
+        System.out.println("No buffer:\n" + run(registry, ticks, seed, 0).summary());
+        System.out.println("Buffer " + bufferTicks + " ticks:\n"
+                + run(registry, ticks, seed, bufferTicks).summary());
+        System.exit(0);
+    }
+
+    /** Tap through a fresh world and return what the latency tracker saw */
+    public static InputLatency run(TileRegistry registry, int ticks, long seed, int bufferTicks) {
+        Random rnd = new Random(seed);
+        TileMap map = new TileMap(registry);
+        GameWorld world = new GameWorld(map);
+        world.setInputBufferTicks(bufferTicks);
+        SimClock clock = new SimClock.AsFastAsPossible(TICKS_PER_SECOND, 0L);
+        map.startClock(clock.getTimeMillis());
+        InputLatency latency = new InputLatency(clock, ticks);
+        world.setInputLatency(latency);
+
+        TickInput input = new TickInput();
+        int nextTap = 0;
+        int tapDirection = TickInput.NONE;
+        int tapEnd = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            clock.advance();
+            input.clear();
+            if (tick == nextTap) {
+                tapDirection = TickInput.UP + rnd.nextInt(8);
+                tapEnd = tick + TAP_TICKS;
+                nextTap = tick + MIN_TAP_GAP + rnd.nextInt(MAX_TAP_GAP - MIN_TAP_GAP + 1);
+                input.pressedDirection = tapDirection;
+                input.touchNanos = clock.nanoTime();
+            }
+            if (tick < tapEnd) input.heldDirection = tapDirection;
+            world.step(input, clock.getTimeMillis());
+        }
+        return latency;
+    }
+}
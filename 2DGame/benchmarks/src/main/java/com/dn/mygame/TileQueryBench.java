@@ -0,0 +1,92 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static com.dn.mygame.TileMap.CHUNK_SIZE;
+
+/**
+ * {@link TileMap#getTile} and the tile predicates built on it, with the chunk cache warm or cold.
+ *
+ * <p>Hit queries land on random tiles of a 5 x 5 block of chunks loaded in setup. Miss
+ * queries walk a 16 x 16 block, one chunk per query, which is more than the cache keeps, so
+ * every query generates its chunk and evicts the oldest one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileQueryBench {
+    private static final int QUERIES = 1024; // Power of two, walked with a mask
+    private static final int HIT_CHUNKS = 5; // Per side, well inside the cache
+    private static final int MISS_CHUNKS = 16; // Per side, beyond the cache
+
+    @Param({"0", "4096", "-65536"})
+    public int originChunk;
+
+    @Param({"hit", "miss"})
+    public String cache;
+
+    private TileMap map;
+    private final int[] xs = new int[QUERIES], ys = new int[QUERIES];
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        map = new TileMap(BenchTiles.load());
+        Random rnd = new Random(originChunk);
+        int originTile = originChunk * CHUNK_SIZE;
+        boolean hit = "hit".equals(cache);
+        for (int i = 0; i < QUERIES; i++) {
+            if (hit) {
+                xs[i] = originTile + rnd.nextInt(HIT_CHUNKS * CHUNK_SIZE);
+                ys[i] = originTile + rnd.nextInt(HIT_CHUNKS * CHUNK_SIZE);
+            } else {
+                int chunk = i % (MISS_CHUNKS * MISS_CHUNKS);
+                xs[i] = originTile + (chunk % MISS_CHUNKS) * CHUNK_SIZE + rnd.nextInt(CHUNK_SIZE);
+                ys[i] = originTile + (chunk / MISS_CHUNKS) * CHUNK_SIZE + rnd.nextInt(CHUNK_SIZE);
+            }
+        }
+        if (hit) {
+            map.loadChunks(originChunk, originChunk,
+                    originChunk + HIT_CHUNKS - 1, originChunk + HIT_CHUNKS - 1);
+        }
+    }
+
+    @Benchmark
+    public TileMap.TileData getTile() {
+        int i = next();
+        return map.getTile(xs[i], ys[i]);
+    }
+
+    @Benchmark
+    public boolean isObstacle() {
+        int i = next();
+        return map.isObstacle(xs[i], ys[i]);
+    }
+
+    @Benchmark
+    public boolean isPit() {
+        int i = next();
+        return map.isPit(xs[i], ys[i]);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (cursor + 1) & (QUERIES - 1);
+        return i;
+    }
+}
@@ -0,0 +1,79 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The tile lookups TileLibrary serves from {@link TileRegistry}: id by name, name by id,
+ * logic, animation and frame resolution, cycling over every tile in the table.
+ *
+ * <p>TileLibrary's bitmap lookups need Android and are not measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileRegistryBench {
+    private TileRegistry registry;
+    private byte[] ids;
+    private String[] names;
+    private int cursor;
+    private long timeMillis;
+
+    @Setup
+    public void setup() throws IOException {
+        registry = BenchTiles.load();
+        int count = registry.getTileCount() - 1; // Without EMPTY
+        ids = new byte[count];
+        names = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = (byte) (i + 1);
+            names[i] = registry.getName(ids[i]);
+        }
+    }
+
+    @Benchmark
+    public byte getId() {
+        return registry.getId(names[next()]);
+    }
+
+    @Benchmark
+    public String getName() {
+        return registry.getName(ids[next()]);
+    }
+
+    @Benchmark
+    public int getLogic() {
+        return registry.getLogic(ids[next()]);
+    }
+
+    @Benchmark
+    public boolean isAnimated() {
+        return registry.isAnimated(ids[next()]);
+    }
+
+    @Benchmark
+    public byte resolveFrame() {
+        int i = next();
+        timeMillis += 16; // A frame's worth, so animations step through their frames
+        return registry.resolveFrame(ids[i], i * 7, i * 13, timeMillis);
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (cursor + 1) % ids.length;
+        return i;
+    }
+}
@@ -0,0 +1,177 @@
+package com.dn.mygame;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Startup harness: time and memory of loading the tiles and composing their bitmaps, with
+ * every tile composed up front as before, against composing on first draw as now.
+ *
+ * <p>Usage: TileStartupRunner tiles.bin [rounds]
+ *
+ * <p>Each round loads the table, generates the 3 x 3 chunk spawn ring the way
+ * StartupPipeline does, and composes 64 x 64 tiles from their four pieces. Bitmaps need
+ * Android, so the slices and tiles are ARGB {@link BufferedImage}s cut from a seeded random
+ * tileset with as many 16 x 16 slices as the pieces reference, composed with the same flips,
+ * rotations and 2x scale as TileLibrary. Eager composes every tile with pieces before the
+ * first frame. Lazy composes what the first frame draws, a phone screen of tiles around
+ * spawn, and leaves the spawn biomes' tiles to the background prewarm, timed apart. Memory is
+ * the composed pixels at 4 bytes each, as ARGB_8888 bitmaps hold them; RGB_565 would halve
+ * the opaque ones. The first round runs before the JIT has warmed up.
+ */
+public class TileStartupRunner {
+    private static final int SLICE_SIZE = 16;
+    private static final int VIEW_TILES_X = 17; // A 1080 x 2340 screen of 64 px tiles
+    private static final int VIEW_TILES_Y = 37;
+    private static final int SPAWN_RING_RADIUS = 1;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TileStartupRunner tiles.bin [rounds]");
+            System.exit(2);
+        }
+        byte[] table = Files.readAllBytes(Paths.get(args[0]));
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        for (int round = 0; round < rounds; round++) {
+            System.out.println("round " + round + ": " + run(table));
+        }
+    }
+
+    /** One cold-to-first-frame startup each way; the report is human readable */
+    public static String run(byte[] table) throws IOException {
+        long start = System.nanoTime();
+        TileRegistry registry = new TileRegistry();
+        registry.loadTable(new ByteArrayInputStream(table));
+        long loadNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        TileMap map = new TileMap(registry);
+        TileMap.Point spawn = map.getSpawnPoint();
+        int spawnChunkX = Math.floorDiv(spawn.x, TileMap.CHUNK_SIZE);
+        int spawnChunkY = Math.floorDiv(spawn.y, TileMap.CHUNK_SIZE);
+        for (int y = -SPAWN_RING_RADIUS; y <= SPAWN_RING_RADIUS; y++) {
+            for (int x = -SPAWN_RING_RADIUS; x <= SPAWN_RING_RADIUS; x++) {
+                map.getTile((spawnChunkX + x) * TileMap.CHUNK_SIZE, (spawnChunkY + y) * TileMap.CHUNK_SIZE);
+            }
+        }
+        long ringNanos = System.nanoTime() - start;
+
+        BufferedImage[] slices = slices(registry);
+        List<Integer> all = new ArrayList<>();
+        for (int id = 1; id < registry.getTileCount(); id++) {
+            if (registry.getPieces(id) != null) all.add(id);
+        }
+        Set<Integer> firstFrame = new LinkedHashSet<>();
+        for (int y = spawn.y - VIEW_TILES_Y / 2; y <= spawn.y + VIEW_TILES_Y / 2; y++) {
+            for (int x = spawn.x - VIEW_TILES_X / 2; x <= spawn.x + VIEW_TILES_X / 2; x++) {
+                TileMap.TileData td = map.getTile(x, y);
+                addDrawn(registry, firstFrame, td.baseId, x, y);
+                if (td.overlayId != TileRegistry.EMPTY) addDrawn(registry, firstFrame, td.overlayId, x, y);
+            }
+        }
+        Set<Integer> prewarm = new LinkedHashSet<>();
+        for (byte id : map.getSpawnTileIds()) {
+            if (registry.getPieces(id & 0xFF) != null && !firstFrame.contains(id & 0xFF)) prewarm.add(id & 0xFF);
+        }
+
+        List<BufferedImage> cache = new ArrayList<>(); // Holds the tiles like TileLibrary does
+        // Load the imaging classes first, which Android keeps resident, so neither side pays
+        compose(registry, slices, all.subList(0, 1), cache);
+        cache.clear();
+        long eagerNanos = compose(registry, slices, all, cache);
+        cache.clear();
+        long lazyNanos = compose(registry, slices, firstFrame, cache);
+        long prewarmNanos = compose(registry, slices, prewarm, cache);
+        long setupNanos = loadNanos + ringNanos;
+        return String.format("table %.2f ms, spawn ring %.2f ms; "
+                        + "eager: %d tiles %.2f ms, %d KiB, first frame at %.2f ms; "
+                        + "lazy: %d tiles %.2f ms, %d KiB, first frame at %.2f ms, "
+                        + "then prewarm %d tiles %.2f ms, %d KiB off the critical path",
+                loadNanos / 1e6, ringNanos / 1e6,
+                all.size(), eagerNanos / 1e6, kib(all.size()), (setupNanos + eagerNanos) / 1e6,
+                firstFrame.size(), lazyNanos / 1e6, kib(firstFrame.size()), (setupNanos + lazyNanos) / 1e6,
+                prewarm.size(), prewarmNanos / 1e6, kib(prewarm.size()));
+    }
+
+    // The frame the renderer would draw at this position, if it is composed from pieces
+    private static void addDrawn(TileRegistry registry, Set<Integer> ids, byte id, int x, int y) {
+        int frame = registry.resolveFrame(id, x, y, 0L) & 0xFF;
+        if (registry.getPieces(frame) != null) ids.add(frame);
+    }
+
+    private static long kib(int tiles) {
+        return (long) tiles * TileRegistry.TILE_SIZE * TileRegistry.TILE_SIZE * 4 / 1024;
+    }
+
+    // Stand-in for the sliced tileset: as many seeded random slices as the pieces reference
+    private static BufferedImage[] slices(TileRegistry registry) {
+        int count = 0;
+        for (int id = 1; id < registry.getTileCount(); id++) {
+            TileRegistry.PieceSpec spec = registry.getPieces(id);
+            if (spec == null) continue;
+            for (int slice : spec.sliceIds) count = Math.max(count, slice + 1);
+        }
+        Random rnd = new Random(count);
+        BufferedImage[] slices = new BufferedImage[count];
+        for (int i = 0; i < count; i++) {
+            slices[i] = new BufferedImage(SLICE_SIZE, SLICE_SIZE, BufferedImage.TYPE_INT_ARGB);
+            for (int p = 0; p < SLICE_SIZE * SLICE_SIZE; p++) {
+                slices[i].setRGB(p % SLICE_SIZE, p / SLICE_SIZE, rnd.nextInt());
+            }
+        }
+        return slices;
+    }
+
+    // Compose the tiles into the cache; returns the nanoseconds taken
+    private static long compose(TileRegistry registry, BufferedImage[] slices, Iterable<Integer> ids,
+            List<BufferedImage> cache) {
+        long start = System.nanoTime();
+        for (int id : ids) {
+            cache.add(composeTile(registry.getPieces(id), slices));
+        }
+        return System.nanoTime() - start;
+    }
+
+    // TileLibrary.composeTile: each piece flipped and turned, then drawn scaled into a quadrant
+    private static BufferedImage composeTile(TileRegistry.PieceSpec spec, BufferedImage[] slices) {
+        int size = TileRegistry.TILE_SIZE, half = size / 2;
+        BufferedImage full = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D canvas = full.createGraphics();
+        for (int i = 0; i < 4; i++) {
+            BufferedImage part = transform(slices[spec.sliceIds[i]], spec.flipH[i], spec.flipV[i],
+                    spec.rotations[i]);
+            int dx = (i & 1) * half;
+            int dy = ((i >>> 1) & 1) * half;
+            canvas.drawImage(part, dx, dy, half, half, null);
+        }
+        canvas.dispose();
+        return full;
+    }
+
+    // Tile.transform: a new bitmap unless the transform is a no-op
+    private static BufferedImage transform(BufferedImage slice, boolean flipH, boolean flipV, int rotateDeg) {
+        int normalized = ((rotateDeg % 360) + 360) % 360;
+        if (!flipH && !flipV && normalized == 0) return slice;
+        double c = SLICE_SIZE / 2.0;
+        AffineTransform m = new AffineTransform();
+        m.translate(c, c);
+        m.scale(flipH ? -1 : 1, flipV ? -1 : 1);
+        m.rotate(Math.toRadians(normalized));
+        m.translate(-c, -c);
+        BufferedImage out = new BufferedImage(SLICE_SIZE, SLICE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = out.createGraphics();
+        g.drawImage(slice, m, null);
+        g.dispose();
+        return out;
+    }
+}
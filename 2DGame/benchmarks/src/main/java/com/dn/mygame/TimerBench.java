@@ -0,0 +1,103 @@
+package com.dn.mygame;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Microbenchmark: per-tick countdowns against {@link TimerWheel} for a mostly idle crowd.
+ *
+ * <p>Usage: TimerBench [entities] [activePercent] [ticks]
+ *
+ * <p>Both sides model the same workload: each tick a few entities start a cooldown of 10 to
+ * 300 ticks (dashes, jumps, invulnerability), so only about activePercent of them have a
+ * pending countdown at any time. The countdown side decrements every entity's counters each
+ * tick the way the components used to; the wheel side advances once per tick.
+ */
+public class TimerBench {
+    private static final int MIN_DELAY = 10;
+    private static final int MAX_DELAY = 300;
+    private static final int COUNTERS = 3; // Countdowns per entity, as in the old components
+
+    public static void main(String[] args) {
+        int entities = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        double activePercent = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+        // Starts per tick that keep activePercent of the crowd busy at the mean delay
+        double meanDelay = (MIN_DELAY + MAX_DELAY) / 2.0;
+        int startsPerTick = Math.max(1, (int) Math.round(entities * activePercent / 100 / meanDelay));
+
+        for (int round = 0; round < 3; round++) { // The first rounds warm up the JIT
+            double countdown = runCountdowns(entities, startsPerTick, ticks);
+            long countdownFired = lastFired;
+            double wheel = runWheel(entities, startsPerTick, ticks);
+            System.out.println(String.format(
+                    "round %d: %d entities, %d starts/tick: countdowns %.1f us/tick (%d fired), "
+                            + "wheel %.2f us/tick (%d fired)",
+                    round, entities, startsPerTick, countdown, countdownFired, wheel, lastFired));
+        }
+    }
+
+    private static double runCountdowns(int entities, int startsPerTick, int ticks) {
+        int[] counters = new int[entities * COUNTERS];
+        boolean[] flags = new boolean[entities];
+        Random rnd = new Random(1);
+        long fired = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int s = 0; s < startsPerTick; s++) {
+                int e = rnd.nextInt(entities);
+                counters[e * COUNTERS + rnd.nextInt(COUNTERS)] = MIN_DELAY + rnd.nextInt(MAX_DELAY - MIN_DELAY);
+                flags[e] = true;
+            }
+            for (int i = 0; i < counters.length; i++) {
+                if (counters[i] > 0 && --counters[i] == 0) {
+                    flags[i / COUNTERS] = false;
+                    fired++;
+                }
+            }
+        }
+        return report(start, ticks, fired);
+    }
+
+    private static double runWheel(int entities, int startsPerTick, int ticks) {
+        final TimerWheel wheel = new TimerWheel();
+        final boolean[] flags = new boolean[entities];
+        final int[] handles = new int[entities * COUNTERS];
+        Arrays.fill(handles, TimerWheel.NONE);
+        final long[] fired = {0};
+        TimerWheel.Callback[] owners = new TimerWheel.Callback[entities];
+        for (int i = 0; i < entities; i++) {
+            final int e = i;
+            owners[i] = new TimerWheel.Callback() {
+                @Override
+                public void onTimer(int kind) {
+                    handles[e * COUNTERS + kind] = TimerWheel.NONE;
+                    flags[e] = false;
+                    fired[0]++;
+                }
+            };
+        }
+        Random rnd = new Random(1);
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int s = 0; s < startsPerTick; s++) {
+                int e = rnd.nextInt(entities);
+                int kind = rnd.nextInt(COUNTERS);
+                int delay = MIN_DELAY + rnd.nextInt(MAX_DELAY - MIN_DELAY);
+                wheel.cancel(handles[e * COUNTERS + kind]);
+                handles[e * COUNTERS + kind] = wheel.schedule(delay, owners[e], kind);
+                flags[e] = true;
+            }
+            wheel.advance();
+        }
+        return report(start, ticks, fired[0]);
+    }
+
+    private static long lastFired; // Printed so neither side's work can be optimised away
+
+    private static double report(long startNanos, int ticks, long fired) {
+        lastFired = fired;
+        return (System.nanoTime() - startNanos) / 1000.0 / ticks;
+    }
+}
@@ -0,0 +1,73 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulation ticks per second against the number of entities.
+ *
+ * <p>NPCs are scattered within the active ring so every one stays awake, several to a tile
+ * at the largest size. A tick is a full {@link GameWorld#step}; NPC thinking is cut by the
+ * scheduler's time budget, so the rest of the tick is what grows with the crowd. The render
+ * system is {@link EntityStore#updateRender} alone, the tight loop over every slot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldTickBench {
+    private static final int SCATTER_TILES = 3 * TileMap.CHUNK_SIZE; // Inside the active ring
+    private static final int TICKS_PER_SECOND = 60;
+
+    @Param({"1000", "10000", "100000"})
+    public int entities;
+
+    private TileMap map;
+    private GameWorld world;
+    private final TickInput input = new TickInput();
+    private SimClock clock;
+
+    @Setup
+    public void setup() throws IOException {
+        Random rnd = new Random(entities);
+        map = new TileMap(BenchTiles.load());
+        world = new GameWorld(map);
+        Player player = world.getPlayer();
+        int spawnX = player.getX(), spawnY = player.getY();
+        for (int i = world.getEntities().size(); i < entities; i++) {
+            int x = spawnX + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            int y = spawnY + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            world.addEntity(new NPC(x, y, map, rnd.nextLong()));
+        }
+        clock = new SimClock.AsFastAsPossible(TICKS_PER_SECOND, 0L);
+        map.startClock(clock.getTimeMillis());
+    }
+
+    @Benchmark
+    public long tick() {
+        clock.advance();
+        world.step(input, clock.getTimeMillis());
+        return map.getSimulationTimeMillis();
+    }
+
+    @Benchmark
+    public int renderSystem() {
+        clock.advance();
+        map.getEntityStore().updateRender(map.getTileSize(), clock.getTimeMillis() * 1_000_000L);
+        return map.getEntityStore().size();
+    }
+}
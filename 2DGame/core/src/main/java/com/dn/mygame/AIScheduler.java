@@ -0,0 +1,117 @@
+package com.dn.mygame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time-sliced, distance-based scheduling for NPC thinking.
+ *
+ * <p>NPCs near the focus entity think every tick, farther ones less often, and NPCs whose
+ * chunk is not loaded are frozen. Work resumes round-robin from where the previous tick
+ * stopped, and a tick stops early once the time budget is spent.
+ */
+public class AIScheduler {
+    // Level-of-detail bands (Chebyshev distance in tiles) and their think intervals (ticks)
+    private static final int NEAR_DISTANCE = TileMap.CHUNK_SIZE;
+    private static final int MID_DISTANCE = 2 * TileMap.CHUNK_SIZE;
+    private static final int NEAR_INTERVAL = 1;
+    private static final int MID_INTERVAL = 4;
+    private static final int FAR_INTERVAL = 16;
+    private static final int BUDGET_CHECK_MASK = 15; // Read the clock every 16 NPCs
+
+    private final TileMap tileMap;
+    private final long budgetNanos;
+    private final List<NPC> npcs = new ArrayList<>();
+    private long[] lastThinkTick = new long[16];
+    private int cursor = 0;
+    private long tick = 0;
+    private int lastCutVisits = -1;
+
+    public AIScheduler(TileMap tileMap, long budgetNanos) {
+        this.tileMap = tileMap;
+        this.budgetNanos = budgetNanos;
+    }
+
+    public void add(NPC npc) {
+        if (npcs.size() == lastThinkTick.length) {
+            lastThinkTick = Arrays.copyOf(lastThinkTick, lastThinkTick.length * 2);
+        }
+        lastThinkTick[npcs.size()] = tick;
+        npc.aiSlot = npcs.size();
+        npcs.add(npc);
+    }
+
+    /** O(1): the NPC knows its slot, and the last NPC moves into it */
+    public void remove(NPC npc) {
+        int index = npc.aiSlot;
+        if (index < 0 || index >= npcs.size() || npcs.get(index) != npc) return;
+        // Swap-remove keeps the arrays dense
+        int last = npcs.size() - 1;
+        NPC moved = npcs.get(last);
+        npcs.set(index, moved);
+        moved.aiSlot = index;
+        lastThinkTick[index] = lastThinkTick[last];
+        npcs.remove(last);
+        npc.aiSlot = -1;
+        if (cursor > last) cursor = 0;
+    }
+
+    public void update(Entity focus) {
+        run(focus, -1);
+    }
+
+    /**
+     * Replay a tick that ran out of budget after the given number of NPCs, so the same NPCs
+     * think regardless of how fast this run is; negative visits uses the time budget.
+     */
+    public void update(Entity focus, int visits) {
+        run(focus, visits);
+    }
+
+    /** NPCs visited by the last tick, or -1 if it visited all of them */
+    public int getLastCutVisits() {
+        return lastCutVisits;
+    }
+
+    private void run(Entity focus, int forcedVisits) {
+        tick++;
+        lastCutVisits = -1;
+        int count = npcs.size();
+        if (count == 0) return;
+
+        long deadline = System.nanoTime() + budgetNanos;
+        int fx = focus.getX(), fy = focus.getY();
+        int limit = forcedVisits >= 0 ? Math.min(forcedVisits, count) : count;
+        for (int visited = 0; visited < limit; visited++) {
+            if (cursor >= count) cursor = 0;
+            int index = cursor++;
+            NPC npc = npcs.get(index);
+            int x = npc.getX(), y = npc.getY();
+
+            if (tileMap.isChunkLoaded(x, y)) {
+                int distance = Math.max(Math.abs(x - fx), Math.abs(y - fy));
+                int interval = distance <= NEAR_DISTANCE ? NEAR_INTERVAL
+                        : distance <= MID_DISTANCE ? MID_INTERVAL : FAR_INTERVAL;
+                long elapsed = tick - lastThinkTick[index];
+                if (elapsed >= interval) {
+                    npc.updateAI((int) Math.min(elapsed, FAR_INTERVAL));
+                    lastThinkTick[index] = tick;
+                }
+            } else {
+                lastThinkTick[index] = tick; // Frozen: don't bank time while unloaded
+            }
+
+            if (forcedVisits < 0 && (visited & BUDGET_CHECK_MASK) == BUDGET_CHECK_MASK
+                    && System.nanoTime() > deadline) {
+                if (visited + 1 < count) lastCutVisits = visited + 1;
+                break;
+            }
+        }
+        if (forcedVisits >= 0 && limit < count) lastCutVisits = limit;
+    }
+
+    public int size() {
+        return npcs.size();
+    }
+}
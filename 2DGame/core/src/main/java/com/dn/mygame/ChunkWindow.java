@@ -0,0 +1,73 @@
+package com.dn.mygame;
+
+/**
+ * A rectangle of chunks someone needs: the visible part, and a larger prefetch part that
+ * should be loaded before it becomes visible.
+ *
+ * <p>The owner moves the window as often as it likes; the rectangles and {@link #getVersion}
+ * only change when a chunk boundary is crossed, so consumers compare versions instead of
+ * re-walking chunks every tick. {@link TileMap} streams every window registered with it and
+ * never evicts a chunk inside one. The camera owns the window drawing uses; {@link
+ * GameWorld} owns one for the simulation ring around the player.
+ */
+public class ChunkWindow {
+    // Inclusive chunk coordinates
+    private int minX, minY, maxX, maxY;
+    private int prefetchMinX, prefetchMinY, prefetchMaxX, prefetchMaxY;
+    private int version = 0;
+
+    /** Visible and prefetch rectangles are the same */
+    public boolean set(int minX, int minY, int maxX, int maxY) {
+        return set(minX, minY, maxX, maxY, minX, minY, maxX, maxY);
+    }
+
+    /** Move the window; returns true and bumps the version if either rectangle changed */
+    public boolean set(int minX, int minY, int maxX, int maxY,
+            int prefetchMinX, int prefetchMinY, int prefetchMaxX, int prefetchMaxY) {
+        if (version != 0
+                && minX == this.minX && minY == this.minY
+                && maxX == this.maxX && maxY == this.maxY
+                && prefetchMinX == this.prefetchMinX && prefetchMinY == this.prefetchMinY
+                && prefetchMaxX == this.prefetchMaxX && prefetchMaxY == this.prefetchMaxY) {
+            return false;
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        // The prefetch rectangle always covers the visible one
+        this.prefetchMinX = Math.min(minX, prefetchMinX);
+        this.prefetchMinY = Math.min(minY, prefetchMinY);
+        this.prefetchMaxX = Math.max(maxX, prefetchMaxX);
+        this.prefetchMaxY = Math.max(maxY, prefetchMaxY);
+        version++;
+        return true;
+    }
+
+    public boolean isVisible(int cx, int cy) {
+        return version != 0 && cx >= minX && cx <= maxX && cy >= minY && cy <= maxY;
+    }
+
+    public boolean isPrefetched(int cx, int cy) {
+        return version != 0
+                && cx >= prefetchMinX && cx <= prefetchMaxX
+                && cy >= prefetchMinY && cy <= prefetchMaxY;
+    }
+
+    /** 0 until the window is first set */
+    public int getVersion() { return version; }
+
+    public int getMinX() { return minX; }
+    public int getMinY() { return minY; }
+    public int getMaxX() { return maxX; }
+    public int getMaxY() { return maxY; }
+    public int getPrefetchMinX() { return prefetchMinX; }
+    public int getPrefetchMinY() { return prefetchMinY; }
+    public int getPrefetchMaxX() { return prefetchMaxX; }
+    public int getPrefetchMaxY() { return prefetchMaxY; }
+
+    /** Chunks in the prefetch rectangle */
+    public int getPrefetchCount() {
+        return (prefetchMaxX - prefetchMinX + 1) * (prefetchMaxY - prefetchMinY + 1);
+    }
+}
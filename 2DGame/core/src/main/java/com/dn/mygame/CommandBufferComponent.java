@@ -0,0 +1,82 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+
+public class CommandBufferComponent implements TimerWheel.Callback {
+    public static final int NONE = 0;
+    public static final int MOVE = 1;
+    public static final int DASH = 2;
+    static final int STATE_BYTES = 1 + 2 + 4; // Command, direction, expiry ticks remaining
+
+    private final Entity entity;
+    private final EntityStore store;
+    private final int slot;
+    private final TimerWheel timers;
+
+    // Holds one command that arrived while it could not run; a newer one replaces it and an
+    // expiry timer drops it if it stays illegal too long. State lives in the store
+    public CommandBufferComponent(Entity entity, EntityStore store, int slot, TimerWheel timers) {
+        this.entity = entity;
+        this.store = store;
+        this.slot = slot;
+        this.timers = timers;
+    }
+
+    public void buffer(int command, int dx, int dy, int expiryTicks) {
+        clear();
+        if (expiryTicks <= 0) return; // Buffering disabled
+        store.bufferedCommand[slot] = command;
+        store.bufferedDx[slot] = dx;
+        store.bufferedDy[slot] = dy;
+        store.bufferExpiry[slot] = timers.schedule(expiryTicks, this, 0);
+    }
+
+    /** Run the buffered command if it is legal now; returns the command run, or NONE */
+    public int fire(TileMap map, boolean moveAllowed) {
+        int command = store.bufferedCommand[slot];
+        int dx = store.bufferedDx[slot], dy = store.bufferedDy[slot];
+        if (command == MOVE && moveAllowed && entity.canMove()) {
+            clear();
+            entity.move(dx, dy, map);
+            return MOVE;
+        }
+        if (command == DASH && entity.canDash(map)) {
+            clear();
+            entity.dash(dx, dy, map);
+            return DASH;
+        }
+        return NONE;
+    }
+
+    public void clear() {
+        store.bufferedCommand[slot] = NONE;
+        store.bufferExpiry[slot] = timers.cancel(store.bufferExpiry[slot]);
+    }
+
+    @Override
+    public void onTimer(int kind) {
+        store.bufferedCommand[slot] = NONE; // Expired
+        store.bufferExpiry[slot] = TimerWheel.NONE;
+    }
+
+    public void cancelTimers() {
+        clear();
+    }
+
+    void writeState(ByteBuffer out) {
+        out.put((byte) store.bufferedCommand[slot]);
+        out.put((byte) store.bufferedDx[slot]).put((byte) store.bufferedDy[slot]);
+        out.putInt(timers.getRemaining(store.bufferExpiry[slot]));
+    }
+
+    void readState(ByteBuffer in) {
+        clear();
+        int command = in.get();
+        int dx = in.get(), dy = in.get();
+        int ticks = in.getInt();
+        if (command != NONE && ticks > 0) buffer(command, dx, dy, ticks);
+    }
+
+    // Getters
+    public int getCommand() { return store.bufferedCommand[slot]; }
+}
@@ -0,0 +1,101 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+
+public class DashComponent implements TimerWheel.Callback {
+    private Entity entity;
+    private final EntityStore store;
+    private final int slot;
+    private final TimerWheel timers;
+    private final int dashDistance = 2;
+    private final int dashCooldownDuration = 20;
+    static final int STATE_BYTES = 4 + 1; // Cooldown ticks remaining, slide acceleration
+
+    // The cooldown is a TimerWheel timer; its handle lives in the store
+    public DashComponent(Entity entity, EntityStore store, int slot, TimerWheel timers) {
+        this.entity = entity;
+        this.store = store;
+        this.slot = slot;
+        this.timers = timers;
+    }
+
+    // Whether dash() would act now rather than drop the input
+    public boolean canDash(TileMap map) {
+        return store.dashCooldown[slot] == TimerWheel.NONE
+                && !entity.isSliding()
+                && !map.isSlippery(entity.getX(), entity.getY());
+    }
+
+    public void dash(int dx, int dy, TileMap map) {
+        if (!canDash(map)) return;
+
+        int maxStep = 0;
+        boolean foundTeleporter = false;
+
+        for (int step = 1; step <= dashDistance; step++) {
+            int checkX = entity.getX() + dx * step;
+            int checkY = entity.getY() + dy * step;
+
+            if (map.isObstacle(checkX, checkY)) break;
+
+            if (map.isTeleporter(checkX, checkY)) {
+                maxStep = step;
+                foundTeleporter = true;
+                break;
+            }
+
+            if (map.isTraversable(checkX, checkY)) {
+                maxStep = step;
+            } else {
+                break;
+            }
+        }
+
+        if (maxStep > 0) {
+            entity.setPosition(
+                            entity.getX() + dx * maxStep,
+                            entity.getY() + dy * maxStep);
+            store.dashCooldown[slot] = timers.schedule(dashCooldownDuration, this, 0);
+
+            if (foundTeleporter) {
+                entity.snapToPosition();
+                entity.handleTeleport(map);
+            }
+            entity.setFacingDirection(dx, dy);
+        }
+    }
+
+    @Override
+    public void onTimer(int kind) {
+        store.dashCooldown[slot] = TimerWheel.NONE;
+    }
+
+    public void cancelTimers() {
+        store.dashCooldown[slot] = timers.cancel(store.dashCooldown[slot]);
+    }
+
+    void writeState(ByteBuffer out) {
+        out.putInt(timers.getRemaining(store.dashCooldown[slot]));
+        out.put((byte) (store.accelerateSlide[slot] ? 1 : 0));
+    }
+
+    void readState(ByteBuffer in) {
+        cancelTimers();
+        int ticks = in.getInt();
+        if (ticks > 0) store.dashCooldown[slot] = timers.schedule(ticks, this, 0);
+        store.accelerateSlide[slot] = in.get() != 0;
+    }
+
+    public void setAccelerateSlide(boolean accelerate) {
+        store.accelerateSlide[slot] = accelerate;
+    }
+
+    // Getters
+    public boolean isDashing() {
+        return store.dashCooldown[slot] != TimerWheel.NONE;
+    }
+
+    public boolean isAcceleratingSlide() {
+        return store.accelerateSlide[slot];
+    }
+}
\ No newline at end of file
@@ -1,46 +1,46 @@
 package com.dn.mygame;
 
-import android.graphics.Canvas;
-import java.util.List;
+import java.nio.ByteBuffer;
 
 public abstract class Entity {
+    // Saved state: position, spawn, then each component's, with timers as ticks remaining
+    static final int STATE_BYTES = 16 + MovementComponent.STATE_BYTES + StatusComponent.STATE_BYTES
+            + DashComponent.STATE_BYTES + CommandBufferComponent.STATE_BYTES
+            + TeleportationComponent.STATE_BYTES;
+
     private final MovementComponent movement;
     private final TeleportationComponent teleportation;
     private final RenderComponent render;
     private final SpawnComponent spawn;
     private final StatusComponent status;
     private final DashComponent dash;
+    private final CommandBufferComponent commands;
     private final TileMap tileMap;
+    private final int slot; // Component state slot in the map's EntityStore
 
     public Entity(int startX, int startY, TileMap tileMap) {
         this.tileMap = tileMap;
-        this.movement = new MovementComponent(this, startX, startY);
-        this.teleportation = new TeleportationComponent(this);
-        this.render = new RenderComponent(this, startX, startY, tileMap.getTileSize());
+        EntityStore store = tileMap.getEntityStore();
+        TimerWheel timers = tileMap.getTimerWheel();
+        this.slot = store.allocate(this);
+        this.movement = new MovementComponent(this, store, slot, timers, startX, startY);
+        this.teleportation = new TeleportationComponent(this, timers);
+        this.render = new RenderComponent(this, store, slot, tileMap.getTileSize());
         this.spawn = new SpawnComponent(startX, startY);
-        this.status = new StatusComponent();
-        this.dash = new DashComponent(this);
+        this.status = new StatusComponent(store, slot, timers);
+        this.dash = new DashComponent(this, store, slot, timers);
+        this.commands = new CommandBufferComponent(this, store, slot, timers);
+        tileMap.getTileTriggers().onMoved(this); // Enter whatever tile it starts on
     }
 
     // Core functionality methods
-    public void move(int dx, int dy, TileMap map, List<Entity> allEntities) {
-        movement.move(dx, dy, map, allEntities);
+    public void move(int dx, int dy, TileMap map) {
+        movement.move(dx, dy, map);
     }
 
+    // Per-entity logic; countdowns fire from the TimerWheel and render easing is batched
     public void update(TileMap map) {
         movement.update(map);
-        teleportation.update(map);
-        dash.update();
-        status.update();
-        render.update();
-
-        if (map.isPit(movement.getX(), movement.getY()) && !movement.isJumping()) {
-            respawn();
-        }
-
-        if (map.isTeleporter(movement.getX(), movement.getY())) {
-            teleportation.handleTeleport(map);
-        }
     }
 
     public void respawn() {
@@ -126,10 +126,59 @@ teleportation.handleTeleport(map);
         );
     }
 
+    // Command buffer: input that arrives while it cannot run waits here instead of being lost
+    public boolean canMove() { return movement.canMove(); }
+    public boolean canDash(TileMap map) { return dash.canDash(map); }
+    public void bufferCommand(int command, int dx, int dy, int expiryTicks) {
+        commands.buffer(command, dx, dy, expiryTicks);
+    }
+    public int fireBufferedCommand(TileMap map, boolean moveAllowed) {
+        return commands.fire(map, moveAllowed);
+    }
+    public int getBufferedCommand() { return commands.getCommand(); }
+
     public void requestStopSliding() {
         movement.requestStopSliding();
     }
 
-    public abstract void draw(Canvas canvas);
+    public void startSliding() {
+        movement.startSliding();
+    }
+
+    /** Free this entity's store slot and timers and drop it from the spatial index */
+    public void release() {
+        movement.cancelTimers();
+        teleportation.cancelTimers();
+        status.cancelTimers();
+        dash.cancelTimers();
+        commands.cancelTimers();
+        tileMap.getSpatialIndex().remove(this);
+        tileMap.getEntityStore().release(slot);
+    }
+
+    /** Write everything a save needs to bring this entity back mid-action */
+    void writeEntityState(ByteBuffer out) {
+        out.putInt(getX()).putInt(getY());
+        out.putInt(getSpawnX()).putInt(getSpawnY());
+        movement.writeState(out);
+        status.writeState(out);
+        dash.writeState(out);
+        commands.writeState(out);
+        teleportation.writeState(out);
+    }
+
+    /** Overwrite this entity with a written state; pending timers are replaced */
+    void readEntityState(ByteBuffer in) {
+        movement.setPosition(in.getInt(), in.getInt());
+        spawn.setSpawn(in.getInt(), in.getInt());
+        movement.readState(in);
+        status.readState(in);
+        dash.readState(in);
+        commands.readState(in);
+        teleportation.readState(in);
+        render.snapToPosition();
+    }
+
     public TileMap getTileMap() { return tileMap; }
+    int getSlot() { return slot; }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Puts NPCs to sleep when their chunk leaves the active ring and wakes them when it returns.
+ *
+ * <p>A sleeping NPC is released from the store and spatial index and kept only as a compact
+ * record filed under its chunk. Chunk tiles regenerate deterministically, so the records
+ * are all that has to outlive an evicted chunk. The live simulation set is therefore bounded
+ * by the ring around the player rather than by everything ever spawned.
+ */
+public class EntitySleeper {
+    /** Keeps the owner's entity lists in step with sleeping and waking */
+    public interface Listener {
+        void onSleep(NPC npc);
+        void onWake(NPC npc);
+    }
+
+    private final TileMap tileMap;
+    private final Listener listener;
+    private final FlowField chaseField; // Restored onto NPCs that were chasing
+    private final ArrayList<NPC> awake = new ArrayList<>();
+    private final LongObjectMap<byte[]> sleeping = new LongObjectMap<>(64);
+    private final ByteBuffer record = ByteBuffer.allocate(NPC.STATE_BYTES);
+    private int sleepingCount = 0;
+    private int sleepingBytes = 0;
+
+    private boolean hasRing = false;
+    private int ringChunkX, ringChunkY, ringRadius;
+
+    public EntitySleeper(TileMap tileMap, Listener listener, FlowField chaseField) {
+        this.tileMap = tileMap;
+        this.listener = listener;
+        this.chaseField = chaseField;
+    }
+
+    /** Track an NPC that is already live in the world */
+    public void add(NPC npc) {
+        awake.add(npc);
+    }
+
+    /** Sleep NPCs outside the ring, and wake sleeping chunks the ring has moved over */
+    public void update(int centerChunkX, int centerChunkY, int radius) {
+        boolean ringMoved = !hasRing || centerChunkX != ringChunkX
+                || centerChunkY != ringChunkY || radius != ringRadius;
+        hasRing = true;
+        ringChunkX = centerChunkX;
+        ringChunkY = centerChunkY;
+        ringRadius = radius;
+
+        // NPCs can walk or teleport out between ring moves, so check every tick
+        for (int i = awake.size() - 1; i >= 0; i--) {
+            NPC npc = awake.get(i);
+            int chunkX = Math.floorDiv(npc.getX(), TileMap.CHUNK_SIZE);
+            int chunkY = Math.floorDiv(npc.getY(), TileMap.CHUNK_SIZE);
+            if (!inRing(chunkX, chunkY)) {
+                int last = awake.size() - 1;
+                awake.set(i, awake.get(last));
+                awake.remove(last);
+                sleep(npc, chunkX, chunkY);
+            }
+        }
+
+        // Sleepers are only ever filed outside the ring, so waking waits for it to move
+        if (!ringMoved || sleeping.size() == 0) return;
+        for (int y = -radius; y <= radius; y++) {
+            for (int x = -radius; x <= radius; x++) {
+                wakeChunk(centerChunkX + x, centerChunkY + y);
+            }
+        }
+    }
+
+    /** Forget every NPC, awake or asleep; the owner releases the awake ones */
+    public void clear() {
+        awake.clear();
+        sleeping.clear();
+        sleepingCount = 0;
+        sleepingBytes = 0;
+        hasRing = false;
+    }
+
+    /** File a chunk's sleeping records, as taken from {@link #getSleepingRecords} */
+    void restoreSleeping(long chunkKey, byte[] records) {
+        sleeping.put(chunkKey, records);
+        sleepingCount += records.length / NPC.STATE_BYTES;
+        sleepingBytes += records.length;
+    }
+
+    // Records by chunk key. Filing always builds a new array, so callers may keep references
+    LongObjectMap<byte[]> getSleepingRecords() { return sleeping; }
+
+    public int getAwakeCount() { return awake.size(); }
+    public int getSleepingCount() { return sleepingCount; }
+    public int getSleepingBytes() { return sleepingBytes; }
+
+    private boolean inRing(int chunkX, int chunkY) {
+        return Math.abs(chunkX - ringChunkX) <= ringRadius
+                && Math.abs(chunkY - ringChunkY) <= ringRadius;
+    }
+
+    private void sleep(NPC npc, int chunkX, int chunkY) {
+        listener.onSleep(npc);
+        record.clear();
+        npc.writeState(record);
+        npc.release();
+
+        long key = LongObjectMap.key(chunkX, chunkY);
+        byte[] existing = sleeping.get(key);
+        byte[] records;
+        if (existing == null) {
+            records = Arrays.copyOf(record.array(), NPC.STATE_BYTES);
+        } else {
+            records = Arrays.copyOf(existing, existing.length + NPC.STATE_BYTES);
+            System.arraycopy(record.array(), 0, records, existing.length, NPC.STATE_BYTES);
+        }
+        sleeping.put(key, records);
+        sleepingCount++;
+        sleepingBytes += NPC.STATE_BYTES;
+    }
+
+    private void wakeChunk(int chunkX, int chunkY) {
+        byte[] records = sleeping.remove(LongObjectMap.key(chunkX, chunkY));
+        if (records == null) return;
+        ByteBuffer in = ByteBuffer.wrap(records);
+        while (in.remaining() >= NPC.STATE_BYTES) {
+            NPC npc = NPC.readState(in, tileMap, chaseField);
+            tileMap.getSpatialIndex().add(npc);
+            awake.add(npc);
+            listener.onWake(npc);
+        }
+        int count = records.length / NPC.STATE_BYTES;
+        sleepingCount -= count;
+        sleepingBytes -= records.length;
+    }
+}
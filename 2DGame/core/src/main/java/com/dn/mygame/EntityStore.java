@@ -0,0 +1,151 @@
+package com.dn.mygame;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays storage for per-entity component state.
+ *
+ * <p>Each entity owns a slot; positions, render easing, status and dash timer handles live in
+ * parallel primitive arrays so the systems below update every entity in one tight loop
+ * instead of one virtual call chain per entity. Freed slots are reused. Countdowns are not
+ * ticked here: they are {@link TimerWheel} timers, so idle entities cost nothing.
+ */
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final float NANOS_TO_SECONDS = 1 / 1e9f;
+    private static final float INTERPOLATION_FACTOR = 0.85f;
+
+    private int capacity = INITIAL_CAPACITY;
+    private int highWater = 0; // Slots >= highWater have never been used
+    private int count = 0;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount = 0;
+
+    // Slot bookkeeping
+    boolean[] alive = new boolean[INITIAL_CAPACITY];
+    Entity[] handles = new Entity[INITIAL_CAPACITY];
+
+    // Movement
+    int[] tileX = new int[INITIAL_CAPACITY];
+    int[] tileY = new int[INITIAL_CAPACITY];
+
+    // Render
+    float[] drawX = new float[INITIAL_CAPACITY];
+    float[] drawY = new float[INITIAL_CAPACITY];
+    float[] velocityX = new float[INITIAL_CAPACITY];
+    float[] velocityY = new float[INITIAL_CAPACITY];
+    long[] lastRenderNanos = new long[INITIAL_CAPACITY];
+
+    // Status
+    boolean[] invulnerable = new boolean[INITIAL_CAPACITY];
+    int[] invulnerabilityTimer = new int[INITIAL_CAPACITY]; // TimerWheel handle
+
+    // Dash
+    int[] dashCooldown = new int[INITIAL_CAPACITY]; // TimerWheel handle
+    boolean[] accelerateSlide = new boolean[INITIAL_CAPACITY];
+
+    // Command buffer: a move or dash waiting to become legal
+    int[] bufferedCommand = new int[INITIAL_CAPACITY];
+    int[] bufferedDx = new int[INITIAL_CAPACITY];
+    int[] bufferedDy = new int[INITIAL_CAPACITY];
+    int[] bufferExpiry = new int[INITIAL_CAPACITY]; // TimerWheel handle
+
+    // Tile triggers: where the entity was last seen, and its queue and watch state
+    int[] triggerLogic = new int[INITIAL_CAPACITY];
+    int[] triggerX = new int[INITIAL_CAPACITY];
+    int[] triggerY = new int[INITIAL_CAPACITY];
+    boolean[] triggerQueued = new boolean[INITIAL_CAPACITY];
+    boolean[] triggerWatched = new boolean[INITIAL_CAPACITY];
+
+    /** Claim a slot for an entity, reusing a freed one when available */
+    public int allocate(Entity handle) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (highWater == capacity) grow();
+            slot = highWater++;
+        }
+        clearSlot(slot);
+        alive[slot] = true;
+        handles[slot] = handle;
+        count++;
+        return slot;
+    }
+
+    public void release(int slot) {
+        if (!alive[slot]) return;
+        alive[slot] = false;
+        handles[slot] = null;
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, capacity);
+        freeSlots[freeCount++] = slot;
+        count--;
+    }
+
+    /** Render system: ease draw positions toward tile positions and track velocity */
+    public void updateRender(int tileSize, long nowNanos) {
+        for (int i = 0; i < highWater; i++) {
+            if (!alive[i]) continue;
+            float prevX = drawX[i];
+            float prevY = drawY[i];
+            drawX[i] += (tileX[i] * tileSize - prevX) * INTERPOLATION_FACTOR;
+            drawY[i] += (tileY[i] * tileSize - prevY) * INTERPOLATION_FACTOR;
+
+            float deltaTime = (nowNanos - lastRenderNanos[i]) * NANOS_TO_SECONDS;
+            lastRenderNanos[i] = nowNanos;
+            if (deltaTime > 0) {
+                velocityX[i] = (drawX[i] - prevX) / deltaTime;
+                velocityY[i] = (drawY[i] - prevY) / deltaTime;
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private void clearSlot(int slot) {
+        tileX[slot] = 0;
+        tileY[slot] = 0;
+        drawX[slot] = 0;
+        drawY[slot] = 0;
+        velocityX[slot] = 0;
+        velocityY[slot] = 0;
+        lastRenderNanos[slot] = 0;
+        invulnerable[slot] = false;
+        invulnerabilityTimer[slot] = TimerWheel.NONE;
+        dashCooldown[slot] = TimerWheel.NONE;
+        accelerateSlide[slot] = false;
+        bufferedCommand[slot] = CommandBufferComponent.NONE;
+        bufferExpiry[slot] = TimerWheel.NONE;
+        triggerLogic[slot] = -1;
+        triggerQueued[slot] = false;
+        triggerWatched[slot] = false;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        alive = Arrays.copyOf(alive, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+        tileX = Arrays.copyOf(tileX, capacity);
+        tileY = Arrays.copyOf(tileY, capacity);
+        drawX = Arrays.copyOf(drawX, capacity);
+        drawY = Arrays.copyOf(drawY, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        lastRenderNanos = Arrays.copyOf(lastRenderNanos, capacity);
+        invulnerable = Arrays.copyOf(invulnerable, capacity);
+        invulnerabilityTimer = Arrays.copyOf(invulnerabilityTimer, capacity);
+        dashCooldown = Arrays.copyOf(dashCooldown, capacity);
+        accelerateSlide = Arrays.copyOf(accelerateSlide, capacity);
+        bufferedCommand = Arrays.copyOf(bufferedCommand, capacity);
+        bufferedDx = Arrays.copyOf(bufferedDx, capacity);
+        bufferedDy = Arrays.copyOf(bufferedDy, capacity);
+        bufferExpiry = Arrays.copyOf(bufferExpiry, capacity);
+        triggerLogic = Arrays.copyOf(triggerLogic, capacity);
+        triggerX = Arrays.copyOf(triggerX, capacity);
+        triggerY = Arrays.copyOf(triggerY, capacity);
+        triggerQueued = Arrays.copyOf(triggerQueued, capacity);
+        triggerWatched = Arrays.copyOf(triggerWatched, capacity);
+    }
+}
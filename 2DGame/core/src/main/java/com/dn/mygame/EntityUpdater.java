@@ -0,0 +1,28 @@
+package com.dn.mygame;
+
+import java.util.List;
+
+/**
+ * Runs {@link Entity#update} for every entity, in list order on the game thread.
+ *
+ * <p>Entities on unloaded chunks stay frozen, except the focus entity, so a crowd at the edge
+ * of the active ring never generates chunks.
+ *
+ * <p>The update only advances slide and movement state; thinking and occupancy-checked moves
+ * run in {@link AIScheduler}. A 10,000-NPC profile spent more of the tick partitioning
+ * entities into regions for worker threads than in the updates they ran, so there are none.
+ */
+public class EntityUpdater {
+    private final TileMap tileMap;
+
+    public EntityUpdater(TileMap tileMap) {
+        this.tileMap = tileMap;
+    }
+
+    public void update(List<Entity> entities, Entity focus) {
+        for (int i = 0; i < entities.size(); i++) {
+            Entity e = entities.get(i);
+            if (e == focus || tileMap.isChunkLoaded(e.getX(), e.getY())) e.update(tileMap);
+        }
+    }
+}
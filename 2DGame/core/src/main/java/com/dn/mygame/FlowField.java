@@ -0,0 +1,266 @@
+package com.dn.mygame;
+
+import java.util.Arrays;
+
+/**
+ * Shared navigation field toward one target (usually the player).
+ *
+ * <p>A breadth-first integration pass from the target over the loaded chunk ring stores, for
+ * every reachable tile, the step that leads one tile closer. Any number of NPCs read their next
+ * step in O(1). When the target changes tile a new field is built into a back buffer, a
+ * bounded number of cells per tick, and swapped in once complete. NPCs keep reading the
+ * previous field meanwhile; one tile of target movement changes distances by at most one, so
+ * it stays a good guide.
+ *
+ * <p>A one-tile move inside the same window is repaired in place instead: the old target
+ * steps to the new one, and a breadth-first pass from the new target lowers only the
+ * distances it shortens, typically the quarter of the window ahead of the move. Cells behind
+ * keep routes through the old targets and along the target's trail, so after k repairs a
+ * distance may understate the true one, and a chaser may walk more steps than it, by at most
+ * k. The field is rebuilt from scratch after {@link #DEFAULT_MAX_REPAIRS} repairs, or on any
+ * longer move or window shift.
+ *
+ * <p>Only plain walking tiles are crossed: jump pads, slippery tiles and teleporters move a
+ * walker by more than the step it asked for, and pits kill it. Goal-directed routes through
+ * those go through {@link PathFinder}.
+ */
+public class FlowField {
+    public static final int NO_DIRECTION = -1;
+
+    private static final int[] DIR_X = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] DIR_Y = {0, 0, -1, 1, -1, 1, -1, 1};
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    public static final int DEFAULT_MAX_REPAIRS = 8; // Extra steps a chaser may walk
+
+    private final TileMap tileMap;
+    private final int radiusChunks;
+    private final int cellsPerTick;
+    private final int size; // Window edge in tiles
+    private final byte[] chunkLogic = new byte[TileMap.CHUNK_SIZE * TileMap.CHUNK_SIZE];
+
+    // Field NPCs read from
+    private int frontMinX, frontMinY;
+    private byte[] frontDirection;
+    private int[] frontDistance;
+    private boolean frontValid = false;
+
+    // Field being built
+    private int backMinX, backMinY;
+    private byte[] backDirection;
+    private int[] backDistance;
+    private final boolean[] walkable; // The front's snapshot whenever no build is running
+    private final int[] queue;
+    private int queueHead, queueTail;
+    private boolean building = false;
+    private long buildNanos;
+
+    private int builtTargetX, builtTargetY; // Target of the newest started build
+    private boolean hasTarget = false;
+    private boolean readSinceBuild = true; // Skip rebuilds nobody is reading
+    private long lastBuildNanos = 0;
+    private int lastReachedCells = 0;
+
+    private int maxRepairs = DEFAULT_MAX_REPAIRS;
+    private int repairsSinceBuild = 0;
+    private long lastRepairNanos = 0;
+    private int lastRepairedCells = 0;
+
+    public FlowField(TileMap tileMap, int radiusChunks, int cellsPerTick) {
+        this.tileMap = tileMap;
+        this.radiusChunks = radiusChunks;
+        this.cellsPerTick = cellsPerTick;
+        this.size = (2 * radiusChunks + 1) * TileMap.CHUNK_SIZE;
+        int cells = size * size;
+        frontDirection = new byte[cells];
+        frontDistance = new int[cells];
+        backDirection = new byte[cells];
+        backDistance = new int[cells];
+        walkable = new boolean[cells];
+        queue = new int[cells];
+    }
+
+    /** Advance the field toward the target; call once per tick */
+    public void update(int targetX, int targetY) {
+        if (!building) {
+            boolean moved = !hasTarget || targetX != builtTargetX || targetY != builtTargetY;
+            if (!moved || !readSinceBuild) return;
+            if (canRepair(targetX, targetY)) {
+                repair(targetX, targetY);
+                return;
+            }
+            startBuild(targetX, targetY);
+        }
+        // A build in progress finishes for its own target before the next one starts
+        step();
+    }
+
+    /** Index into the direction tables of the step toward the target, or NO_DIRECTION */
+    public int getDirection(int x, int y) {
+        readSinceBuild = true;
+        int cell = frontCell(x, y);
+        return cell < 0 ? NO_DIRECTION : frontDirection[cell];
+    }
+
+    /** Steps from (x, y) to the target in the current field, or -1 if unreached */
+    public int getDistance(int x, int y) {
+        int cell = frontCell(x, y);
+        if (cell < 0 || frontDistance[cell] == UNREACHED) return -1;
+        return frontDistance[cell];
+    }
+
+    public static int directionX(int direction) { return DIR_X[direction]; }
+    public static int directionY(int direction) { return DIR_Y[direction]; }
+
+    // Build cost of the last completed field, summed across its ticks
+    public long getLastBuildNanos() { return lastBuildNanos; }
+    public int getLastReachedCells() { return lastReachedCells; }
+
+    // Cost of the last in-place repair, and how many steps distances may be off by
+    public long getLastRepairNanos() { return lastRepairNanos; }
+    public int getLastRepairedCells() { return lastRepairedCells; }
+    public int getRepairsSinceBuild() { return repairsSinceBuild; }
+
+    /** Repairs allowed before a full rebuild; 0 rebuilds on every move as before */
+    public void setMaxRepairs(int maxRepairs) { this.maxRepairs = maxRepairs; }
+
+    // A one-tile move onto walkable ground that keeps the window where it is
+    private boolean canRepair(int targetX, int targetY) {
+        if (!frontValid || repairsSinceBuild >= maxRepairs) return false;
+        if (Math.max(Math.abs(targetX - builtTargetX), Math.abs(targetY - builtTargetY)) != 1) {
+            return false;
+        }
+        if (Math.floorDiv(targetX, TileMap.CHUNK_SIZE) != Math.floorDiv(builtTargetX, TileMap.CHUNK_SIZE)
+                || Math.floorDiv(targetY, TileMap.CHUNK_SIZE) != Math.floorDiv(builtTargetY, TileMap.CHUNK_SIZE)) {
+            return false;
+        }
+        return walkable[frontCell(targetX, targetY)];
+    }
+
+    // Point the old target at the new one, then lower what the new target shortens
+    private void repair(int targetX, int targetY) {
+        long start = System.nanoTime();
+        int oldCell = frontCell(builtTargetX, builtTargetY);
+        int newCell = frontCell(targetX, targetY);
+        for (int d = 0; d < 8; d++) {
+            if (DIR_X[d] == targetX - builtTargetX && DIR_Y[d] == targetY - builtTargetY) {
+                frontDirection[oldCell] = (byte) d;
+            }
+        }
+        frontDistance[oldCell] = 1;
+        frontDistance[newCell] = 0;
+        frontDirection[newCell] = (byte) NO_DIRECTION;
+        builtTargetX = targetX;
+        builtTargetY = targetY;
+        readSinceBuild = false;
+
+        int head = 0, tail = 0;
+        queue[tail++] = newCell;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % size, y = cell / size;
+            int next = frontDistance[cell] + 1;
+            for (int d = 0; d < 8; d++) {
+                int nx = x - DIR_X[d], ny = y - DIR_Y[d];
+                if (nx < 0 || ny < 0 || nx >= size || ny >= size) continue;
+                int n = ny * size + nx;
+                if (!walkable[n] || frontDistance[n] <= next) continue;
+                frontDistance[n] = next;
+                frontDirection[n] = (byte) d;
+                queue[tail++] = n;
+            }
+        }
+        repairsSinceBuild++;
+        lastRepairedCells = tail;
+        lastRepairNanos = System.nanoTime() - start;
+    }
+
+    private void startBuild(int targetX, int targetY) {
+        long start = System.nanoTime();
+        builtTargetX = targetX;
+        builtTargetY = targetY;
+        hasTarget = true;
+        readSinceBuild = false;
+
+        int centerChunkX = Math.floorDiv(targetX, TileMap.CHUNK_SIZE);
+        int centerChunkY = Math.floorDiv(targetY, TileMap.CHUNK_SIZE);
+        backMinX = (centerChunkX - radiusChunks) * TileMap.CHUNK_SIZE;
+        backMinY = (centerChunkY - radiusChunks) * TileMap.CHUNK_SIZE;
+        copyWalkable(centerChunkX - radiusChunks, centerChunkY - radiusChunks);
+
+        Arrays.fill(backDirection, (byte) NO_DIRECTION);
+        Arrays.fill(backDistance, UNREACHED);
+        queueHead = 0;
+        queueTail = 0;
+        int targetCell = (targetY - backMinY) * size + (targetX - backMinX);
+        backDistance[targetCell] = 0;
+        queue[queueTail++] = targetCell;
+        building = true;
+        buildNanos = System.nanoTime() - start;
+    }
+
+    // Snapshot which tiles are plain walking tiles; unloaded chunks stay blocked
+    private void copyWalkable(int firstChunkX, int firstChunkY) {
+        int chunks = 2 * radiusChunks + 1;
+        for (int cy = 0; cy < chunks; cy++) {
+            for (int cx = 0; cx < chunks; cx++) {
+                boolean loaded = tileMap.copyChunkLogic(firstChunkX + cx, firstChunkY + cy, chunkLogic);
+                for (int ly = 0; ly < TileMap.CHUNK_SIZE; ly++) {
+                    int row = (cy * TileMap.CHUNK_SIZE + ly) * size + cx * TileMap.CHUNK_SIZE;
+                    for (int lx = 0; lx < TileMap.CHUNK_SIZE; lx++) {
+                        walkable[row + lx] = loaded && isPlain(chunkLogic[ly * TileMap.CHUNK_SIZE + lx]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isPlain(int logic) {
+        return logic == TileMap.SPACE || logic == TileMap.CHECKPOINT || logic == TileMap.SPAWN;
+    }
+
+    private void step() {
+        long start = System.nanoTime();
+        int budget = cellsPerTick;
+        while (queueHead < queueTail && budget-- > 0) {
+            int cell = queue[queueHead++];
+            int x = cell % size, y = cell / size;
+            int next = backDistance[cell] + 1;
+            for (int d = 0; d < 8; d++) {
+                // The neighbour reaches this cell by stepping in direction d
+                int nx = x - DIR_X[d], ny = y - DIR_Y[d];
+                if (nx < 0 || ny < 0 || nx >= size || ny >= size) continue;
+                int n = ny * size + nx;
+                if (!walkable[n] || backDistance[n] != UNREACHED) continue;
+                backDistance[n] = next;
+                backDirection[n] = (byte) d;
+                queue[queueTail++] = n;
+            }
+        }
+        buildNanos += System.nanoTime() - start;
+        if (queueHead == queueTail) finishBuild();
+    }
+
+    private void finishBuild() {
+        building = false;
+        lastBuildNanos = buildNanos;
+        lastReachedCells = queueTail;
+
+        byte[] direction = frontDirection;
+        int[] distance = frontDistance;
+        frontDirection = backDirection;
+        frontDistance = backDistance;
+        frontMinX = backMinX;
+        frontMinY = backMinY;
+        backDirection = direction;
+        backDistance = distance;
+        frontValid = true;
+        repairsSinceBuild = 0;
+    }
+
+    private int frontCell(int x, int y) {
+        if (!frontValid) return -1;
+        int lx = x - frontMinX, ly = y - frontMinY;
+        if (lx < 0 || ly < 0 || lx >= size || ly >= size) return -1;
+        return ly * size + lx;
+    }
+}
@@ -0,0 +1,279 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import static com.dn.mygame.TileMap.CHUNK_SIZE;
+
+/**
+ * The simulation: world, entities and their systems, advanced one tick at a time.
+ *
+ * <p>A tick depends only on the previous state, its {@link TickInput} and the tick's
+ * clock time, so {@link InputRecorder} logs can be replayed by {@link InputReplayer}
+ * without a view or a D-pad.
+ */
+public class GameWorld implements EntitySleeper.Listener, TileTriggers.Listener {
+    private static final long MOVE_DELAY = 150;
+    private static final long RUN_MOVE_DELAY = 75;
+    private static final long AI_BUDGET_NANOS = 1000000L; // 1 ms of NPC thinking per tick
+    private static final int ACTIVE_CHUNK_RADIUS = 3;
+    private static final int FLOW_FIELD_CELLS_PER_TICK = 4096;
+    private static final int INPUT_BUFFER_TICKS = 12; // Blocked taps wait up to 200 ms
+
+    private final TileMap tileMap;
+    private final Player player;
+    private NPC npc;
+    private int npcId; // The starting NPC, tracked across sleeping and saves
+    private final List<Entity> entities = new ArrayList<>(); // Track all entities
+    private final AIScheduler aiScheduler;
+    private final EntityUpdater entityUpdater;
+    private final FlowField playerField; // Shared by NPCs chasing the player
+    private final EntitySleeper sleeper;
+    private final ChunkWindow simulationWindow = new ChunkWindow(); // Active ring, player-centred
+    private long lastMoveTime = 0;
+    private InputLatency latency; // Null unless the driver measures input latency
+    private int inputBufferTicks = INPUT_BUFFER_TICKS;
+
+    public GameWorld(TileMap tileMap) {
+        this.tileMap = tileMap;
+        TileMap.Point spawnPoint = tileMap.getSpawnPoint();
+        player = new Player(spawnPoint.x, spawnPoint.y, tileMap);
+        npc = new NPC(spawnPoint.x + 2, spawnPoint.y - 3, tileMap);
+        npcId = npc.getId();
+        entities.add(player); // Add to entity list
+        entities.add(npc); // Add to entity list
+        for (Entity e : entities) {
+            tileMap.getSpatialIndex().add(e);
+        }
+        aiScheduler = new AIScheduler(tileMap, AI_BUDGET_NANOS);
+        aiScheduler.add(npc);
+        entityUpdater = new EntityUpdater(tileMap);
+        playerField = new FlowField(tileMap, ACTIVE_CHUNK_RADIUS, FLOW_FIELD_CELLS_PER_TICK);
+        sleeper = new EntitySleeper(tileMap, this, playerField);
+        sleeper.add(npc);
+        tileMap.addChunkWindow(simulationWindow);
+
+        TileTriggers triggers = tileMap.getTileTriggers();
+        triggers.addListener(TileMap.PERMANENT_PIT, this, true); // Pits wait out a jump
+        triggers.addListener(TileMap.TELEPORTER, this, true); // Teleports wait for centering
+        triggers.addListener(TileMap.CHECKPOINT, this, false);
+        triggers.addListener(TileMap.SLIPPERY, this, false);
+    }
+
+    /** Add an entity beside the player; NPCs join the AI schedule and can fall asleep */
+    public void addEntity(Entity e) {
+        entities.add(e);
+        tileMap.getSpatialIndex().add(e);
+        if (e instanceof NPC) {
+            aiScheduler.add((NPC) e);
+            sleeper.add((NPC) e);
+        }
+    }
+
+    /** Run one tick; now is the driving SimClock's time for it */
+    public void step(TickInput input, long now) {
+        int startX = player.getX(), startY = player.getY();
+        if (latency != null && input.touchNanos != 0) latency.touchApplied(input.touchNanos);
+        applyInput(input, now);
+
+        // Entities on unloaded chunks stay frozen instead of regenerating them
+        entityUpdater.update(entities, player);
+        EntityStore store = tileMap.getEntityStore();
+        tileMap.getTimerWheel().advance(); // Cooldowns, jumps and teleports that end this tick
+        store.updateRender(tileMap.getTileSize(), now * 1_000_000L); // Eases on simulated time
+        if (latency != null) {
+            if (player.getX() != startX || player.getY() != startY) latency.playerMoved();
+            latency.rendered(player);
+        }
+        // After the batch systems so pits and teleporters see this tick's state
+        tileMap.getTileTriggers().update();
+        aiScheduler.update(player, input.aiVisits);
+        tileMap.update(now);
+
+        int playerChunkX = Math.floorDiv(player.getX(), CHUNK_SIZE);
+        int playerChunkY = Math.floorDiv(player.getY(), CHUNK_SIZE);
+        // The ring only moves when the player changes chunk; streaming is idle otherwise
+        simulationWindow.set(playerChunkX - ACTIVE_CHUNK_RADIUS, playerChunkY - ACTIVE_CHUNK_RADIUS,
+                playerChunkX + ACTIVE_CHUNK_RADIUS, playerChunkY + ACTIVE_CHUNK_RADIUS);
+        tileMap.streamChunks();
+        playerField.update(player.getX(), player.getY()); // Idle unless an NPC reads it
+        sleeper.update(playerChunkX, playerChunkY, ACTIVE_CHUNK_RADIUS);
+    }
+
+    private void applyInput(TickInput input, long now) {
+        long delay = input.running ? RUN_MOVE_DELAY : MOVE_DELAY;
+        boolean moveGateOpen = !input.centerHeld && now - lastMoveTime > delay;
+
+        // A move or dash that arrived while it could not run goes first once it can
+        if (player.fireBufferedCommand(tileMap, moveGateOpen) == CommandBufferComponent.MOVE) {
+            lastMoveTime = now;
+        }
+
+        if (input.dashDirection != TickInput.NONE) {
+            int dashDx = TickInput.dx(input.dashDirection), dashDy = TickInput.dy(input.dashDirection);
+            if (player.canDash(tileMap)) {
+                player.dash(dashDx, dashDy, tileMap);
+            } else {
+                player.bufferCommand(CommandBufferComponent.DASH, dashDx, dashDy, inputBufferTicks);
+            }
+        }
+        // Pressing against a slide asks it to stop
+        int pressed = input.pressedDirection;
+        if (pressed != TickInput.NONE && player.isSliding()
+                && TickInput.dx(pressed) == -player.getSlideDx()
+                && TickInput.dy(pressed) == -player.getSlideDy()) {
+            player.requestStopSliding();
+        } else if (pressed != TickInput.NONE && !input.centerHeld
+                && (now - lastMoveTime <= delay || !player.canMove())) {
+            // A tap the move delay or a slide, jump or teleport would swallow
+            player.bufferCommand(CommandBufferComponent.MOVE,
+                    TickInput.dx(pressed), TickInput.dy(pressed), inputBufferTicks);
+        }
+
+        int held = input.heldDirection;
+        int dx = TickInput.dx(held), dy = TickInput.dy(held);
+        if (input.centerHeld) {
+            if (held != TickInput.NONE) {
+                player.setHoldDirection(dx, dy, false);
+            }
+        } else {
+            if (held != TickInput.NONE && now - lastMoveTime > delay) {
+                player.move(dx, dy, tileMap);
+                lastMoveTime = now;
+            }
+            if (held != TickInput.NONE) {
+                player.setHoldDirection(dx, dy, input.running);
+            } else {
+                player.setHoldDirection(0, 0, false);
+            }
+        }
+    }
+
+    /**
+     * Replace the world's entities and metadata with a snapshot's. The player object is kept
+     * and overwritten; every other entity is released and rebuilt from the snapshot. Times
+     * are rebased onto now, the driving clock's current time, so a save restores under any
+     * clock. Only chunks under restored entities generate here; the ring streams next tick.
+     */
+    public void restore(WorldSnapshot snapshot, long now) {
+        for (int i = 0; i < entities.size(); i++) {
+            Entity e = entities.get(i);
+            if (e == player) continue;
+            if (e instanceof NPC) aiScheduler.remove((NPC) e);
+            e.release();
+        }
+        entities.clear();
+        sleeper.clear();
+        npc = null;
+        npcId = snapshot.getTrackedNpcId();
+
+        tileMap.setClock(snapshot.getSimulationTimeMillis(), now);
+        lastMoveTime = now - (snapshot.getLastUpdateMillis() - snapshot.getLastMoveTime());
+        tileMap.restoreTeleporters(snapshot.getTeleporterPairs(), snapshot.getPlacedTeleporters());
+
+        ByteBuffer in = snapshot.readEntities();
+        for (int i = 0; i < snapshot.getEntityCount(); i++) {
+            int kind = in.get();
+            if (kind == WorldSnapshot.KIND_PLAYER) {
+                player.readEntityState(in);
+                entities.add(player); // Never left the spatial index
+            } else if (kind == WorldSnapshot.KIND_NPC) {
+                NPC restored = NPC.readState(in, tileMap, playerField);
+                restored.readEntityState(in);
+                addEntity(restored);
+                if (restored.getId() == npcId) npc = restored;
+            } else {
+                // Created where its record puts it, so no other chunk is generated
+                Player walker = new Player(in.getInt(in.position()), in.getInt(in.position() + 4),
+                        tileMap);
+                walker.readEntityState(in);
+                addEntity(walker);
+            }
+        }
+        for (int i = 0; i < snapshot.getSleepingChunkCount(); i++) {
+            sleeper.restoreSleeping(snapshot.getSleepingKey(i), snapshot.getSleepingRecords(i));
+        }
+    }
+
+    @Override
+    public void onSleep(NPC asleep) {
+        entities.remove(asleep);
+        aiScheduler.remove(asleep);
+        if (asleep == npc) npc = null;
+    }
+
+    @Override
+    public void onWake(NPC woken) {
+        entities.add(woken);
+        aiScheduler.add(woken);
+        if (woken.getId() == npcId) npc = woken;
+    }
+
+    @Override
+    public void onTileEnter(Entity e, int logic, int x, int y) {
+        switch (logic) {
+            case TileMap.CHECKPOINT:
+                e.setSpawn(x, y);
+                break;
+            case TileMap.SLIPPERY:
+                e.startSliding();
+                break;
+            default:
+                onTileStay(e, logic, x, y);
+        }
+    }
+
+    @Override
+    public void onTileStay(Entity e, int logic, int x, int y) {
+        if (logic == TileMap.PERMANENT_PIT) {
+            if (!e.isJumping()) e.respawn();
+        } else if (logic == TileMap.TELEPORTER) {
+            e.handleTeleport(tileMap);
+        }
+    }
+
+    @Override
+    public void onTileExit(Entity e, int logic, int x, int y) {
+    }
+
+    /** Hash of the state a replay must reproduce: clock, entity positions and motion */
+    public long stateHash() {
+        long h = 0xCBF29CE484222325L;
+        h = mix(h, tileMap.getSimulationTimeMillis());
+        h = mix(h, entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            Entity e = entities.get(i);
+            h = mix(h, e.getX());
+            h = mix(h, e.getY());
+            h = mix(h, e.getSpawnX());
+            h = mix(h, e.getSpawnY());
+            h = mix(h, (e.isSliding() ? 1 : 0) | (e.isJumping() ? 2 : 0)
+                    | (e.isTeleporting() ? 4 : 0) | (e.isInvulnerable() ? 8 : 0)
+                    | (e.getBufferedCommand() << 4));
+        }
+        return h;
+    }
+
+    private static long mix(long h, long value) {
+        return (h ^ value) * 0x100000001B3L; // FNV-1a step
+    }
+
+    // Getters
+    public TileMap getTileMap() { return tileMap; }
+    public Player getPlayer() { return player; }
+    public NPC getNpc() { return npc; } // Null while asleep
+    public List<Entity> getEntities() { return entities; }
+    public long getLastMoveTime() { return lastMoveTime; }
+    public void setLastMoveTime(long lastMoveTime) { this.lastMoveTime = lastMoveTime; }
+    public int getLastAiCutVisits() { return aiScheduler.getLastCutVisits(); }
+    public int getSleepingCount() { return sleeper.getSleepingCount(); }
+    int getTrackedNpcId() { return npcId; }
+    EntitySleeper getSleeper() { return sleeper; }
+
+    /** How long a blocked move or dash waits for its first legal tick; 0 drops it as before */
+    public void setInputBufferTicks(int ticks) { this.inputBufferTicks = ticks; }
+
+    /** Follow touches through the ticks that apply them; null stops measuring */
+    public void setInputLatency(InputLatency latency) { this.latency = latency; }
+    public InputLatency getInputLatency() { return latency; }
+}
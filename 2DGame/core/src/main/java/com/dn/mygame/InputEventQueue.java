@@ -0,0 +1,67 @@
+package com.dn.mygame;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer, single-consumer ring of packed int events, each with a time stamp.
+ *
+ * <p>The UI thread offers touch events and the game thread drains them once per tick, so
+ * neither side locks or allocates. Each side owns one counter and publishes it with an
+ * ordered store; the other side reads it only when its cached copy says the ring looks full
+ * or empty. Exactly one thread may call {@link #offer} and exactly one {@link #poll}.
+ */
+public class InputEventQueue {
+    public static final int EMPTY = -1; // Returned by poll; events must be non-negative
+
+    private final int[] ring;
+    private final long[] stamps; // Producer's time stamp per event, for latency tracking
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next slot to read; consumer writes
+    private final AtomicLong tail = new AtomicLong(); // Next slot to write; producer writes
+    private long cachedHead = 0; // Producer's last view of head
+    private long cachedTail = 0; // Consumer's last view of tail
+    private long polledStamp = 0;
+
+    /** Capacity is rounded up to a power of two */
+    public InputEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new int[size];
+        stamps = new long[size];
+        mask = size - 1;
+    }
+
+    /** Producer: add an event, or return false when the ring is full */
+    public boolean offer(int event, long stamp) {
+        long t = tail.get();
+        if (t - cachedHead == ring.length) {
+            cachedHead = head.get();
+            if (t - cachedHead == ring.length) return false;
+        }
+        ring[(int) t & mask] = event;
+        stamps[(int) t & mask] = stamp;
+        tail.lazySet(t + 1); // Publishes the slot writes
+        return true;
+    }
+
+    /** Consumer: take the oldest event, or EMPTY */
+    public int poll() {
+        long h = head.get();
+        if (h == cachedTail) {
+            cachedTail = tail.get();
+            if (h == cachedTail) return EMPTY;
+        }
+        int event = ring[(int) h & mask];
+        polledStamp = stamps[(int) h & mask];
+        head.lazySet(h + 1); // Frees the slot for the producer
+        return event;
+    }
+
+    /** Consumer: stamp of the event poll last returned */
+    public long getPolledStamp() {
+        return polledStamp;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+}
@@ -0,0 +1,180 @@
+package com.dn.mygame;
+
+/**
+ * Rolling latency histograms for the path from a touch to the frame that shows its move.
+ *
+ * <p>The D-pad stamps each touch with {@link SimClock#nanoTime}; the stamp rides in {@link
+ * TickInput#touchNanos} to the tick that applies it. One touch is followed at a time:
+ *
+ * <ul>
+ *   <li>{@link #QUEUE}: touch to the tick that drains it from the input queue.
+ *   <li>{@link #GATE}: that tick to the tick the player actually moves, which is where the
+ *       move delay shows up.
+ *   <li>{@link #DISPLAY}: the move to the end of the first frame posted after it. The
+ *       compositor adds a vsync or two beyond that which the app cannot see.
+ *   <li>{@link #EASE}: the move to the drawn position arriving within half a tile, the
+ *       render easing.
+ *   <li>{@link #TOTAL}: touch to the first posted frame.
+ * </ul>
+ *
+ * <p>Each stage keeps its last samples (128 by default) in half-millisecond buckets, so
+ * recording and reading never allocate. A touch that has not moved the player after a second
+ * (a wall, the center held, input swallowed mid-slide) counts as dropped. Further touches
+ * while one is waiting for its move only add queue samples, so a swallowed tap and its re-tap
+ * measure as one slow move, which is the latency the player feels. Record from the game
+ * thread; readers elsewhere may see a sample half-applied, which is fine for a display.
+ */
+public class InputLatency {
+    public static final int QUEUE = 0;
+    public static final int GATE = 1;
+    public static final int DISPLAY = 2;
+    public static final int EASE = 3;
+    public static final int TOTAL = 4;
+    public static final int STAGES = 5;
+
+    private static final String[] STAGE_NAMES = {"queue", "gate", "display", "ease", "total"};
+    private static final int DEFAULT_WINDOW = 128;
+    private static final int BUCKETS = 400; // The last bucket also takes everything slower
+    private static final long BUCKET_NANOS = 500_000L;
+    private static final long EXPIRE_NANOS = 1_000_000_000L;
+    private static final float SETTLED_TILES = 0.5f;
+
+    private final SimClock clock;
+    private final int[][] window; // Bucket of each sample, oldest overwritten first
+    private final int[] windowNext = new int[STAGES];
+    private final int[] windowCount = new int[STAGES];
+    private final int[][] buckets = new int[STAGES][BUCKETS];
+    private final long[] recorded = new long[STAGES];
+    private long dropped = 0;
+
+    // The touch being followed; touchNanos is 0 when none is
+    private long touchNanos = 0;
+    private long appliedNanos;
+    private long movedNanos;
+    private boolean awaitingFrame;
+    private boolean awaitingEase;
+
+    public InputLatency(SimClock clock) {
+        this(clock, DEFAULT_WINDOW);
+    }
+
+    /** Track the given number of recent samples per stage */
+    public InputLatency(SimClock clock, int windowSize) {
+        this.clock = clock;
+        this.window = new int[STAGES][windowSize];
+    }
+
+    /** A tick applied input carrying a touch stamp */
+    public void touchApplied(long stampNanos) {
+        long now = clock.nanoTime();
+        record(QUEUE, now - stampNanos);
+        if (touchNanos != 0 && movedNanos == 0) {
+            if (now - appliedNanos <= EXPIRE_NANOS) return; // Still waiting for this one's move
+            dropped++;
+        }
+        touchNanos = stampNanos;
+        appliedNanos = now;
+        movedNanos = 0;
+        awaitingFrame = false;
+        awaitingEase = false;
+    }
+
+    /** The player changed tile this tick */
+    public void playerMoved() {
+        if (touchNanos == 0 || movedNanos != 0) return;
+        long now = clock.nanoTime();
+        if (now - appliedNanos > EXPIRE_NANOS) {
+            touchNanos = 0; // Moved by something else long after the touch
+            dropped++;
+            return;
+        }
+        movedNanos = now;
+        record(GATE, now - appliedNanos);
+        awaitingFrame = true;
+        awaitingEase = true;
+    }
+
+    /** Called after the render system eases; checks whether the player has caught up */
+    public void rendered(Entity player) {
+        if (!awaitingEase) return;
+        float slack = player.getTileSize() * SETTLED_TILES;
+        if (Math.abs(player.getDrawX() - player.getX() * player.getTileSize()) > slack
+                || Math.abs(player.getDrawY() - player.getY() * player.getTileSize()) > slack) {
+            return;
+        }
+        record(EASE, clock.nanoTime() - movedNanos);
+        awaitingEase = false;
+        if (!awaitingFrame) touchNanos = 0;
+    }
+
+    /** A frame has been posted; call after the canvas is handed back */
+    public void framePosted() {
+        if (!awaitingFrame) return;
+        long now = clock.nanoTime();
+        record(DISPLAY, now - movedNanos);
+        record(TOTAL, now - touchNanos);
+        awaitingFrame = false;
+        if (!awaitingEase) touchNanos = 0;
+    }
+
+    private void record(int stage, long nanos) {
+        int bucket = (int) Math.min(BUCKETS - 1, Math.max(0, nanos / BUCKET_NANOS));
+        int next = windowNext[stage];
+        if (windowCount[stage] == window[stage].length) {
+            buckets[stage][window[stage][next]]--; // Evict the oldest sample
+        } else {
+            windowCount[stage]++;
+        }
+        window[stage][next] = bucket;
+        buckets[stage][bucket]++;
+        windowNext[stage] = (next + 1) % window[stage].length;
+        recorded[stage]++;
+    }
+
+    /** Samples currently in the stage's window */
+    public int getCount(int stage) {
+        return windowCount[stage];
+    }
+
+    /** Samples recorded for the stage since the tracker was created */
+    public long getRecordedCount(int stage) {
+        return recorded[stage];
+    }
+
+    /** Followed touches that never moved the player */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /** Upper edge of the bucket holding the given fraction (0..1) of the window, in ms */
+    public float getPercentileMillis(int stage, float fraction) {
+        int count = windowCount[stage];
+        if (count == 0) return 0;
+        int rank = Math.max(1, (int) Math.ceil(count * fraction));
+        int seen = 0;
+        int[] counts = buckets[stage];
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) return (b + 1) * BUCKET_NANOS / 1e6f;
+        }
+        return BUCKETS * BUCKET_NANOS / 1e6f;
+    }
+
+    public static String getStageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    /** One line per stage: median, 90th and 99th percentile over the window */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (int stage = 0; stage < STAGES; stage++) {
+            if (stage > 0) sb.append('\n');
+            sb.append(String.format("%-7s p50 %5.1f ms  p90 %5.1f ms  p99 %5.1f ms  (%d)",
+                    STAGE_NAMES[stage], getPercentileMillis(stage, 0.5f),
+                    getPercentileMillis(stage, 0.9f), getPercentileMillis(stage, 0.99f),
+                    windowCount[stage]));
+        }
+        sb.append("\ndropped ").append(dropped);
+        return sb.toString();
+    }
+}
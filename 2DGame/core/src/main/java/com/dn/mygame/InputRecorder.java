@@ -0,0 +1,117 @@
+package com.dn.mygame;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a session as a compact binary input log that {@link InputReplayer} can re-run.
+ *
+ * <p>Layout: a header (magic, version, world seed, hash interval), the start state (an
+ * uncompressed {@link WorldSnapshot} body), then one record per tick. A tick record is a flags byte holding
+ * the held direction in its low nibble and center/run/press/dash bits above it, a varint of
+ * the elapsed milliseconds shifted left once with the low bit set when the AI scheduler ran
+ * out of budget, then the optional press and dash directions and AI visit count. Every
+ * hash-interval ticks an 8-byte state hash follows, so replays can verify themselves.
+ * Most ticks take two bytes.
+ */
+public class InputRecorder implements Closeable {
+    static final int MAGIC = 0x494E4C47; // "INLG"
+    static final int VERSION = 5; // 2: tile triggers, 3: timer wheel, 4: command buffer, 5: snapshot
+    public static final int DEFAULT_HASH_INTERVAL = 60; // About once a second
+
+    static final int FLAG_CENTER = 0x10;
+    static final int FLAG_RUN = 0x20;
+    static final int FLAG_PRESS = 0x40;
+    static final int FLAG_DASH = 0x80;
+
+    private final DataOutputStream out;
+    private final int hashInterval;
+    private long lastTime;
+    private long ticks = 0;
+    private IOException failure; // First write error; recording stops there
+
+    public InputRecorder(OutputStream stream, GameWorld world, int hashInterval) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream));
+        this.hashInterval = hashInterval;
+        TileMap map = world.getTileMap();
+        lastTime = map.getLastUpdateMillis();
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(TileMap.WORLD_SEED);
+        out.writeInt(hashInterval);
+
+        WorldSnapshot.capture(world).write(out); // Start state
+    }
+
+    /** Log a tick after the world has stepped it */
+    public void record(TickInput input, long now, GameWorld world) {
+        if (failure != null) return;
+        try {
+            int flags = input.heldDirection
+                    | (input.centerHeld ? FLAG_CENTER : 0)
+                    | (input.running ? FLAG_RUN : 0)
+                    | (input.pressedDirection != TickInput.NONE ? FLAG_PRESS : 0)
+                    | (input.dashDirection != TickInput.NONE ? FLAG_DASH : 0);
+            int aiVisits = world.getLastAiCutVisits();
+            out.writeByte(flags);
+            writeVarLong(out, ((now - lastTime) << 1) | (aiVisits >= 0 ? 1 : 0));
+            if (input.pressedDirection != TickInput.NONE) out.writeByte(input.pressedDirection);
+            if (input.dashDirection != TickInput.NONE) out.writeByte(input.dashDirection);
+            if (aiVisits >= 0) writeVarLong(out, aiVisits);
+            lastTime = now;
+
+            if (++ticks % hashInterval == 0) out.writeLong(world.stateHash());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void flush() {
+        if (failure != null) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // A broken log must never take the game down with it
+    private void fail(IOException e) {
+        failure = e;
+    }
+
+    /** The error that stopped recording, or null while it is still running */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    // Unsigned LEB128
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
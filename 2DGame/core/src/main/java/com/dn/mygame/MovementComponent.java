@@ -0,0 +1,244 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+
+public class MovementComponent implements TimerWheel.Callback {
+    private Entity entity;
+    private final EntityStore store;
+    private final int slot; // Tile position lives in the store
+    private final TimerWheel timers;
+    private int facingDx = 0, facingDy = 1;
+    private boolean isSliding = false;
+    private int slideDx, slideDy, slideDelay = 5, slideTimer = 0;
+    private boolean stopRequested = false;
+    private int stopSlideCount = 0;
+    private boolean isJumping = false;
+    private int jumpTimer = TimerWheel.NONE;
+    private final int jumpDuration = 10;
+    private int moveCooldown = TimerWheel.NONE;
+    private final int moveDelay = 0;
+    private static final int JUMP_END = 0;
+    private static final int MOVE_READY = 1;
+    private int recentTileMoves = 0;
+    private static final int TILE_MOVE_DECAY_RATE = 3;
+    private boolean isMovingThisFrame = false;
+
+    // Saved state: facing, slide flags, direction, timer and stop count, jump and cooldown
+    // ticks remaining, recent moves
+    static final int STATE_BYTES = 2 + 1 + 2 + 4 + 1 + 4 + 4 + 4;
+    private static final int SAVED_SLIDING = 1;
+    private static final int SAVED_STOP_REQUESTED = 2;
+
+    // Jump and move cooldowns are TimerWheel timers; slides step in update while sliding
+    public MovementComponent(Entity entity, EntityStore store, int slot, TimerWheel timers,
+            int startX, int startY) {
+        this.entity = entity;
+        this.store = store;
+        this.slot = slot;
+        this.timers = timers;
+        store.tileX[slot] = startX;
+        store.tileY[slot] = startY;
+    }
+
+    // Whether move() would act now rather than drop the input
+    public boolean canMove() {
+        return moveCooldown == TimerWheel.NONE && !isSliding && !isJumping
+                && !entity.isInvulnerable() && !entity.isTeleporting()
+                && !entity.needsTeleportBack() && !entity.isWaitingForCenter();
+    }
+
+    public void move(int dx, int dy, TileMap map) {
+        if (!canMove()) {
+            return;
+        }
+
+        if (map.isJumpPad(getX(), getY())) {
+            attemptJump(dx, dy, map);
+            return;
+        }
+
+        int nx = getX() + dx, ny = getY() + dy;
+
+        if (map.isObstacle(nx, ny)) {
+            facingDx = dx;
+            facingDy = dy;
+            return;
+        }
+
+        if (map.getSpatialIndex().isOccupied(nx, ny, entity)) {
+            facingDx = dx;
+            facingDy = dy;
+            return;
+        }
+
+        if (map.isTraversable(nx, ny) || map.isTeleporter(nx, ny)) {
+            moveTo(nx, ny);
+            recentTileMoves += 1;
+            isMovingThisFrame = true;
+            if (moveDelay > 0) moveCooldown = timers.schedule(moveDelay, this, MOVE_READY);
+            facingDx = dx;
+            facingDy = dy;
+            // Checkpoints and slippery tiles react through TileTriggers
+        }
+    }
+
+    // Slide the way the entity faces, e.g. after stepping onto a slippery tile
+    public void startSliding() {
+        if (isSliding || isJumping || (facingDx == 0 && facingDy == 0)) return;
+        stopRequested = false;
+        stopSlideCount = 0;
+        isSliding = true;
+        slideDx = facingDx;
+        slideDy = facingDy;
+        slideTimer = slideDelay;
+    }
+
+    private void attemptJump(int dx, int dy, TileMap map) {
+        int j1x = getX() + dx, j1y = getY() + dy;
+        int j2x = j1x + dx, j2y = j1y + dy;
+        boolean canJump = (map.isPit(j1x, j1y) || map.isTraversable(j1x, j1y))
+                && map.isTraversable(j2x, j2y)
+                && !map.isObstacle(j2x, j2y);
+        if (canJump) {
+            isJumping = true;
+            jumpTimer = timers.schedule(jumpDuration, this, JUMP_END);
+            moveTo(j2x, j2y);
+            facingDx = dx;
+            facingDy = dy;
+        }
+    }
+
+    public void requestStopSliding() {
+        if (isSliding && !stopRequested) {
+            stopRequested = true;
+            stopSlideCount = 2;
+        }
+    }
+
+    public void update(TileMap map) {
+        isMovingThisFrame = false;
+
+        if (isSliding && slideTimer <= 0) {
+            recentTileMoves += 1;
+            isMovingThisFrame = true;
+        }
+
+        if (!isMovingThisFrame) {
+            recentTileMoves = Math.max(0, recentTileMoves - TILE_MOVE_DECAY_RATE);
+        }
+
+        // Handle sliding
+        if (isSliding) {
+            slideTimer--;
+            if (entity.isAcceleratingSlide()) slideTimer--;
+
+            if (slideTimer <= 0) {
+                int nx = getX() + slideDx, ny = getY() + slideDy;
+                if (map.isTraversable(nx, ny)) {
+                    moveTo(nx, ny);
+                    slideTimer = slideDelay;
+
+                    if (stopRequested) {
+                        stopSlideCount--;
+                        if (stopSlideCount <= 0) {
+                            isSliding = false;
+                            stopRequested = false;
+                        }
+                    } else if (!map.isSlippery(nx, ny)) {
+                        isSliding = false;
+                    }
+                } else {
+                    isSliding = false;
+                    stopRequested = false;
+                }
+            }
+        }
+    }
+
+public void stopSliding() {
+        isSliding = false;
+        stopRequested = false;
+    }
+
+    public void stopJumping() {
+        isJumping = false;
+        jumpTimer = timers.cancel(jumpTimer);
+    }
+
+    @Override
+    public void onTimer(int kind) {
+        if (kind == JUMP_END) {
+            isJumping = false;
+            jumpTimer = TimerWheel.NONE;
+        } else {
+            moveCooldown = TimerWheel.NONE;
+        }
+    }
+
+    public void cancelTimers() {
+        jumpTimer = timers.cancel(jumpTimer);
+        moveCooldown = timers.cancel(moveCooldown);
+    }
+
+    void writeState(ByteBuffer out) {
+        out.put((byte) facingDx).put((byte) facingDy);
+        out.put((byte) ((isSliding ? SAVED_SLIDING : 0) | (stopRequested ? SAVED_STOP_REQUESTED : 0)));
+        out.put((byte) slideDx).put((byte) slideDy);
+        out.putInt(slideTimer);
+        out.put((byte) stopSlideCount);
+        out.putInt(timers.getRemaining(jumpTimer));
+        out.putInt(timers.getRemaining(moveCooldown));
+        out.putInt(recentTileMoves);
+    }
+
+    // Position is restored by the entity; timers are rescheduled with the ticks they had left
+    void readState(ByteBuffer in) {
+        cancelTimers();
+        facingDx = in.get();
+        facingDy = in.get();
+        int flags = in.get();
+        isSliding = (flags & SAVED_SLIDING) != 0;
+        stopRequested = (flags & SAVED_STOP_REQUESTED) != 0;
+        slideDx = in.get();
+        slideDy = in.get();
+        slideTimer = in.getInt();
+        stopSlideCount = in.get();
+        int jumpTicks = in.getInt();
+        isJumping = jumpTicks > 0;
+        if (isJumping) jumpTimer = timers.schedule(jumpTicks, this, JUMP_END);
+        int cooldownTicks = in.getInt();
+        if (cooldownTicks > 0) moveCooldown = timers.schedule(cooldownTicks, this, MOVE_READY);
+        recentTileMoves = in.getInt();
+    }
+
+    // Getters and setters
+
+    public void setPosition(int x, int y) {
+        moveTo(x, y);
+    }
+
+    // Every tile change goes through here so the spatial index stays in sync
+    private void moveTo(int nx, int ny) {
+        int oldX = store.tileX[slot], oldY = store.tileY[slot];
+        store.tileX[slot] = nx;
+        store.tileY[slot] = ny;
+        entity.getTileMap().getSpatialIndex().onMoved(entity, oldX, oldY);
+        entity.getTileMap().getTileTriggers().onMoved(entity);
+    }
+    public void setFacingDirection(int dx, int dy) {
+        facingDx = dx;
+        facingDy = dy;
+    }
+
+public boolean isMoving() { return moveCooldown != TimerWheel.NONE; }
+    
+    public int getX() { return store.tileX[slot]; }
+    public int getY() { return store.tileY[slot]; }
+    public boolean isSliding() { return isSliding; }
+    public boolean isJumping() { return isJumping; }
+    public int getFacingDx() { return facingDx; }
+    public int getFacingDy() { return facingDy; }
+    public int getSlideDx() { return slideDx; }
+    public int getSlideDy() { return slideDy; }
+    public int getRecentTileMoves() { return recentTileMoves; }
+}
\ No newline at end of file
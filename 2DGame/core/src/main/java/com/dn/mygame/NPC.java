@@ -0,0 +1,180 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+
+public class NPC extends Entity {
+    private static final float MOVE_CHANCE_PER_TICK = 0.05f;
+    private static final int[][] DIRECTIONS = {
+        {-1, 0},  // Left
+        {1, 0},   // Right
+        {0, -1},  // Up
+        {0, 1},   // Down
+        {-1, -1}, // Up-Left
+        {-1, 1},  // Down-Left
+        {1, -1},  // Up-Right
+        {1, 1}    // Down-Right
+    };
+
+    private static final int REPLAN_DELAY_THINKS = 8; // Back off after a failed plan
+
+    // Sleeping record: id, position, spawn, rng, facing, flags, goal
+    static final int STATE_BYTES = 4 + 8 + 8 + 8 + 2 + 1 + 8;
+    private static final int FLAG_GOAL = 1;
+    private static final int FLAG_CHASE = 2;
+    private static int nextId = 0;
+
+    private int id;
+
+    private long rngState;
+
+    // Goal-directed movement; without a goal the NPC wanders
+    private boolean hasGoal = false;
+    private int goalX, goalY;
+    private Path path;
+    private int replanDelay = 0;
+    private FlowField chaseField; // Shared field toward a crowd target, e.g. the player
+    int aiSlot = -1; // Index in AIScheduler's list while scheduled, for O(1) removal
+
+    public NPC(int startX, int startY, TileMap tileMap) {
+        this(startX, startY, tileMap, 31L * startX + startY);
+    }
+
+    public NPC(int startX, int startY, TileMap tileMap, long seed) {
+        super(startX, startY, tileMap);
+        id = nextId++;
+        // Mix the seed so nearby spawn positions give unrelated streams; state must be non-zero
+        long mixed = (seed + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        rngState = mixed != 0 ? mixed : 1;
+    }
+
+    /**
+     * Wander decision, run by AIScheduler. elapsedTicks is how long since this NPC last
+     * thought, so NPCs that think less often still wander at the same average rate.
+     */
+    public void updateAI(int elapsedTicks) {
+        if (hasGoal) {
+            followPath();
+            return;
+        }
+        if (chaseField != null) {
+            followField();
+            return;
+        }
+        if (nextRandomFloat() < Math.min(1f, MOVE_CHANCE_PER_TICK * elapsedTicks)) {
+            // Randomly choose between 8 directions
+            int[] direction = DIRECTIONS[nextRandomInt(DIRECTIONS.length)];
+            move(direction[0], direction[1], getTileMap());
+        }
+    }
+
+    public int getId() { return id; }
+
+    /** Write the state kept while asleep; slides, jumps, teleports and plans are dropped */
+    void writeState(ByteBuffer out) {
+        out.putInt(id);
+        out.putInt(getX()).putInt(getY());
+        out.putInt(getSpawnX()).putInt(getSpawnY());
+        out.putLong(rngState);
+        out.put((byte) getFacingDx()).put((byte) getFacingDy());
+        out.put((byte) ((hasGoal ? FLAG_GOAL : 0) | (chaseField != null ? FLAG_CHASE : 0)));
+        out.putInt(goalX).putInt(goalY);
+    }
+
+    /** Recreate a sleeping NPC; chasers get the given field back */
+    static NPC readState(ByteBuffer in, TileMap tileMap, FlowField chaseField) {
+        int id = in.getInt();
+        int x = in.getInt(), y = in.getInt();
+        NPC npc = new NPC(x, y, tileMap);
+        npc.id = id;
+        nextId = Math.max(nextId, id + 1); // Restored saves must not hand their ids out again
+        npc.setSpawn(in.getInt(), in.getInt());
+        npc.rngState = in.getLong();
+        npc.setFacingDirection(in.get(), in.get());
+        int flags = in.get();
+        int goalX = in.getInt(), goalY = in.getInt();
+        if ((flags & FLAG_GOAL) != 0) npc.setGoal(goalX, goalY);
+        if ((flags & FLAG_CHASE) != 0) npc.setChaseField(chaseField);
+        return npc;
+    }
+
+    /** Walk to a tile using the map's PathFinder instead of wandering */
+    public void setGoal(int x, int y) {
+        hasGoal = true;
+        goalX = x;
+        goalY = y;
+        path = null;
+        replanDelay = 0;
+    }
+
+    public void clearGoal() {
+        hasGoal = false;
+        path = null;
+    }
+
+    public boolean hasGoal() { return hasGoal; }
+
+    /** Chase the target of a shared flow field; null goes back to wandering */
+    public void setChaseField(FlowField field) {
+        chaseField = field;
+    }
+
+    private void followField() {
+        if (isSliding() || isJumping() || isTeleporting() || isWaitingForCenter()
+                || needsTeleportBack()) {
+            return;
+        }
+        int direction = chaseField.getDirection(getX(), getY());
+        if (direction != FlowField.NO_DIRECTION) {
+            move(FlowField.directionX(direction), FlowField.directionY(direction), getTileMap());
+        }
+    }
+
+    private void followPath() {
+        // Let jumps, slides and teleports finish before taking the next step
+        if (isSliding() || isJumping() || isTeleporting() || isWaitingForCenter()
+                || needsTeleportBack()) {
+            return;
+        }
+        int x = getX(), y = getY();
+        if (x == goalX && y == goalY) {
+            clearGoal();
+            return;
+        }
+
+        PathFinder finder = getTileMap().getPathFinder();
+        if (path == null || !path.sync(x, y)) {
+            if (replanDelay > 0) {
+                replanDelay--;
+                return;
+            }
+            path = finder.findPath(x, y, goalX, goalY);
+            if (path == null || !path.sync(x, y)) {
+                path = null;
+                replanDelay = REPLAN_DELAY_THINKS;
+                return;
+            }
+        }
+        if (path.isWaitingForTeleport()) return;
+        if (path.needsRefinement() && !finder.refineNextLeg(path, x, y)) {
+            path = null; // Terrain changed under the plan
+            return;
+        }
+        move(path.getStepDx(), path.getStepDy(), getTileMap());
+    }
+
+    // xorshift64* stream owned by this NPC, so runs are reproducible and nothing is shared
+    private long nextRandom() {
+        rngState ^= rngState >>> 12;
+        rngState ^= rngState << 25;
+        rngState ^= rngState >>> 27;
+        return rngState * 0x2545F4914F6CDD1DL;
+    }
+
+    private float nextRandomFloat() {
+        return (nextRandom() >>> 40) / (float) (1 << 24);
+    }
+
+    private int nextRandomInt(int bound) {
+        return (int) ((nextRandom() >>> 33) % bound);
+    }
+}
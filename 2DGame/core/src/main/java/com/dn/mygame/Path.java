@@ -0,0 +1,119 @@
+package com.dn.mygame;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical path: abstract waypoints from the chunk-portal search, plus the refined
+ * tile steps of the leg currently being walked. Legs are refined one at a time by
+ * {@link PathFinder#refineNextLeg}, so a long path never holds more than one leg of steps.
+ */
+public class Path {
+    private final int[] waypointX;
+    private final int[] waypointY;
+    private final boolean[] byTeleport; // Waypoint is reached by standing on the previous one
+    private final int cost;
+    private int next = 1; // Waypoint 0 is the start
+
+    // Refined steps of the current leg: stand on origin, move (dx, dy), land on land
+    private int[] originX = new int[16], originY = new int[16];
+    private int[] stepDx = new int[16], stepDy = new int[16];
+    private int[] landX = new int[16], landY = new int[16];
+    private int stepCount = 0;
+    private int step = 0;
+
+    Path(int[] waypointX, int[] waypointY, boolean[] byTeleport, int cost) {
+        this.waypointX = waypointX;
+        this.waypointY = waypointY;
+        this.byTeleport = byTeleport;
+        this.cost = cost;
+    }
+
+    /**
+     * Advance past reached waypoints and steps; false if (x, y) is not where the path
+     * expects the walker to be and it should replan.
+     */
+    public boolean sync(int x, int y) {
+        if (isComplete()) return false;
+        if (x == waypointX[next] && y == waypointY[next]) {
+            next++;
+            clearLeg();
+            return !isComplete();
+        }
+        if (stepCount == 0) {
+            return x == waypointX[next - 1] && y == waypointY[next - 1];
+        }
+        if (step < stepCount && x == landX[step] && y == landY[step]) step++;
+        return step < stepCount && x == originX[step] && y == originY[step];
+    }
+
+    public boolean isComplete() {
+        return next >= waypointX.length;
+    }
+
+    /** The next waypoint is reached by the teleporter the walker is standing on */
+    public boolean isWaitingForTeleport() {
+        return !isComplete() && byTeleport[next];
+    }
+
+    public boolean needsRefinement() {
+        return stepCount == 0 && !isWaitingForTeleport();
+    }
+
+    public int getStepDx() { return stepDx[step]; }
+    public int getStepDy() { return stepDy[step]; }
+
+    public int getWaypointCount() { return waypointX.length; }
+    public int getWaypointX(int i) { return waypointX[i]; }
+    public int getWaypointY(int i) { return waypointY[i]; }
+    public int getCost() { return cost; }
+
+    int getLegStartX() { return waypointX[next - 1]; }
+    int getLegStartY() { return waypointY[next - 1]; }
+    int getLegEndX() { return waypointX[next]; }
+    int getLegEndY() { return waypointY[next]; }
+
+    void clearLeg() {
+        stepCount = 0;
+        step = 0;
+    }
+
+    // Steps are added goal-first while walking parent links, then reversed
+    void addStep(int ox, int oy, int dx, int dy, int lx, int ly) {
+        if (stepCount == originX.length) growSteps();
+        originX[stepCount] = ox;
+        originY[stepCount] = oy;
+        stepDx[stepCount] = dx;
+        stepDy[stepCount] = dy;
+        landX[stepCount] = lx;
+        landY[stepCount] = ly;
+        stepCount++;
+    }
+
+    void reverseSteps() {
+        for (int i = 0, j = stepCount - 1; i < j; i++, j--) {
+            swap(originX, i, j);
+            swap(originY, i, j);
+            swap(stepDx, i, j);
+            swap(stepDy, i, j);
+            swap(landX, i, j);
+            swap(landY, i, j);
+        }
+        step = 0;
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    private void growSteps() {
+        int capacity = originX.length * 2;
+        originX = Arrays.copyOf(originX, capacity);
+        originY = Arrays.copyOf(originY, capacity);
+        stepDx = Arrays.copyOf(stepDx, capacity);
+        stepDy = Arrays.copyOf(stepDy, capacity);
+        landX = Arrays.copyOf(landX, capacity);
+        landY = Arrays.copyOf(landY, capacity);
+    }
+}
@@ -0,0 +1,564 @@
+package com.dn.mygame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical (HPA*) pathfinding over the chunked world.
+ *
+ * <p>Each loaded chunk gets a {@link ChunkGraph}: a snapshot of its placed tile logic, border
+ * portals where it meets its neighbours, and nodes whose edge costs come from a Dijkstra
+ * search inside the chunk. The abstract search runs over those nodes; only the leg being
+ * walked is refined to tile steps with A* over primitive arrays.
+ *
+ * <p>Moves follow {@link MovementComponent}: eight-way steps, jumps from jump pads, one-way
+ * slides across slippery tiles and teleporter hops. Pits are never entered. Animated tiles
+ * are planned by their placed logic, so a dynamic pit is always avoided. Graphs are dropped
+ * when a chunk or one of its neighbours is generated or evicted.
+ */
+public class PathFinder {
+    private static final int STEP_COST = 2;
+    private static final int JUMP_COST = 2;
+    private static final int SLIDE_TILE_COST = 1; // Slides and jumps cover a tile per cost unit
+    private static final int TELEPORT_COST = 4;
+    private static final int MAX_SLIDE = TileMap.CHUNK_SIZE; // Keeps every landing in a neighbour chunk
+    private static final int LONG_PORTAL_SEGMENT = 6; // Longer openings get a portal at each end
+    private static final int MAX_ABSTRACT_EXPANSIONS = 4096;
+
+    private static final int[] DIR_X = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] DIR_Y = {0, 0, -1, 1, -1, 1, -1, 1};
+
+    // Portal side bits
+    private static final int EAST = 1, WEST = 2, SOUTH = 4, NORTH = 8;
+
+    private final TileMap map;
+    private final LongObjectMap<ChunkGraph> graphs = new LongObjectMap<>(64);
+    private final TileSearch search = new TileSearch();
+
+    // One-entry chunk cache for logicAt
+    private ChunkGraph lastGraph;
+
+    // Result of the last expand()
+    private int landX, landY, landCost;
+    private boolean landSpecial; // Jump or slide, rather than a single step
+
+    public PathFinder(TileMap map) {
+        this.map = map;
+    }
+
+    /** Drop cached graphs for a chunk and its neighbours after it was generated or evicted */
+    public void invalidateChunk(int chunkX, int chunkY) {
+        for (int y = chunkY - 1; y <= chunkY + 1; y++) {
+            for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+                graphs.remove(LongObjectMap.key(x, y));
+            }
+        }
+        lastGraph = null;
+    }
+
+    /** Plan from start to goal; null if no route is known through loaded chunks */
+    public Path findPath(int startX, int startY, int goalX, int goalY) {
+        Node start = nodeAt(startX, startY);
+        Node goal = nodeAt(goalX, goalY);
+        if (start == null || goal == null || !isEnterable(logicAt(goalX, goalY))) return null;
+
+        int goalChunkX = Math.floorDiv(goalX, TileMap.CHUNK_SIZE);
+        int goalChunkY = Math.floorDiv(goalY, TileMap.CHUNK_SIZE);
+
+        LongObjectMap<SearchNode> visited = new LongObjectMap<>(256);
+        PriorityQueue<SearchNode> open = new PriorityQueue<>();
+        SearchNode first = new SearchNode(start, null, 0, heuristic(startX, startY, goalX, goalY), false);
+        visited.put(LongObjectMap.key(startX, startY), first);
+        open.add(first);
+
+        int expansions = 0;
+        while (!open.isEmpty() && expansions++ < MAX_ABSTRACT_EXPANSIONS) {
+            SearchNode current = open.poll();
+            if (current.closed) continue; // Stale queue entry
+            current.closed = true;
+            Node node = current.node;
+            if (node == goal) return buildPath(current);
+
+            if (node.graph.chunkX == goalChunkX && node.graph.chunkY == goalChunkY) {
+                int cost = search.shortest(node.graph.minX(), node.graph.minY(),
+                        TileMap.CHUNK_SIZE, TileMap.CHUNK_SIZE, node.x, node.y, goalX, goalY, null);
+                if (cost >= 0) relax(open, visited, current, goal, cost, false, goalX, goalY);
+            }
+
+            if (logicAt(node.x, node.y) == TileMap.TELEPORTER) {
+                TileMap.Point dest = map.getTeleporterDestination(node.x, node.y);
+                Node target = dest != null ? nodeAt(dest.x, dest.y) : null;
+                if (target != null) relax(open, visited, current, target, TELEPORT_COST, true, goalX, goalY);
+                continue; // Standing on a teleporter always teleports
+            }
+
+            ensureEdges(node);
+            for (int i = 0; i < node.edgeCount; i++) {
+                int base = i * 3;
+                Node target = nodeAt(node.edges[base], node.edges[base + 1]);
+                if (target != null) relax(open, visited, current, target, node.edges[base + 2], false, goalX, goalY);
+            }
+        }
+        return null;
+    }
+
+    /** Refine the path's current leg into tile steps from (x, y); false if it is blocked */
+    public boolean refineNextLeg(Path path, int x, int y) {
+        path.clearLeg();
+        int endX = path.getLegEndX(), endY = path.getLegEndY();
+        int chunkMinX = Math.floorDiv(path.getLegStartX(), TileMap.CHUNK_SIZE) * TileMap.CHUNK_SIZE;
+        int chunkMinY = Math.floorDiv(path.getLegStartY(), TileMap.CHUNK_SIZE) * TileMap.CHUNK_SIZE;
+
+        // The leg's own chunk, stretched to cover its end and the walker
+        int minX = Math.min(chunkMinX, Math.min(endX, x));
+        int minY = Math.min(chunkMinY, Math.min(endY, y));
+        int maxX = Math.max(chunkMinX + TileMap.CHUNK_SIZE - 1, Math.max(endX, x));
+        int maxY = Math.max(chunkMinY + TileMap.CHUNK_SIZE - 1, Math.max(endY, y));
+
+        int cost = search.shortest(minX, minY, maxX - minX + 1, maxY - minY + 1, x, y, endX, endY, path);
+        return cost >= 0;
+    }
+
+    /** Cost of a tile-level A* over a whole window, skipping the portal graph; -1 if no route */
+    int findFlatCost(int minX, int minY, int width, int height,
+                     int startX, int startY, int goalX, int goalY) {
+        return search.shortest(minX, minY, width, height, startX, startY, goalX, goalY, null);
+    }
+
+    public int getCachedGraphCount() {
+        return graphs.size();
+    }
+
+    private void relax(PriorityQueue<SearchNode> open, LongObjectMap<SearchNode> visited,
+                       SearchNode from, Node target, int edgeCost, boolean teleport,
+                       int goalX, int goalY) {
+        int g = from.g + edgeCost;
+        long key = LongObjectMap.key(target.x, target.y);
+        SearchNode existing = visited.get(key);
+        if (existing != null && (existing.closed || existing.g <= g)) return;
+        if (existing != null) existing.closed = true; // Supersede the queued entry
+        SearchNode next = new SearchNode(target, from, g, g + heuristic(target.x, target.y, goalX, goalY), teleport);
+        visited.put(key, next);
+        open.add(next);
+    }
+
+    private Path buildPath(SearchNode end) {
+        ArrayList<SearchNode> chain = new ArrayList<>();
+        for (SearchNode n = end; n != null; n = n.parent) chain.add(n);
+        int count = chain.size();
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        boolean[] teleports = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            SearchNode n = chain.get(count - 1 - i);
+            xs[i] = n.node.x;
+            ys[i] = n.node.y;
+            teleports[i] = n.viaTeleport;
+        }
+        return new Path(xs, ys, teleports, end.g);
+    }
+
+    // Chebyshev distance priced as walking; slides and teleports can beat it, which trades
+    // strict optimality for far fewer expansions on the abstract graph
+    private static int heuristic(int x, int y, int goalX, int goalY) {
+        return Math.max(Math.abs(goalX - x), Math.abs(goalY - y)) * STEP_COST;
+    }
+
+    // Admissible for tile refinement: every move costs at least one unit per tile it covers
+    private static int tileHeuristic(int x, int y, int goalX, int goalY) {
+        return Math.max(Math.abs(goalX - x), Math.abs(goalY - y)) * SLIDE_TILE_COST;
+    }
+
+    // --- Chunk graphs ---
+
+    private ChunkGraph graphFor(int chunkX, int chunkY) {
+        long key = LongObjectMap.key(chunkX, chunkY);
+        ChunkGraph graph = graphs.get(key);
+        if (graph == null) {
+            byte[] logic = new byte[TileMap.CHUNK_SIZE * TileMap.CHUNK_SIZE];
+            if (!map.copyChunkLogic(chunkX, chunkY, logic)) return null; // Never generate here
+            graph = new ChunkGraph(chunkX, chunkY, logic);
+            graphs.put(key, graph);
+        }
+        return graph;
+    }
+
+    // Placed logic at a tile, or -1 if its chunk is not loaded
+    private int logicAt(int x, int y) {
+        int chunkX = Math.floorDiv(x, TileMap.CHUNK_SIZE);
+        int chunkY = Math.floorDiv(y, TileMap.CHUNK_SIZE);
+        ChunkGraph graph = lastGraph;
+        if (graph == null || graph.chunkX != chunkX || graph.chunkY != chunkY) {
+            graph = graphFor(chunkX, chunkY);
+            if (graph == null) return -1;
+            lastGraph = graph;
+        }
+        return graph.logic[graph.localIndex(x, y)];
+    }
+
+    private Node nodeAt(int x, int y) {
+        ChunkGraph graph = graphFor(Math.floorDiv(x, TileMap.CHUNK_SIZE), Math.floorDiv(y, TileMap.CHUNK_SIZE));
+        if (graph == null) return null;
+        int local = graph.localIndex(x, y);
+        Node node = graph.nodes[local];
+        if (node == null) {
+            node = new Node(graph, x, y);
+            graph.nodes[local] = node;
+        }
+        return node;
+    }
+
+    private static boolean isEnterable(int logic) {
+        return logic >= 0 && logic != TileMap.OBSTACLE
+                && logic != TileMap.PERMANENT_PIT && logic != TileMap.DYNAMIC_PIT;
+    }
+
+    // Tiles a portal may sit on: a plain step in either direction, no jump, slide or teleport
+    private static boolean isPlain(int logic) {
+        return logic == TileMap.SPACE || logic == TileMap.CHECKPOINT || logic == TileMap.SPAWN;
+    }
+
+    // Portals are derived from both sides of a border, so neighbours agree on them
+    private void ensurePortals(ChunkGraph graph) {
+        if (graph.portalsBuilt) return;
+        graph.portalsBuilt = true;
+        int minX = graph.minX(), minY = graph.minY();
+        int maxX = minX + TileMap.CHUNK_SIZE - 1, maxY = minY + TileMap.CHUNK_SIZE - 1;
+        scanBorder(graph, maxX, minY, 0, 1, 1, 0, EAST);
+        scanBorder(graph, minX, minY, 0, 1, -1, 0, WEST);
+        scanBorder(graph, minX, maxY, 1, 0, 0, 1, SOUTH);
+        scanBorder(graph, minX, minY, 1, 0, 0, -1, NORTH);
+    }
+
+    private void scanBorder(ChunkGraph graph, int x0, int y0, int stepX, int stepY,
+                            int outX, int outY, int side) {
+        int runStart = -1;
+        for (int i = 0; i <= TileMap.CHUNK_SIZE; i++) {
+            boolean open = false;
+            if (i < TileMap.CHUNK_SIZE) {
+                int x = x0 + stepX * i, y = y0 + stepY * i;
+                open = isPlain(logicAt(x, y)) && isPlain(logicAt(x + outX, y + outY));
+            }
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int length = i - runStart;
+                if (length >= LONG_PORTAL_SEGMENT) {
+                    markPortal(graph, x0 + stepX * runStart, y0 + stepY * runStart, side);
+                    markPortal(graph, x0 + stepX * (i - 1), y0 + stepY * (i - 1), side);
+                } else {
+                    int mid = runStart + length / 2;
+                    markPortal(graph, x0 + stepX * mid, y0 + stepY * mid, side);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private static void markPortal(ChunkGraph graph, int x, int y, int side) {
+        graph.portalSides[graph.localIndex(x, y)] |= side;
+    }
+
+    // Intra-chunk costs from a node to every portal and teleporter in its chunk, plus exits
+    private void ensureEdges(Node node) {
+        if (node.edgesBuilt) return;
+        node.edgesBuilt = true;
+        ChunkGraph graph = node.graph;
+        ensurePortals(graph);
+        search.edgesFrom(graph, node);
+
+        int sides = graph.portalSides[graph.localIndex(node.x, node.y)];
+        if ((sides & EAST) != 0) node.addEdge(node.x + 1, node.y, STEP_COST);
+        if ((sides & WEST) != 0) node.addEdge(node.x - 1, node.y, STEP_COST);
+        if ((sides & SOUTH) != 0) node.addEdge(node.x, node.y + 1, STEP_COST);
+        if ((sides & NORTH) != 0) node.addEdge(node.x, node.y - 1, STEP_COST);
+    }
+
+    /**
+     * Apply one move from (x, y) in direction (dx, dy), mirroring MovementComponent.
+     * Sets landX, landY, landCost and landSpecial; false if the move is not allowed.
+     */
+    private boolean expand(int x, int y, int dx, int dy) {
+        int here = logicAt(x, y);
+        if (here == TileMap.TELEPORTER) return false; // Walkers on teleporters get teleported
+
+        if (here == TileMap.JUMP_PAD) {
+            // Every move from a jump pad is a two-tile hop that may clear a pit
+            int over = logicAt(x + dx, y + dy);
+            if (over < 0 || over == TileMap.OBSTACLE) return false;
+            if (!isEnterable(logicAt(x + 2 * dx, y + 2 * dy))) return false;
+            return land(x + 2 * dx, y + 2 * dy, JUMP_COST, true);
+        }
+
+        int nx = x + dx, ny = y + dy;
+        int logic = logicAt(nx, ny);
+        if (!isEnterable(logic)) return false;
+        if (logic != TileMap.SLIPPERY) return land(nx, ny, STEP_COST, false);
+
+        // Slides carry on until a non-slippery tile or stop against an obstacle
+        int cost = STEP_COST;
+        for (int i = 0; i < MAX_SLIDE; i++) {
+            int next = logicAt(nx + dx, ny + dy);
+            if (next < 0) return false; // Unknown terrain ahead
+            if (next == TileMap.OBSTACLE) return land(nx, ny, cost, true);
+            if (!isEnterable(next)) return false; // Slides into a pit
+            nx += dx;
+            ny += dy;
+            cost += SLIDE_TILE_COST;
+            if (next != TileMap.SLIPPERY) return land(nx, ny, cost, true);
+        }
+        return false;
+    }
+
+    private boolean land(int x, int y, int cost, boolean special) {
+        landX = x;
+        landY = y;
+        landCost = cost;
+        landSpecial = special;
+        return true;
+    }
+
+    private static class ChunkGraph {
+        final int chunkX, chunkY;
+        final byte[] logic;
+        final byte[] portalSides = new byte[TileMap.CHUNK_SIZE * TileMap.CHUNK_SIZE];
+        final Node[] nodes = new Node[TileMap.CHUNK_SIZE * TileMap.CHUNK_SIZE]; // Created lazily
+        boolean portalsBuilt = false;
+
+        ChunkGraph(int chunkX, int chunkY, byte[] logic) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.logic = logic;
+        }
+
+        int minX() { return chunkX * TileMap.CHUNK_SIZE; }
+        int minY() { return chunkY * TileMap.CHUNK_SIZE; }
+
+        int localIndex(int x, int y) {
+            return (y - minY()) * TileMap.CHUNK_SIZE + (x - minX());
+        }
+
+        boolean isTarget(int local) {
+            return portalSides[local] != 0 || logic[local] == TileMap.TELEPORTER;
+        }
+    }
+
+    private static class Node {
+        final ChunkGraph graph;
+        final int x, y;
+        int[] edges = new int[12]; // (x, y, cost) triples
+        int edgeCount = 0;
+        boolean edgesBuilt = false;
+
+        Node(ChunkGraph graph, int x, int y) {
+            this.graph = graph;
+            this.x = x;
+            this.y = y;
+        }
+
+        void addEdge(int tx, int ty, int cost) {
+            for (int i = 0; i < edgeCount; i++) {
+                int base = i * 3;
+                if (edges[base] == tx && edges[base + 1] == ty) {
+                    edges[base + 2] = Math.min(edges[base + 2], cost);
+                    return;
+                }
+            }
+            if ((edgeCount + 1) * 3 > edges.length) edges = Arrays.copyOf(edges, edges.length * 2);
+            int base = edgeCount * 3;
+            edges[base] = tx;
+            edges[base + 1] = ty;
+            edges[base + 2] = cost;
+            edgeCount++;
+        }
+    }
+
+    private static class SearchNode implements Comparable<SearchNode> {
+        final Node node;
+        final SearchNode parent;
+        final int g, f;
+        final boolean viaTeleport;
+        boolean closed = false;
+
+        SearchNode(Node node, SearchNode parent, int g, int f, boolean viaTeleport) {
+            this.node = node;
+            this.parent = parent;
+            this.g = g;
+            this.f = f;
+            this.viaTeleport = viaTeleport;
+        }
+
+        @Override
+        public int compareTo(SearchNode other) {
+            return Integer.compare(f, other.f);
+        }
+    }
+
+    /**
+     * Tile-level search over a rectangular window using primitive arrays. A stamp per
+     * search replaces clearing the arrays, and the open list is an int binary heap.
+     */
+    private class TileSearch {
+        private int[] g = new int[0];
+        private int[] parent = new int[0]; // Window cell index, or -1 for the start
+        private byte[] parentDir = new byte[0];
+        private int[] stamp = new int[0];
+        private boolean[] closed = new boolean[0];
+        private int currentStamp = 0;
+
+        private int[] heapCell = new int[64];
+        private int[] heapKey = new int[64];
+        private int heapSize = 0;
+
+        private int minX, minY, width, height;
+
+        /** A* cost from start to goal inside the window, or -1; fills the path's steps if given */
+        int shortest(int minX, int minY, int width, int height,
+                     int startX, int startY, int goalX, int goalY, Path out) {
+            if (!reset(minX, minY, width, height, startX, startY)) return -1;
+            int goalCell = cell(goalX, goalY);
+            if (goalCell < 0) return -1;
+
+            while (heapSize > 0) {
+                int c = pop();
+                if (closed[c]) continue;
+                closed[c] = true;
+                if (c == goalCell) {
+                    if (out != null) emitSteps(c, out);
+                    return g[c];
+                }
+                int x = minX + c % width, y = minY + c / width;
+                for (int d = 0; d < 8; d++) {
+                    if (!expand(x, y, DIR_X[d], DIR_Y[d])) continue;
+                    int n = cell(landX, landY);
+                    if (n < 0) continue;
+                    if (tryImprove(n, c, d, g[c] + landCost)) {
+                        push(n, g[n] + tileHeuristic(landX, landY, goalX, goalY));
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /** Dijkstra from a node over its chunk, recording edges to targets and exits */
+        void edgesFrom(ChunkGraph graph, Node node) {
+            if (!reset(graph.minX(), graph.minY(), TileMap.CHUNK_SIZE, TileMap.CHUNK_SIZE, node.x, node.y)) return;
+            int startCell = cell(node.x, node.y);
+
+            while (heapSize > 0) {
+                int c = pop();
+                if (closed[c]) continue;
+                closed[c] = true;
+                int x = minX + c % width, y = minY + c / width;
+                if (c != startCell) {
+                    if (graph.isTarget(c)) node.addEdge(x, y, g[c]);
+                    if (graph.logic[c] == TileMap.TELEPORTER) continue;
+                }
+                for (int d = 0; d < 8; d++) {
+                    if (!expand(x, y, DIR_X[d], DIR_Y[d])) continue;
+                    int n = cell(landX, landY);
+                    if (n < 0) {
+                        // Plain steps out of the chunk go through portals; hops and slides are exits
+                        if (landSpecial) node.addEdge(landX, landY, g[c] + landCost);
+                        continue;
+                    }
+                    if (tryImprove(n, c, d, g[c] + landCost)) push(n, g[n]);
+                }
+            }
+        }
+
+        private boolean reset(int minX, int minY, int width, int height, int startX, int startY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.width = width;
+            this.height = height;
+            int cells = width * height;
+            if (cells > g.length) {
+                g = new int[cells];
+                parent = new int[cells];
+                parentDir = new byte[cells];
+                stamp = new int[cells];
+                closed = new boolean[cells];
+                currentStamp = 0;
+            }
+            currentStamp++;
+            heapSize = 0;
+            int start = cell(startX, startY);
+            if (start < 0) return false;
+            visit(start);
+            g[start] = 0;
+            parent[start] = -1;
+            push(start, 0);
+            return true;
+        }
+
+        private int cell(int x, int y) {
+            int lx = x - minX, ly = y - minY;
+            if (lx < 0 || ly < 0 || lx >= width || ly >= height) return -1;
+            return ly * width + lx;
+        }
+
+        private void visit(int c) {
+            stamp[c] = currentStamp;
+            closed[c] = false;
+        }
+
+        private boolean tryImprove(int n, int from, int dir, int cost) {
+            if (stamp[n] != currentStamp) {
+                visit(n);
+            } else if (closed[n] || g[n] <= cost) {
+                return false;
+            }
+            g[n] = cost;
+            parent[n] = from;
+            parentDir[n] = (byte) dir;
+            return true;
+        }
+
+        private void emitSteps(int goalCell, Path out) {
+            for (int c = goalCell; parent[c] >= 0; c = parent[c]) {
+                int p = parent[c];
+                out.addStep(minX + p % width, minY + p / width, DIR_X[parentDir[c]], DIR_Y[parentDir[c]],
+                        minX + c % width, minY + c / width);
+            }
+            out.reverseSteps();
+        }
+
+        private void push(int c, int key) {
+            if (heapSize == heapCell.length) {
+                heapCell = Arrays.copyOf(heapCell, heapSize * 2);
+                heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int up = (i - 1) >> 1;
+                if (heapKey[up] <= key) break;
+                heapCell[i] = heapCell[up];
+                heapKey[i] = heapKey[up];
+                i = up;
+            }
+            heapCell[i] = c;
+            heapKey[i] = key;
+        }
+
+        private int pop() {
+            int top = heapCell[0];
+            int lastCell = heapCell[--heapSize];
+            int lastKey = heapKey[heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+                if (heapKey[child] >= lastKey) break;
+                heapCell[i] = heapCell[child];
+                heapKey[i] = heapKey[child];
+                i = child;
+            }
+            heapCell[i] = lastCell;
+            heapKey[i] = lastKey;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.dn.mygame;
+
+public class Player extends Entity {
+    public Player(int startX, int startY, TileMap tileMap) {
+        super(startX, startY, tileMap);
+    }
+}
@@ -0,0 +1,34 @@
+package com.dn.mygame;
+
+public class RenderComponent {
+    private final Entity entity;
+    private final EntityStore store;
+    private final int slot;
+
+    // Easing and velocity are updated for all entities by EntityStore.updateRender
+    public RenderComponent(Entity entity, EntityStore store, int slot, int tileSize) {
+        this.entity = entity;
+        this.store = store;
+        this.slot = slot;
+        store.drawX[slot] = store.tileX[slot] * tileSize;
+        store.drawY[slot] = store.tileY[slot] * tileSize;
+    }
+
+    public void snapToPosition() {
+        store.drawX[slot] = entity.getX() * entity.getTileMap().getTileSize();
+        store.drawY[slot] = entity.getY() * entity.getTileMap().getTileSize();
+    }
+
+    // Getters
+    public int getTileSize() {
+        return entity.getTileMap().getTileSize();
+    }
+    public float getDrawX() { return store.drawX[slot]; }
+    public float getDrawY() { return store.drawY[slot]; }
+    public float getVelocityX() { return store.velocityX[slot]; }
+    public float getVelocityY() { return store.velocityY[slot]; }
+    
+    public float getVelocityMagnitude() {
+        return (float) Math.hypot(store.velocityX[slot], store.velocityY[slot]);
+    }
+}
@@ -0,0 +1,140 @@
+package com.dn.mygame;
+
+/**
+ * The game loop's source of ticks and time.
+ *
+ * <p>Whatever drives the simulation calls {@link #advance} once per tick and reads the tick's
+ * time from {@link #getTimeMillis}; the D-pad thresholds, move delay, tile animations and
+ * render easing all see that time instead of reading the system clock themselves. Swapping
+ * the implementation changes how a session runs without touching the code being timed:
+ *
+ * <ul>
+ *   <li>{@link RealTime} follows the wall clock and sleeps out the rest of each frame, as the
+ *       game thread always has.
+ *   <li>{@link FixedStep} gives every tick exactly 1/ticksPerSecond of simulated time and
+ *       paces the ticks against the wall clock, so live play is reproducible.
+ *   <li>{@link AsFastAsPossible} produces the same times as FixedStep without sleeping, for
+ *       headless benchmarks and soak runs.
+ * </ul>
+ *
+ * <p>Only the driving thread advances a clock; other threads (touch handling) may read it.
+ */
+public abstract class SimClock {
+    private volatile long tick = 0;
+    private volatile long timeMillis;
+
+    protected SimClock(long originMillis) {
+        this.timeMillis = originMillis;
+    }
+
+    /** Start the next tick, first waiting if the clock paces itself against real time */
+    public final void advance() {
+        long next = nextTickTime(tick + 1);
+        timeMillis = next;
+        tick++;
+    }
+
+    /** Time of the given tick; may block until that tick is due */
+    protected abstract long nextTickTime(long nextTick);
+
+    /** Ticks started so far */
+    public long getTick() {
+        return tick;
+    }
+
+    /** Time of the current tick in milliseconds; the origin depends on the clock */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Fine-grained time for measuring latency, readable from any thread. Paced clocks return
+     * System.nanoTime; an unpaced clock returns its tick time, so headless measurements come
+     * out in simulated time instead of however fast the CPU got through the ticks.
+     */
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    static void sleepMillis(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Let the loop see it and stop
+        }
+    }
+
+    /** Wall-clock time, with each tick padded out to at least the frame period */
+    public static class RealTime extends SimClock {
+        private final long periodMillis;
+        private long lastStart = 0;
+
+        public RealTime(int ticksPerSecond) {
+            super(System.currentTimeMillis());
+            this.periodMillis = 1000 / ticksPerSecond;
+        }
+
+        @Override
+        protected long nextTickTime(long nextTick) {
+            if (lastStart != 0) {
+                sleepMillis(lastStart + periodMillis - System.currentTimeMillis());
+            }
+            lastStart = System.currentTimeMillis();
+            return lastStart;
+        }
+    }
+
+    /** Exact simulated steps, paced so they keep up with the wall clock on average */
+    public static class FixedStep extends SimClock {
+        private static final long MAX_LAG_NANOS = 250_000_000L; // Give up catching up after a stall
+
+        private final int ticksPerSecond;
+        private final long originMillis;
+        private final boolean paced;
+        private long realOriginNanos;
+        private long realOriginTick = 0;
+
+        public FixedStep(int ticksPerSecond) {
+            this(ticksPerSecond, 0L, true);
+        }
+
+        FixedStep(int ticksPerSecond, long originMillis, boolean paced) {
+            super(originMillis);
+            this.ticksPerSecond = ticksPerSecond;
+            this.originMillis = originMillis;
+            this.paced = paced;
+            this.realOriginNanos = System.nanoTime();
+        }
+
+        @Override
+        protected long nextTickTime(long nextTick) {
+            if (paced) {
+                long due = realOriginNanos
+                        + (nextTick - realOriginTick) * 1_000_000_000L / ticksPerSecond;
+                long ahead = due - System.nanoTime();
+                if (ahead > 0) {
+                    sleepMillis((ahead + 999_999) / 1_000_000);
+                } else if (-ahead > MAX_LAG_NANOS) {
+                    // Paused or stalled: carry on from now instead of racing through the backlog
+                    realOriginNanos = System.nanoTime();
+                    realOriginTick = nextTick;
+                }
+            }
+            // Rounded per tick from the origin, so steps alternate (16, 17, 17 ms at 60/s)
+            return originMillis + nextTick * 1000 / ticksPerSecond;
+        }
+    }
+
+    /** FixedStep's times with no pacing; ticks run as fast as they can be computed */
+    public static class AsFastAsPossible extends FixedStep {
+        public AsFastAsPossible(int ticksPerSecond, long originMillis) {
+            super(ticksPerSecond, originMillis, false);
+        }
+
+        @Override
+        public long nanoTime() {
+            return getTimeMillis() * 1_000_000L;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.dn.mygame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buckets entities by tile and by chunk.
+ *
+ * <p>Entities are re-bucketed incrementally whenever their tile changes, so occupancy checks
+ * are a single tile lookup and radius or viewport queries only visit the chunks they overlap.
+ */
+public class SpatialIndex {
+    private final LongObjectMap<ArrayList<Entity>> tileBuckets = new LongObjectMap<>(256);
+    private final LongObjectMap<ArrayList<Entity>> chunkBuckets = new LongObjectMap<>(64);
+    // Buckets start with room for a crowd, so wandering entities rarely grow one mid-tick
+    private static final int TILE_BUCKET_CAPACITY = 4;
+    private static final int CHUNK_BUCKET_CAPACITY = 32;
+    private static final int INITIAL_CHUNK_BUCKETS = 64; // The 7 x 7 active ring and some
+    // Emptied buckets by kind, so a crowded chunk's bucket keeps its capacity instead of
+    // turning into a tile bucket while a small one regrows in its place
+    private final ArrayDeque<ArrayList<Entity>> freeTileBuckets = new ArrayDeque<>(256);
+    private final ArrayDeque<ArrayList<Entity>> freeChunkBuckets = new ArrayDeque<>(128);
+    private int size = 0;
+
+    public SpatialIndex() {
+        for (int i = 0; i < INITIAL_CHUNK_BUCKETS; i++) {
+            freeChunkBuckets.push(new ArrayList<Entity>(CHUNK_BUCKET_CAPACITY));
+        }
+    }
+
+    public void add(Entity e) {
+        int x = e.getX(), y = e.getY();
+        addTo(tileBuckets, LongObjectMap.key(x, y), e);
+        addTo(chunkBuckets, chunkKey(x, y), e);
+        size++;
+    }
+
+    public void remove(Entity e) {
+        int x = e.getX(), y = e.getY();
+        if (removeFrom(tileBuckets, LongObjectMap.key(x, y), e)) {
+            removeFrom(chunkBuckets, chunkKey(x, y), e);
+            size--;
+        }
+    }
+
+    /** Re-bucket an entity after its tile changed; entities not in the index are ignored */
+    public void onMoved(Entity e, int oldX, int oldY) {
+        int x = e.getX(), y = e.getY();
+        if (x == oldX && y == oldY) return;
+        if (!removeFrom(tileBuckets, LongObjectMap.key(oldX, oldY), e)) return;
+        addTo(tileBuckets, LongObjectMap.key(x, y), e);
+
+        long oldChunk = chunkKey(oldX, oldY);
+        long newChunk = chunkKey(x, y);
+        if (oldChunk != newChunk) {
+            removeFrom(chunkBuckets, oldChunk, e);
+            addTo(chunkBuckets, newChunk, e);
+        }
+    }
+
+    /** Whether any entity other than self stands on the tile */
+    public boolean isOccupied(int x, int y, Entity self) {
+        ArrayList<Entity> bucket = tileBuckets.get(LongObjectMap.key(x, y));
+        if (bucket == null) return false;
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) != self) return true;
+        }
+        return false;
+    }
+
+    /** Collect entities within a square radius (in tiles) of a tile */
+    public void queryRadius(int x, int y, int radius, List<Entity> out) {
+        queryRect(x - radius, y - radius, x + radius, y + radius, out);
+    }
+
+    /** Collect entities inside an inclusive tile rectangle, e.g. the visible viewport */
+    public void queryRect(int minX, int minY, int maxX, int maxY, List<Entity> out) {
+        int minChunkX = Math.floorDiv(minX, TileMap.CHUNK_SIZE);
+        int minChunkY = Math.floorDiv(minY, TileMap.CHUNK_SIZE);
+        int maxChunkX = Math.floorDiv(maxX, TileMap.CHUNK_SIZE);
+        int maxChunkY = Math.floorDiv(maxY, TileMap.CHUNK_SIZE);
+
+        for (int cy = minChunkY; cy <= maxChunkY; cy++) {
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                ArrayList<Entity> bucket = chunkBuckets.get(LongObjectMap.key(cx, cy));
+                if (bucket == null) continue;
+                for (int i = 0; i < bucket.size(); i++) {
+                    Entity e = bucket.get(i);
+                    int ex = e.getX(), ey = e.getY();
+                    if (ex >= minX && ex <= maxX && ey >= minY && ey <= maxY) {
+                        out.add(e);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static long chunkKey(int x, int y) {
+        return LongObjectMap.key(
+                Math.floorDiv(x, TileMap.CHUNK_SIZE), Math.floorDiv(y, TileMap.CHUNK_SIZE));
+    }
+
+    private void addTo(LongObjectMap<ArrayList<Entity>> buckets, long key, Entity e) {
+        ArrayList<Entity> bucket = buckets.get(key);
+        if (bucket == null) {
+            ArrayDeque<ArrayList<Entity>> free = freeBucketsOf(buckets);
+            if (!free.isEmpty()) {
+                bucket = free.poll();
+            } else {
+                bucket = new ArrayList<>(buckets == tileBuckets ? TILE_BUCKET_CAPACITY
+                        : CHUNK_BUCKET_CAPACITY);
+            }
+            buckets.put(key, bucket);
+        }
+        bucket.add(e);
+    }
+
+    private boolean removeFrom(LongObjectMap<ArrayList<Entity>> buckets, long key, Entity e) {
+        ArrayList<Entity> bucket = buckets.get(key);
+        if (bucket == null || !bucket.remove(e)) return false;
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+            freeBucketsOf(buckets).push(bucket); // Reuse instead of reallocating on the next move
+        }
+        return true;
+    }
+
+    private ArrayDeque<ArrayList<Entity>> freeBucketsOf(LongObjectMap<ArrayList<Entity>> buckets) {
+        return buckets == tileBuckets ? freeTileBuckets : freeChunkBuckets;
+    }
+}
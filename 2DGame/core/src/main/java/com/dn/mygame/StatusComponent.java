@@ -0,0 +1,51 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+
+public class StatusComponent implements TimerWheel.Callback {
+    private static final int INVULNERABILITY_TICKS = 30; // 0.5 seconds at 60 FPS
+    static final int STATE_BYTES = 4; // Invulnerability ticks remaining
+    private final EntityStore store;
+    private final int slot;
+    private final TimerWheel timers;
+
+    public StatusComponent(EntityStore store, int slot, TimerWheel timers) {
+        this.store = store;
+        this.slot = slot;
+        this.timers = timers;
+    }
+
+    // Expiry is a TimerWheel callback rather than a per-tick countdown
+    public void setInvulnerable(boolean invulnerable) {
+        store.invulnerable[slot] = invulnerable;
+        timers.cancel(store.invulnerabilityTimer[slot]);
+        store.invulnerabilityTimer[slot] = invulnerable
+                ? timers.schedule(INVULNERABILITY_TICKS, this, 0) : TimerWheel.NONE;
+    }
+
+    @Override
+    public void onTimer(int kind) {
+        store.invulnerable[slot] = false;
+        store.invulnerabilityTimer[slot] = TimerWheel.NONE;
+    }
+
+    public void cancelTimers() {
+        store.invulnerabilityTimer[slot] = timers.cancel(store.invulnerabilityTimer[slot]);
+    }
+
+    void writeState(ByteBuffer out) {
+        out.putInt(timers.getRemaining(store.invulnerabilityTimer[slot]));
+    }
+
+    void readState(ByteBuffer in) {
+        cancelTimers();
+        int ticks = in.getInt();
+        store.invulnerable[slot] = ticks > 0;
+        if (ticks > 0) store.invulnerabilityTimer[slot] = timers.schedule(ticks, this, 0);
+    }
+
+    // Getters
+    public boolean isInvulnerable() { return store.invulnerable[slot]; }
+    
+    public int getInvulnerabilityTimer() { return timers.getRemaining(store.invulnerabilityTimer[slot]); }
+}
@@ -0,0 +1,265 @@
+package com.dn.mygame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Teleporter travel: the fade-out, stepping off the exit, and the fallbacks when the exit is
+ * boxed in. Every countdown is a {@link TimerWheel} timer, so nothing runs per tick unless
+ * the entity is waiting to be drawn centred on its tile.
+ */
+public class TeleportationComponent implements TimerWheel.Callback {
+    private static final int TELEPORT_END = 0;
+    private static final int TELEPORT_BACK = 1;
+    private static final int CENTER_WAIT = 2;
+
+    // Saved state: flags, the teleporter left, the delayed target, and the end, back and
+    // centre-wait timers as ticks remaining
+    static final int STATE_BYTES = 1 + 8 + 8 + 4 + 4 + 4;
+    private static final int SAVED_JUST_TELEPORTED = 1;
+    private static final int SAVED_NEEDS_BACK = 2;
+    private static final int SAVED_WAITING = 4;
+    private static final int SAVED_WAIT_STARTED = 8;
+    private static final int SAVED_TARGET = 16;
+    private static final int[][] EXIT_DIRECTIONS = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+
+    private Entity entity;
+    private final TimerWheel timers;
+    private boolean needsTeleportBack = false;
+    private int teleportBackTimer = TimerWheel.NONE;
+    private boolean justTeleported = false;
+    private int lastTeleportedX = -999, lastTeleportedY = -999;
+    private boolean isTeleporting = false;
+    private int teleportTimer = TimerWheel.NONE;
+    private final int teleportDuration = 10;
+    private boolean hasDelayedTarget = false;
+    private int delayedTargetX, delayedTargetY;
+    private boolean waitingForCenter = false;
+    private int delayedActionTimer = TimerWheel.NONE;
+    private boolean centerWaitStarted = false;
+    private final int CENTER_WAIT_DURATION = 5 * 60;
+    private final int postTeleportWaitDuration = 5 * 60;
+
+    public TeleportationComponent(Entity entity, TimerWheel timers) {
+        this.entity = entity;
+        this.timers = timers;
+    }
+
+    public void handleTeleport(TileMap map) {
+        if (justTeleported || isTeleporting) return;
+
+        float tileSize = entity.getTileMap().getTileSize();
+        float centerThreshold = tileSize * 0.25f;
+        float drawX = entity.getDrawX();
+        float drawY = entity.getDrawY();
+        int currentX = entity.getX();
+        int currentY = entity.getY();
+
+        float offsetX = Math.abs(drawX - currentX * tileSize);
+        float offsetY = Math.abs(drawY - currentY * tileSize);
+
+        if (offsetX > centerThreshold || offsetY > centerThreshold) return;
+
+        TileMap.Point destination = map.getTeleporterDestination(currentX, currentY);
+        if (destination == null) return;
+
+        lastTeleportedX = currentX;
+        lastTeleportedY = currentY;
+        startTeleportTimer();
+        justTeleported = true;
+
+        entity.setPosition(destination.x, destination.y);
+        int destChunkX = Math.floorDiv(destination.x, TileMap.CHUNK_SIZE);
+        int destChunkY = Math.floorDiv(destination.y, TileMap.CHUNK_SIZE);
+        // Just the destination's neighbours; the simulation ring catches up next tick
+        map.loadChunks(destChunkX - 1, destChunkY - 1, destChunkX + 1, destChunkY + 1);
+
+        waitingForCenter = false;
+        centerWaitStarted = false;
+        hasDelayedTarget = false;
+        delayedActionTimer = timers.cancel(delayedActionTimer);
+    }
+
+    @Override
+    public void onTimer(int kind) {
+        if (kind == TELEPORT_END) {
+            teleportTimer = TimerWheel.NONE;
+            isTeleporting = false;
+            entity.snapToPosition();
+            if (justTeleported) {
+                justTeleported = false;
+                attemptImmediateMovement(entity.getTileMap());
+            }
+        } else if (kind == TELEPORT_BACK) {
+            teleportBackTimer = TimerWheel.NONE;
+            if (!isCentered()) {
+                teleportBackTimer = timers.schedule(1, this, TELEPORT_BACK); // Wait for easing
+                return;
+            }
+            if (lastTeleportedX != -999 && lastTeleportedY != -999) {
+                entity.setPosition(lastTeleportedX, lastTeleportedY);
+                entity.snapToPosition();
+                startTeleportTimer();
+            }
+            needsTeleportBack = false;
+        } else {
+            delayedActionTimer = TimerWheel.NONE;
+            pollCenterWait();
+        }
+    }
+
+    // The wait starts once the entity is drawn centred; polled per tick only until then
+    private void pollCenterWait() {
+        if (!isCentered()) {
+            delayedActionTimer = timers.schedule(1, this, CENTER_WAIT);
+            return;
+        }
+        if (!centerWaitStarted) {
+            centerWaitStarted = true;
+            delayedActionTimer = timers.schedule(CENTER_WAIT_DURATION, this, CENTER_WAIT);
+            return;
+        }
+        if (hasDelayedTarget) {
+            entity.setPosition(delayedTargetX, delayedTargetY);
+        } else if (lastTeleportedX != -999 && lastTeleportedY != -999) {
+            entity.setPosition(lastTeleportedX, lastTeleportedY);
+            entity.snapToPosition();
+            startTeleportTimer();
+        }
+        waitingForCenter = false;
+        centerWaitStarted = false;
+        hasDelayedTarget = false;
+    }
+
+    private void startTeleportTimer() {
+        isTeleporting = true;
+        timers.cancel(teleportTimer);
+        teleportTimer = timers.schedule(teleportDuration, this, TELEPORT_END);
+    }
+
+    private void startCenterWait() {
+        waitingForCenter = true;
+        centerWaitStarted = false;
+        timers.cancel(delayedActionTimer);
+        pollCenterWait();
+    }
+
+    private boolean isCentered() {
+        float tileSize = entity.getTileMap().getTileSize();
+        int targetX = entity.getX() * (int) tileSize;
+        int targetY = entity.getY() * (int) tileSize;
+        return Math.abs(entity.getDrawX() - targetX) <= tileSize * 0.1f
+                && Math.abs(entity.getDrawY() - targetY) <= tileSize * 0.1f;
+    }
+
+    private void attemptImmediateMovement(TileMap map) {
+        int facingDx = entity.getFacingDx();
+        int facingDy = entity.getFacingDy();
+        int x = entity.getX();
+        int y = entity.getY();
+
+        int fx = x + facingDx;
+        int fy = y + facingDy;
+        if (map.isTraversable(fx, fy) && !map.isTeleporter(fx, fy) && !map.isObstacle(fx, fy)) {
+            entity.setPosition(fx, fy);
+            return;
+        }
+
+        for (int[] dir : EXIT_DIRECTIONS) {
+            int checkX = x + dir[0];
+            int checkY = y + dir[1];
+            if (map.isTraversable(checkX, checkY) && !map.isTeleporter(checkX, checkY)) {
+                entity.setPosition(checkX, checkY);
+                entity.setFacingDirection(dir[0], dir[1]);
+                return;
+            }
+        }
+
+        boolean foundOther = false;
+        for (int[] dir : EXIT_DIRECTIONS) {
+            int checkX = x + dir[0];
+            int checkY = y + dir[1];
+            if (map.isTraversable(checkX, checkY)) {
+                hasDelayedTarget = true;
+                delayedTargetX = checkX;
+                delayedTargetY = checkY;
+                entity.setFacingDirection(dir[0], dir[1]);
+                foundOther = true;
+                startCenterWait();
+                break;
+            }
+        }
+
+        if (!foundOther) {
+            hasDelayedTarget = false;
+            needsTeleportBack = true;
+            timers.cancel(teleportBackTimer);
+            teleportBackTimer = timers.schedule(postTeleportWaitDuration, this, TELEPORT_BACK);
+            startCenterWait();
+        }
+    }
+
+    public void reset() {
+        needsTeleportBack = false;
+        waitingForCenter = false;
+        centerWaitStarted = false;
+        hasDelayedTarget = false;
+        teleportBackTimer = timers.cancel(teleportBackTimer);
+        delayedActionTimer = timers.cancel(delayedActionTimer);
+    lastTeleportedX = -999;
+    lastTeleportedY = -999;
+    }
+
+    public void cancelTimers() {
+        teleportTimer = timers.cancel(teleportTimer);
+        teleportBackTimer = timers.cancel(teleportBackTimer);
+        delayedActionTimer = timers.cancel(delayedActionTimer);
+    }
+
+    void writeState(ByteBuffer out) {
+        out.put((byte) ((justTeleported ? SAVED_JUST_TELEPORTED : 0)
+                | (needsTeleportBack ? SAVED_NEEDS_BACK : 0)
+                | (waitingForCenter ? SAVED_WAITING : 0)
+                | (centerWaitStarted ? SAVED_WAIT_STARTED : 0)
+                | (hasDelayedTarget ? SAVED_TARGET : 0)));
+        out.putInt(lastTeleportedX).putInt(lastTeleportedY);
+        out.putInt(hasDelayedTarget ? delayedTargetX : 0);
+        out.putInt(hasDelayedTarget ? delayedTargetY : 0);
+        out.putInt(timers.getRemaining(teleportTimer));
+        out.putInt(timers.getRemaining(teleportBackTimer));
+        out.putInt(timers.getRemaining(delayedActionTimer));
+    }
+
+    void readState(ByteBuffer in) {
+        cancelTimers();
+        int flags = in.get();
+        justTeleported = (flags & SAVED_JUST_TELEPORTED) != 0;
+        needsTeleportBack = (flags & SAVED_NEEDS_BACK) != 0;
+        waitingForCenter = (flags & SAVED_WAITING) != 0;
+        centerWaitStarted = (flags & SAVED_WAIT_STARTED) != 0;
+        lastTeleportedX = in.getInt();
+        lastTeleportedY = in.getInt();
+        hasDelayedTarget = (flags & SAVED_TARGET) != 0;
+        delayedTargetX = in.getInt();
+        delayedTargetY = in.getInt();
+        int endTicks = in.getInt();
+        isTeleporting = endTicks > 0;
+        if (isTeleporting) teleportTimer = timers.schedule(endTicks, this, TELEPORT_END);
+        int backTicks = in.getInt();
+        if (backTicks > 0) teleportBackTimer = timers.schedule(backTicks, this, TELEPORT_BACK);
+        int waitTicks = in.getInt();
+        if (waitTicks > 0) delayedActionTimer = timers.schedule(waitTicks, this, CENTER_WAIT);
+    }
+
+    // Getters and setters
+    public boolean isTeleporting() { return isTeleporting; }
+    public boolean isWaitingForCenter() {
+        return waitingForCenter;
+    }
+
+    public boolean needsTeleportBack() {
+        return needsTeleportBack;
+    }
+    
+    public int getTeleportDuration() { return teleportDuration; }
+    public int getTeleportTimer() { return timers.getRemaining(teleportTimer); }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.dn.mygame;
+
+/**
+ * Everything the player did during one tick, as the D-pad reported it.
+ *
+ * <p>The simulation consumes only this, never the D-pad or touch events directly, so a tick
+ * can be recorded and replayed exactly. Directions are small codes rather than strings.
+ */
+public class TickInput {
+    public static final int NONE = 0;
+    public static final int UP = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 3;
+    public static final int RIGHT = 4;
+    public static final int UP_LEFT = 5;
+    public static final int UP_RIGHT = 6;
+    public static final int DOWN_LEFT = 7;
+    public static final int DOWN_RIGHT = 8;
+    public static final int CENTER = 9;
+
+    private static final int[] DX = {0, 0, 0, -1, 1, -1, 1, -1, 1, 0};
+    private static final int[] DY = {0, -1, 1, 0, 0, -1, -1, 1, 1, 0};
+
+    public int heldDirection = NONE;
+    public boolean centerHeld = false;
+    public boolean running = false;
+    public int pressedDirection = NONE; // Direction touched down this tick
+    public int dashDirection = NONE; // Triple tap this tick
+
+    // Replay only: how many NPCs the AI scheduler visited before its time budget ran out
+    public int aiVisits = -1;
+
+    // Live only: SimClock.nanoTime stamp of the oldest touch that set a direction this tick
+    public long touchNanos = 0;
+
+    public void clear() {
+        heldDirection = NONE;
+        centerHeld = false;
+        running = false;
+        pressedDirection = NONE;
+        dashDirection = NONE;
+        aiVisits = -1;
+        touchNanos = 0;
+    }
+
+    public static int dx(int direction) { return DX[direction]; }
+    public static int dy(int direction) { return DY[direction]; }
+
+}
@@ -0,0 +1,820 @@
+package com.dn.mygame;
+
+import java.util.*;
+
+public class TileMap {
+    // Logic constants
+    public static final int SPAWN = 0;
+    public static final int CHECKPOINT = 1;
+    public static final int OBSTACLE = 2;
+    public static final int SPACE = 3; // Traversable tileblock space
+    public static final int SLIPPERY = 4;
+    public static final int DYNAMIC_PIT = 5;
+    public static final int PERMANENT_PIT = 6;
+    public static final int JUMP_PAD = 7;
+    public static final int TELEPORTER = 8;
+
+    // Chunk config
+    public static final int CHUNK_SIZE = 16;
+    // Generation is seeded from chunk coordinates only; recorded so replays can detect changes
+    public static final long WORLD_SEED = 0L;
+    // Chunk config updates
+    private static final int MAX_CACHED_CHUNKS = 100; // Added to limit total chunks
+
+    // Windows whose chunks are streamed in and never evicted (camera, simulation ring)
+    private final List<ChunkWindow> chunkWindows = new ArrayList<>();
+    private int[] streamedVersions = new int[0];
+
+    // Simulation time driving tile animations (dynamic pits etc.)
+    private long simulationTimeMillis = 0;
+    private long lastUpdateTime = 0; // Driver's SimClock time of the last update; see startClock
+    private static final long MAX_UPDATE_STEP = 100L; // Don't jump ahead after a pause
+    // Teleporter exits by chunk key, chunk-relative. They stay after the chunk generates so an
+    // evicted or saved chunk regenerates with its exit
+    private final LongObjectMap<List<Point>> placedTeleporters = new LongObjectMap<>();
+
+    // Teleporter pairs by packed world position
+    private final LongObjectMap<Point> telePairs = new LongObjectMap<>();
+
+    // Chunk cache by packed chunk coordinates, and the keys in load order for eviction
+    private final LongObjectMap<TileData[][]> chunks = new LongObjectMap<>(2 * MAX_CACHED_CHUNKS);
+    private long[] chunkLoadOrder = new long[2 * MAX_CACHED_CHUNKS];
+    private int chunkLoadCount = 0;
+
+    // Tile IDs and logic; bitmaps stay with the app's TileLibrary
+    private final TileRegistry lib;
+    private long generatedChunks = 0;
+
+    // Entity occupancy by tile and chunk, and batched component state
+    private final EntityStore entityStore = new EntityStore();
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+    private final PathFinder pathFinder = new PathFinder(this);
+    private final TileTriggers tileTriggers = new TileTriggers(this, entityStore);
+    private final TimerWheel timerWheel = new TimerWheel();
+
+    // Update noise parameters (REPLACE EXISTING)
+    private static final double BIOME_SCALE = 1 / 128.0; // Larger biome areas
+    private static final double ELEVATION_BIAS = 0.2; // More mountainous areas
+    private static final double MOISTURE_BIAS = -0.1; // Drier overall
+    private static final double WATER_SCALE = 1 / 64.0; // Larger water bodies
+    private static final double OCEAN_THRESHOLD = 0.55; // 55% of world as water
+    private static final double DEEP_WATER_RATIO = 0.6; // 60% of water is deep
+
+    // Spawn-area tile prewarming
+    private static final int PREWARM_CHUNK_RADIUS = 3;
+    private static final int PREWARM_SAMPLE_STEP = 4;
+
+    public TileMap(TileRegistry lib) {
+        this.lib = lib;
+    }
+
+    // Tiles used by the biomes around spawn, for the renderer to compose ahead of time
+    public Set<Byte> getSpawnTileIds() {
+        Set<Byte> ids = new LinkedHashSet<>(Arrays.asList(
+                TileRegistry.SPAWNPOINT, TileRegistry.PORTAL,
+                TileRegistry.PIT_ACTIVE, TileRegistry.PIT_INACTIVE,
+                TileRegistry.FIT_TREE_BASE, TileRegistry.FIT_TREE_CONTINUOUS, TileRegistry.FIT_TREE_TOP));
+        int extent = (PREWARM_CHUNK_RADIUS + 1) * CHUNK_SIZE;
+        for (int y = -extent; y < extent; y += PREWARM_SAMPLE_STEP) {
+            for (int x = -extent; x < extent; x += PREWARM_SAMPLE_STEP) {
+                byte base = getBaseTerrain(x, y, null);
+                ids.add(base);
+                // Feature overlays each biome can place on its base
+                switch (base) {
+                    case TileRegistry.SHALLOW_WATER:
+                        ids.add(TileRegistry.DEEP_WATER);
+                        break;
+                    case TileRegistry.SNOWY_GROUND:
+                        ids.add(TileRegistry.ICE_SHEET);
+                        break;
+                    case TileRegistry.MARSHLAND:
+                        ids.add(TileRegistry.BUSH);
+                        break;
+                    default:
+                        ids.add(TileRegistry.BUSH);
+                        ids.add(TileRegistry.DEAD_TRUNK);
+                }
+            }
+        }
+        return ids;
+    }
+
+    public int getTileSize() {
+        return lib.getTileSize();
+    }
+
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    public EntityStore getEntityStore() {
+        return entityStore;
+    }
+
+    public PathFinder getPathFinder() {
+        return pathFinder;
+    }
+
+    public TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    public TileTriggers getTileTriggers() {
+        return tileTriggers;
+    }
+
+    public TileRegistry getTileRegistry() {
+        return lib;
+    }
+
+    // Chunks generated since the map was created, including regenerated evictions
+    public long getGeneratedChunkCount() {
+        return generatedChunks;
+    }
+
+    // Advance simulation time to the tick's SimClock time
+    public void update(long now) {
+        long step = Math.max(0, Math.min(MAX_UPDATE_STEP, now - lastUpdateTime));
+        simulationTimeMillis += step;
+        lastUpdateTime = now;
+    }
+
+    public long getSimulationTimeMillis() { return simulationTimeMillis; }
+    public long getLastUpdateMillis() { return lastUpdateTime; }
+
+    // Line the map up with the clock that will drive it, so the first update is one tick long
+    public void startClock(long now) {
+        lastUpdateTime = now;
+    }
+
+    // Restore the clock a recorded session started from
+    public void setClock(long simulationTimeMillis, long lastUpdateMillis) {
+        this.simulationTimeMillis = simulationTimeMillis;
+        this.lastUpdateTime = lastUpdateMillis;
+    }
+
+    public Point getSpawnPoint() {
+        // Check if chunk (0,0) is already loaded
+        long homeKey = LongObjectMap.key(0, 0);
+        if (!chunks.containsKey(homeKey)) {
+            loadChunk(0, 0, homeKey);
+        }
+
+        TileData[][] home = chunks.get(homeKey);
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                if (getLogic(home[y][x]) == SPAWN) {
+                    return new Point(x, y); // Chunk-relative coordinates
+                }
+            }
+        }
+        return new Point(CHUNK_SIZE / 2, CHUNK_SIZE / 2);
+    }
+
+    // Stream a window's chunks from now on and keep them out of eviction
+    public void addChunkWindow(ChunkWindow window) {
+        chunkWindows.add(window);
+        streamedVersions = Arrays.copyOf(streamedVersions, chunkWindows.size());
+    }
+
+    // Load the prefetch chunks of every window that crossed a chunk boundary since last call
+    public void streamChunks() {
+        boolean loaded = false;
+        for (int i = 0; i < chunkWindows.size(); i++) {
+            ChunkWindow window = chunkWindows.get(i);
+            if (window.getVersion() == streamedVersions[i]) continue;
+            streamedVersions[i] = window.getVersion();
+            loaded |= loadChunks(window.getPrefetchMinX(), window.getPrefetchMinY(),
+                    window.getPrefetchMaxX(), window.getPrefetchMaxY());
+        }
+        if (loaded) evictOldChunks();
+    }
+
+    // Generate whichever chunks in the inclusive rectangle are missing; true if any were
+    public boolean loadChunks(int minCx, int minCy, int maxCx, int maxCy) {
+        boolean loaded = false;
+        for (int cy = minCy; cy <= maxCy; cy++) {
+            for (int cx = minCx; cx <= maxCx; cx++) {
+                long key = LongObjectMap.key(cx, cy);
+                if (!chunks.containsKey(key)) {
+                    loadChunk(cx, cy, key);
+                    loaded = true;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private boolean isInChunkWindow(int cx, int cy) {
+        for (int i = 0; i < chunkWindows.size(); i++) {
+            if (chunkWindows.get(i).isPrefetched(cx, cy)) return true;
+        }
+        return false;
+    }
+
+    public TileData getTile(int worldX, int worldY) {
+        int cx = Math.floorDiv(worldX, CHUNK_SIZE); // Direct use of Math.floorDiv
+        int cy = Math.floorDiv(worldY, CHUNK_SIZE);
+        long key = LongObjectMap.key(cx, cy);
+
+        TileData[][] chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = loadChunk(cx, cy, key);
+            evictOldChunks();
+        }
+
+        int lx = Math.floorMod(worldX, CHUNK_SIZE); // Direct use of Math.floorMod
+        int ly = Math.floorMod(worldY, CHUNK_SIZE);
+        return chunk[ly][lx];
+    }
+
+    // Tile at a position if its chunk is loaded, null otherwise; never generates
+    public TileData getLoadedTile(int worldX, int worldY) {
+        int cx = Math.floorDiv(worldX, CHUNK_SIZE);
+        int cy = Math.floorDiv(worldY, CHUNK_SIZE);
+        TileData[][] chunk = chunks.get(LongObjectMap.key(cx, cy));
+        if (chunk == null) return null;
+        return chunk[Math.floorMod(worldY, CHUNK_SIZE)][Math.floorMod(worldX, CHUNK_SIZE)];
+    }
+
+    // A loaded chunk's rows for bulk readers like the renderer, or null; do not modify
+    TileData[][] getLoadedChunk(int chunkX, int chunkY) {
+        return chunks.get(LongObjectMap.key(chunkX, chunkY));
+    }
+
+    // Copy a loaded chunk's placed logic (row-major, ignoring animation) without generating it
+    public boolean copyChunkLogic(int chunkX, int chunkY, byte[] out) {
+        TileData[][] chunk = chunks.get(LongObjectMap.key(chunkX, chunkY));
+        if (chunk == null) return false;
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                out[y * CHUNK_SIZE + x] = (byte) getLogic(chunk[y][x]);
+            }
+        }
+        return true;
+    }
+
+    private TileData[][] loadChunk(int cx, int cy, long key) {
+        TileData[][] chunk = generateChunk(cx, cy);
+        if (chunks.put(key, chunk) == null) { // A regenerated chunk keeps its place in line
+            if (chunkLoadCount == chunkLoadOrder.length) {
+                chunkLoadOrder = Arrays.copyOf(chunkLoadOrder, chunkLoadCount * 2);
+            }
+            chunkLoadOrder[chunkLoadCount++] = key;
+        }
+        generatedChunks++;
+        pathFinder.invalidateChunk(cx, cy);
+        return chunk;
+    }
+
+    // Whether the chunk holding this tile is cached, without generating it
+    public boolean isChunkLoaded(int worldX, int worldY) {
+        int cx = Math.floorDiv(worldX, CHUNK_SIZE);
+        int cy = Math.floorDiv(worldY, CHUNK_SIZE);
+        return chunks.containsKey(LongObjectMap.key(cx, cy));
+    }
+
+    // The generator and its stages are package-private so the benchmarks can time each one
+    TileData[][] generateChunk(int cx, int cy) {
+        boolean[][] hasPit = new boolean[CHUNK_SIZE][CHUNK_SIZE];
+        // Phase 1: Base terrain with pits, using hasPit for proximity checks
+        TileData[][] baseChunk = createBaseChunk(cx, cy, hasPit);
+        // Phase 2: Add pit clusters with proximity checks
+        TileData[][] withPits = addPitClusters(baseChunk, cx, cy, hasPit);
+        // Remaining phases unchanged
+        TileData[][] connectedChunk = processConnections(withPits, cx, cy);
+        return addVerticalStructures(connectedChunk, cx, cy);
+    }
+
+    TileData[][] addPitClusters(
+            TileData[][] baseChunk, int cx, int cy, boolean[][] hasPit) {
+        Random rnd = new Random((cx * 397) ^ cy + 3);
+        TileData[][] newChunk = deepCopy(baseChunk);
+
+        if (rnd.nextFloat() < 0.1f) {
+            int clusterX = rnd.nextInt(CHUNK_SIZE - 2) + 1;
+            int clusterY = rnd.nextInt(CHUNK_SIZE - 2) + 1;
+
+            for (int y = clusterY - 1; y <= clusterY + 1; y++) {
+                for (int x = clusterX - 1; x <= clusterX + 1; x++) {
+                    if (x >= 0 && x < CHUNK_SIZE && y >= 0 && y < CHUNK_SIZE) {
+                        boolean canPlace = true;
+                        // Proximity check remains the same
+                        for (int dy = -1; dy <= 1 && canPlace; dy++) {
+                            for (int dx = -1; dx <= 1; dx++) {
+                                int nx = x + dx;
+                                int ny = y + dy;
+                                if (nx >= 0
+                                        && nx < CHUNK_SIZE
+                                        && ny >= 0
+                                        && ny < CHUNK_SIZE
+                                        && hasPit[ny][nx]) {
+                                    canPlace = false;
+                                    break;
+                                }
+                            }
+                        }
+                        // Check base using ID
+                        byte baseId = newChunk[y][x].baseId;
+                        if (canPlace
+                                && rnd.nextFloat() < 0.3f
+                                && baseId != TileRegistry.SHALLOW_WATER) {
+                            byte overlayId = rnd.nextBoolean()
+                                    ? TileRegistry.PIT_ACTIVE : TileRegistry.PIT_INACTIVE;
+                            newChunk[y][x] = new TileData(baseId, overlayId);
+
+                            // Mark proximity
+                            for (int dy = -1; dy <= 1; dy++) {
+                                for (int dx = -1; dx <= 1; dx++) {
+                                    int nx = x + dx;
+                                    int ny = y + dy;
+                                    if (nx >= 0 && nx < CHUNK_SIZE && ny >= 0 && ny < CHUNK_SIZE) {
+                                        hasPit[ny][nx] = true;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return newChunk;
+    }
+
+    TileData[][] createBaseChunk(int cx, int cy, boolean[][] hasPit) {
+        TileData[][] chunk = new TileData[CHUNK_SIZE][CHUNK_SIZE];
+        Random rnd = new Random((cx * 397) ^ cy);
+
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                chunk[y][x] = createBaseTile(cx, cy, x, y, rnd, hasPit);
+            }
+        }
+        return chunk;
+    }
+
+    // Add noise generation methods
+    private double noise(double x, double y, double scale) {
+        double fx = x * scale;
+        double fy = y * scale;
+        return (noise2D(fx, fy) * 0.5
+                + (noise2D(fx * 2, fy * 2) * 0.25)
+                + (noise2D(fx * 4, fy * 4) * 0.125));
+    }
+
+    private double noise2D(double x, double y) {
+        int ix = (int) Math.floor(x);
+        int iy = (int) Math.floor(y);
+        double fx = x - ix;
+        double fy = y - iy;
+
+        double n0 = dotGridGradient(ix, iy, x, y);
+        double n1 = dotGridGradient(ix + 1, iy, x, y);
+        double nx0 = lerp(n0, n1, fx);
+
+        n0 = dotGridGradient(ix, iy + 1, x, y);
+        n1 = dotGridGradient(ix + 1, iy + 1, x, y);
+        double nx1 = lerp(n0, n1, fx);
+
+        return lerp(nx0, nx1, fy);
+    }
+
+    private double dotGridGradient(int ix, int iy, double x, double y) {
+        double angle = firstRandomDouble(ix * 374761393 + iy * 668265263) * Math.PI * 2;
+        double dx = x - ix;
+        double dy = y - iy;
+        return dx * Math.cos(angle) + dy * Math.sin(angle);
+    }
+
+    // new Random(seed).nextDouble() without the allocation: two steps of the same LCG
+    private static double firstRandomDouble(long seed) {
+        long mask = (1L << 48) - 1;
+        long state = (seed ^ 0x5DEECE66DL) & mask;
+        state = (state * 0x5DEECE66DL + 0xBL) & mask;
+        long high = state >>> (48 - 26);
+        state = (state * 0x5DEECE66DL + 0xBL) & mask;
+        long low = state >>> (48 - 27);
+        return ((high << 27) + low) * 0x1.0p-53;
+    }
+
+    private double lerp(double a, double b, double t) {
+        return a + t * (b - a);
+    }
+
+    private byte getBaseTerrain(int worldX, int worldY, Random rnd) {
+        // Normalized noise values between -1 and 1
+        double elevation = noise(worldX, worldY, BIOME_SCALE) + ELEVATION_BIAS;
+        double moisture = noise(worldX + 1234, worldY + 5678, BIOME_SCALE) + MOISTURE_BIAS;
+
+        // Normalize to 0-1 range
+        elevation = Math.max(0, Math.min(1, (elevation + 1) / 2));
+        moisture = Math.max(0, Math.min(1, (moisture + 1) / 2));
+
+        // Water generation - add octave blending
+        double water =
+                noise(worldX, worldY, WATER_SCALE) * 0.7
+                        + noise(worldX / 2.0, worldY / 2.0, WATER_SCALE / 2) * 0.3;
+        water = (water + 1) / 2; // Normalize 0-1
+
+        // Ocean core detection
+        if (water > OCEAN_THRESHOLD) {
+            return TileRegistry.SHALLOW_WATER;
+        }
+
+        // Elevation-based biomes
+        if (elevation > 0.65) {
+            return TileRegistry.SNOWY_GROUND; // Mountains
+        } else if (elevation > 0.45) {
+            // Hills
+            return moisture > 0.5 ? TileRegistry.ROCKY_GROUND : TileRegistry.GRASSY_GROUND;
+        } else {
+            // Lowlands
+            return moisture > 0.7
+                    ? TileRegistry.MARSHLAND
+                    : moisture > 0.4 ? TileRegistry.GRASSY_GROUND : TileRegistry.ROCKY_GROUND;
+        }
+    }
+
+    // Updated createBaseTile method
+    private TileData createBaseTile(int cx, int cy, int x, int y, Random rnd, boolean hasPit[][]) {
+        int worldX = cx * CHUNK_SIZE + x;
+        int worldY = cy * CHUNK_SIZE + y;
+
+        // Check for placed teleporter exits first
+        List<Point> placed = placedTeleporters.get(LongObjectMap.key(cx, cy));
+        if (placed != null) {
+            for (int i = 0; i < placed.size(); i++) {
+                Point p = placed.get(i);
+                if (p.x == x && p.y == y) {
+                    return new TileData(TileRegistry.ROCKY_GROUND, TileRegistry.PORTAL);
+                }
+            }
+        }
+
+        // Spawn point handling
+        if (cx == 0 && cy == 0 && x == CHUNK_SIZE / 2 && y == CHUNK_SIZE / 2) {
+            return new TileData(TileRegistry.GRASSY_GROUND, TileRegistry.SPAWNPOINT);
+        }
+
+        // Teleporter generation
+        if (rnd.nextFloat() < 0.002f) {
+            cacheTeleportPair(cx, cy, x, y);
+            return new TileData(TileRegistry.ROCKY_GROUND, TileRegistry.PORTAL);
+        }
+
+        // Get base terrain from noise
+        byte base = getBaseTerrain(worldX, worldY, rnd);
+
+        // Pit placement with proximity check
+        if (base != TileRegistry.SHALLOW_WATER && rnd.nextFloat() < 0.001f) {
+            boolean canPlace = true;
+            // Check 3x3 area around (x,y)
+            for (int dy = -1; dy <= 1 && canPlace; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    int ny = y + dy;
+                    if (nx >= 0
+                            && nx < CHUNK_SIZE
+                            && ny >= 0
+                            && ny < CHUNK_SIZE
+                            && hasPit[ny][nx]) {
+                        canPlace = false;
+                        break;
+                    }
+                }
+            }
+            if (canPlace) {
+                // Mark 3x3 area to prevent nearby pits
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx >= 0 && nx < CHUNK_SIZE && ny >= 0 && ny < CHUNK_SIZE) {
+                            hasPit[ny][nx] = true;
+                        }
+                    }
+                }
+                byte overlayId = rnd.nextBoolean() ? TileRegistry.PIT_ACTIVE : TileRegistry.PIT_INACTIVE;
+                return new TileData(base, overlayId);
+            }
+        }
+
+        // Add features based on terrain type
+        switch (base) {
+            case TileRegistry.SHALLOW_WATER:
+                double deepNoise = noise(worldX / 4.0, worldY / 4.0, WATER_SCALE / 4);
+                deepNoise = (deepNoise + 1) / 2;
+                if (deepNoise > DEEP_WATER_RATIO) {
+                    return new TileData(base, TileRegistry.DEEP_WATER);
+                } else {
+                    return new TileData(base, TileRegistry.EMPTY);
+                }
+
+            case TileRegistry.SNOWY_GROUND:
+                if (rnd.nextFloat() < 0.2) {
+                    return new TileData(base, TileRegistry.ICE_SHEET);
+                } else {
+                    return new TileData(base, TileRegistry.EMPTY);
+                }
+
+            case TileRegistry.MARSHLAND:
+                if (rnd.nextFloat() < 0.15) {
+                    return new TileData(base, TileRegistry.BUSH);
+                } else {
+                    return new TileData(base, TileRegistry.EMPTY);
+                }
+            default: // Grassy/rocky ground
+                if (rnd.nextFloat() < 0.009) {
+                    return new TileData(base, TileRegistry.BUSH);
+                } else {
+                    if (rnd.nextFloat() < 0.003) {
+                        return new TileData(base, TileRegistry.DEAD_TRUNK);
+                    } else {
+                        return new TileData(base, TileRegistry.EMPTY);
+                    }
+                }
+        }
+    }
+
+    TileData[][] processConnections(TileData[][] baseChunk, int cx, int cy) {
+        TileData[][] connected = new TileData[CHUNK_SIZE][CHUNK_SIZE];
+
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                connected[y][x] = getConnectedVariant(baseChunk[y][x], cx, cy, x, y);
+            }
+        }
+        return connected;
+    }
+
+    // Updated connection handling (Handler for future connections
+    private TileData getConnectedVariant(TileData original, int cx, int cy, int x, int y) {
+        // Preserve pit appearances
+        if (isPitOverlay(original.overlayId)) {
+            return original;
+        }
+
+        // Water and ice sheet connections keep their current pieces for now
+        return original;
+    }
+
+    private boolean isPitOverlay(byte overlayId) {
+        return overlayId == TileRegistry.PIT_ACTIVE || overlayId == TileRegistry.PIT_INACTIVE;
+    }
+
+    private boolean isTreeOverlay(byte overlayId) {
+        return overlayId == TileRegistry.FIT_TREE_BASE
+                || overlayId == TileRegistry.FIT_TREE_CONTINUOUS
+                || overlayId == TileRegistry.FIT_TREE_TOP;
+    }
+
+    TileData[][] addVerticalStructures(TileData[][] chunk, int cx, int cy) {
+        TileData[][] finalChunk = deepCopy(chunk);
+        Random rnd = new Random((cx * 397) ^ cy + 1);
+
+        for (int y = CHUNK_SIZE - 1; y >= 0; y--) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                if (canPlaceTree(finalChunk, x, y) && rnd.nextFloat() < 0.03f) {
+                    placeTree(finalChunk, x, y, rnd.nextInt(3) + 2, rnd);
+                }
+            }
+        }
+        return finalChunk;
+    }
+
+    private boolean canPlaceTree(TileData[][] chunk, int x, int baseY) {
+        if (baseY < 3) return false;
+        for (int dy = 0; dy < 3; dy++) {
+            int checkY = baseY - dy;
+            if (checkY < 0) return false;
+            byte overlayId = chunk[checkY][x].overlayId;
+            if (isPitOverlay(overlayId) || isTreeOverlay(overlayId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void placeTree(TileData[][] chunk, int x, int baseY, int height, Random rnd) {
+        for (int dy = 0; dy < height; dy++) {
+            int y = baseY - dy;
+            chunk[y][x] = new TileData(chunk[y][x].baseId, getTreePart(dy, height));
+        }
+    }
+
+    private byte getTreePart(int dy, int height) {
+        if (dy == 0) return TileRegistry.FIT_TREE_BASE;
+        if (dy == height - 1) return TileRegistry.FIT_TREE_TOP;
+        return TileRegistry.FIT_TREE_CONTINUOUS;
+    }
+
+    private TileData[][] deepCopy(TileData[][] original) {
+        TileData[][] copy = new TileData[original.length][];
+        for (int i = 0; i < original.length; i++) {
+            copy[i] = Arrays.copyOf(original[i], original[i].length);
+        }
+        return copy;
+    }
+
+    // New method to preserve teleporters
+    private void cacheTeleportersFromChunk(TileData[][] chunk, int cx, int cy) {
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                if (getLogic(chunk[y][x]) == TELEPORTER) {
+                    long globalPos = LongObjectMap.key(cx * CHUNK_SIZE + x, cy * CHUNK_SIZE + y);
+                    // Ensure pair remains in telePairs
+                    if (!telePairs.containsKey(globalPos)) {
+                        cacheTeleportPair(cx, cy, x, y);
+                    }
+                }
+            }
+        }
+    }
+
+    // Updated cacheTeleportPair for global coordinates
+    private void cacheTeleportPair(int cx, int cy, int x, int y) {
+        Point p1 = new Point(cx * CHUNK_SIZE + x, cy * CHUNK_SIZE + y);
+        Random rnd = new Random((cx * 397) ^ cy); // Deterministic seed
+
+        // Generate pair coordinates using chunk-based seed
+        int dx = rnd.nextInt(30 * CHUNK_SIZE) + 20 * CHUNK_SIZE;
+        int dy = rnd.nextInt(30 * CHUNK_SIZE) + 20 * CHUNK_SIZE;
+        Point p2 = new Point(p1.x + dx, p1.y + dy);
+
+        telePairs.put(LongObjectMap.key(p1.x, p1.y), p2);
+        telePairs.put(LongObjectMap.key(p2.x, p2.y), p1);
+        addPlacedTeleporter(p2.x, p2.y);
+    }
+
+    // Global coordinate handling for placed teleporter exits; regenerating a pair adds nothing
+    private void addPlacedTeleporter(int worldX, int worldY) {
+        int cx = Math.floorDiv(worldX, CHUNK_SIZE);
+        int cy = Math.floorDiv(worldY, CHUNK_SIZE);
+        long chunkKey = LongObjectMap.key(cx, cy);
+
+        List<Point> placed = placedTeleporters.get(chunkKey);
+        if (placed == null) {
+            placed = new ArrayList<>();
+            placedTeleporters.put(chunkKey, placed);
+        }
+        Point local = new Point(worldX - (cx * CHUNK_SIZE), worldY - (cy * CHUNK_SIZE));
+        if (!placed.contains(local)) placed.add(local);
+    }
+
+    // Teleporter pairs as x1, y1, x2, y2 per direction, for saving
+    public int[] copyTeleporterPairs() {
+        int[] out = new int[telePairs.size() * 4];
+        int i = 0;
+        for (int slot = 0; slot < telePairs.capacity(); slot++) {
+            Point destination = telePairs.valueAt(slot);
+            if (destination == null) continue;
+            out[i++] = LongObjectMap.keyX(telePairs.keyAt(slot));
+            out[i++] = LongObjectMap.keyY(telePairs.keyAt(slot));
+            out[i++] = destination.x;
+            out[i++] = destination.y;
+        }
+        return out;
+    }
+
+    // Placed teleporter exits as world x, y, for saving
+    public int[] copyPlacedTeleporters() {
+        int count = 0;
+        for (int slot = 0; slot < placedTeleporters.capacity(); slot++) {
+            List<Point> placed = placedTeleporters.valueAt(slot);
+            if (placed != null) count += placed.size();
+        }
+        int[] out = new int[count * 2];
+        int i = 0;
+        for (int slot = 0; slot < placedTeleporters.capacity(); slot++) {
+            List<Point> placed = placedTeleporters.valueAt(slot);
+            if (placed == null) continue;
+            int originX = LongObjectMap.keyX(placedTeleporters.keyAt(slot)) * CHUNK_SIZE;
+            int originY = LongObjectMap.keyY(placedTeleporters.keyAt(slot)) * CHUNK_SIZE;
+            for (Point p : placed) {
+                out[i++] = originX + p.x;
+                out[i++] = originY + p.y;
+            }
+        }
+        return out;
+    }
+
+    // Merge saved teleporter tables; loaded chunks that gain an exit are regenerated with it
+    public void restoreTeleporters(int[] pairs, int[] placed) {
+        for (int i = 0; i + 3 < pairs.length; i += 4) {
+            telePairs.put(LongObjectMap.key(pairs[i], pairs[i + 1]),
+                    new Point(pairs[i + 2], pairs[i + 3]));
+        }
+        LongObjectMap<TileData[][]> stale = new LongObjectMap<>();
+        for (int i = 0; i + 1 < placed.length; i += 2) {
+            addPlacedTeleporter(placed[i], placed[i + 1]);
+            long key = LongObjectMap.key(Math.floorDiv(placed[i], CHUNK_SIZE),
+                    Math.floorDiv(placed[i + 1], CHUNK_SIZE));
+            TileData[][] chunk = chunks.get(key);
+            if (chunk != null) stale.put(key, chunk);
+        }
+        for (int slot = 0; slot < stale.capacity(); slot++) {
+            if (stale.valueAt(slot) == null) continue;
+            long key = stale.keyAt(slot);
+            loadChunk(LongObjectMap.keyX(key), LongObjectMap.keyY(key), key);
+        }
+    }
+
+    // Evict the oldest chunks no window needs; windows larger than the cache keep it over
+    private void evictOldChunks() {
+        int kept = 0;
+        for (int i = 0; i < chunkLoadCount; i++) {
+            long key = chunkLoadOrder[i];
+            int cx = LongObjectMap.keyX(key), cy = LongObjectMap.keyY(key);
+            if (chunks.size() <= MAX_CACHED_CHUNKS || isInChunkWindow(cx, cy)) {
+                chunkLoadOrder[kept++] = key;
+                continue;
+            }
+
+            // Preserve teleporters before eviction
+            cacheTeleportersFromChunk(chunks.get(key), cx, cy);
+            chunks.remove(key); // Critical addition!
+            pathFinder.invalidateChunk(cx, cy);
+        }
+        chunkLoadCount = kept;
+    }
+
+    // Logic of the placed tile, ignoring animation (used while generating)
+    private int getLogic(TileData td) {
+        byte id = (td.overlayId != 0) ? td.overlayId : td.baseId;
+        return lib.getLogic(id); // Use byte-based logic check
+    }
+
+    // Logic of the frame currently shown at (x, y)
+    private int getLogic(int x, int y) {
+        TileData td = getTile(x, y);
+        byte id = (td.overlayId != 0) ? td.overlayId : td.baseId;
+        return lib.getLogic(lib.resolveFrame(id, x, y, simulationTimeMillis));
+    }
+
+    public boolean isTraversable(int x, int y) {
+        return getLogic(x, y) != OBSTACLE;
+    }
+
+    public boolean isObstacle(int x, int y) {
+        return getLogic(x, y) == OBSTACLE;
+    }
+
+    // Dynamic pits are pits while their animation shows a permanent-pit frame
+    public boolean isPit(int x, int y) {
+        return getLogic(x, y) == PERMANENT_PIT;
+    }
+
+    public boolean isJumpPad(int x, int y) {
+        return getLogic(x, y) == JUMP_PAD;
+    }
+
+    public boolean isTeleporter(int x, int y) {
+        return getLogic(x, y) == TELEPORTER;
+    }
+
+    public boolean isCheckpoint(int x, int y) {
+        return getLogic(x, y) == CHECKPOINT;
+    }
+
+    public boolean isSlippery(int x, int y) {
+        return getLogic(x, y) == SLIPPERY;
+    }
+
+    public Point getTeleporterDestination(int x, int y) {
+        return telePairs.get(LongObjectMap.key(x, y));
+    }
+
+    public static class Point {
+        public final int x, y;
+
+        public Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Point)) return false;
+            Point p = (Point) o;
+            return x == p.x && y == p.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + y;
+        }
+    }
+
+    public static class TileData {
+        public final byte baseId;
+        public final byte overlayId;
+        public final byte flags;
+
+        // Remove static idMap and getOrCreateId
+        public TileData(byte baseId, byte overlayId) {
+            this.baseId = baseId;
+            this.overlayId = overlayId;
+            this.flags = 0;
+        }
+    }
+}
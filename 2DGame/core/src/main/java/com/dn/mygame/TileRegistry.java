@@ -0,0 +1,285 @@
+package com.dn.mygame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tile IDs, names, logic and animation frames, without any bitmaps.
+ *
+ * <p>This is everything the simulation needs to know about tiles. The app's {@link
+ * TileLibrary} extends it with the decoded tileset; headless runs read the compiled tiles.bin
+ * table straight into a plain registry.
+ *
+ * <p>The registry is frozen once loading finishes: logic, names and frames are dense arrays
+ * indexed by tile ID, so lookups never allocate or mutate and are safe from any thread. The
+ * loading-time setters throw after {@link #freeze}, so nothing can change a tile under a
+ * running simulation.
+ */
+public class TileRegistry {
+    public static final int TILE_SIZE = 64; // World pixels per tile
+    public static final int MAX_TILES = 256; // IDs are unsigned bytes
+    static final int TILE_TABLE_MAGIC = 0x54494C45; // "TILE"
+    static final int TILE_TABLE_VERSION = 2;
+
+    // Built-in tile IDs, fixed regardless of asset order
+    public static final byte EMPTY = 0; // No tile (e.g. no overlay)
+    public static final byte NOTHING = 1;
+    public static final byte GRASSY_GROUND = 2;
+    public static final byte MARSHLAND = 3;
+    public static final byte ROCKY_GROUND = 4;
+    public static final byte SNOWY_GROUND = 5;
+    public static final byte SHALLOW_WATER = 6;
+    public static final byte BUSH = 7;
+    public static final byte FIT_TREE_TOP = 8;
+    public static final byte FIT_TREE_BASE = 9;
+    public static final byte FIT_TREE_CONTINUOUS = 10;
+    public static final byte DEAD_TRUNK = 11;
+    public static final byte DEEP_WATER = 12;
+    public static final byte SPAWNPOINT = 13;
+    public static final byte CHECKPOINT = 14;
+    public static final byte JUMP_PAD = 15;
+    public static final byte PIT_ACTIVE = 16;
+    public static final byte PIT_INACTIVE = 17;
+    public static final byte PORTAL = 18;
+    public static final byte ICE_SHEET = 19;
+
+    // Names of the built-in IDs above, indexed by ID
+    private static final String[] BUILT_IN_NAMES = {
+        null,
+        "nothing",
+        "grassy-ground",
+        "marshland",
+        "rocky-ground",
+        "snowy-ground",
+        "shallow-water",
+        "bush",
+        "fit-tree-top",
+        "fit-tree-base",
+        "fit-tree-continuous",
+        "dead-trunk",
+        "deep-water",
+        "spawnpoint",
+        "checkpoint",
+        "jump-pad",
+        "pit-active",
+        "pit-inactive",
+        "portal",
+        "ice-sheet"
+    };
+
+    // ID registry, only written while loading
+    private final Map<String, Byte> nameToId = new HashMap<>();
+    private final String[] names = new String[MAX_TILES];
+    private final int[] logicById = new int[MAX_TILES];
+    private final PieceSpec[] specById = new PieceSpec[MAX_TILES];
+    private int tileCount;
+    private boolean frozen; // Set once loading finishes; the tables are read-only after
+
+    // Animated tiles: frames by ID (null when static), frame duration and phase mode
+    private final byte[][] animFrames = new byte[MAX_TILES][];
+    private final int[] animFrameMillis = new int[MAX_TILES];
+    private final boolean[] animPhaseFromPosition = new boolean[MAX_TILES];
+
+    public TileRegistry() {
+        resetRegistry();
+    }
+
+    public int getTileSize() {
+        return TILE_SIZE;
+    }
+
+    /** Number of registered IDs, including EMPTY */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /** Get byte ID for texture name; unknown names and null map to EMPTY */
+    public byte getId(String name) {
+        Byte id = nameToId.get(name);
+        return id != null ? id : EMPTY;
+    }
+
+    /** Get texture name from byte ID */
+    public String getName(byte id) {
+        String name = names[id & 0xFF];
+        return name != null ? name : "";
+    }
+
+    /** Get logic constant by ID */
+    public int getLogic(byte id) {
+        return logicById[id & 0xFF];
+    }
+
+    /** Whether the tile cycles through animation frames */
+    public boolean isAnimated(byte id) {
+        return animFrames[id & 0xFF] != null;
+    }
+
+    /**
+     * Resolve an animated tile to the frame shown at the given time; static tiles return
+     * themselves. Tiles with a position phase hash their world coordinates so neighbours do
+     * not switch in lockstep.
+     */
+    public byte resolveFrame(byte id, int worldX, int worldY, long timeMillis) {
+        int index = id & 0xFF;
+        byte[] frames = animFrames[index];
+        if (frames == null) return id;
+
+        int frameMillis = animFrameMillis[index];
+        long cycleMillis = (long) frameMillis * frames.length;
+        long t = timeMillis;
+        if (animPhaseFromPosition[index]) {
+            t += positionHash(worldX, worldY) % cycleMillis;
+        }
+        return frames[(int) ((t / frameMillis) % frames.length)];
+    }
+
+    private static int positionHash(int x, int y) {
+        int h = x * 0x9E3779B1 ^ y * 0x85EBCA77;
+        h ^= h >>> 15;
+        h *= 0x2C1B3C6D;
+        h ^= h >>> 12;
+        return h & 0x7FFFFFFF;
+    }
+
+    /** Four-piece layout of a tile, or null when it has no pieces */
+    PieceSpec getPieces(int index) {
+        return specById[index];
+    }
+
+    /** Clear the registry back to the built-in IDs */
+    void resetRegistry() {
+        checkLoading();
+        nameToId.clear();
+        Arrays.fill(names, null);
+        Arrays.fill(logicById, TileMap.SPACE);
+        Arrays.fill(specById, null);
+        Arrays.fill(animFrames, null);
+        Arrays.fill(animFrameMillis, 0);
+        Arrays.fill(animPhaseFromPosition, false);
+        tileCount = 1; // 0 reserved for empty
+        for (int i = 1; i < BUILT_IN_NAMES.length; i++) {
+            register(BUILT_IN_NAMES[i]);
+        }
+    }
+
+    /** Assign the next free ID to a name; only called while loading */
+    int register(String name) {
+        checkLoading();
+        Byte existing = nameToId.get(name);
+        if (existing != null) return existing & 0xFF;
+        if (tileCount >= MAX_TILES) {
+            throw new IllegalStateException("Too many tiles for byte IDs: " + name);
+        }
+        int id = tileCount++;
+        nameToId.put(name, (byte) id);
+        names[id] = name;
+        return id;
+    }
+
+    // Loading-time setters shared by the table and JSON loaders
+    void setLogic(int id, int logic) {
+        checkLoading();
+        logicById[id] = logic;
+    }
+
+    void setPieces(int id, PieceSpec spec) {
+        checkLoading();
+        specById[id] = spec;
+    }
+
+    void setAnimation(int id, byte[] frames, int frameMillis, boolean phaseFromPosition) {
+        checkLoading();
+        animFrames[id] = frames;
+        animFrameMillis[id] = frameMillis;
+        animPhaseFromPosition[id] = phaseFromPosition;
+    }
+
+    /** End loading; the setters and loaders throw from here on */
+    void freeze() {
+        frozen = true;
+    }
+
+    private void checkLoading() {
+        if (frozen) throw new IllegalStateException("Tile registry is frozen after loading");
+    }
+
+    /**
+     * Read the compiled tile table in one pass and freeze the registry. A bad header or a
+     * truncated table throws and leaves the registry at its built-in IDs and unfrozen, so a
+     * fallback loader can start clean.
+     */
+    public void loadTable(InputStream is) throws IOException {
+        checkLoading();
+        byte[] data = new byte[Math.max(is.available(), 4096)];
+        int read = 0;
+        while (true) {
+            if (read == data.length) data = Arrays.copyOf(data, data.length * 2);
+            int n = is.read(data, read, data.length - read);
+            if (n < 0) break;
+            read += n;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(data, 0, read);
+
+        if (buf.remaining() < 8
+                || buf.getInt() != TILE_TABLE_MAGIC
+                || buf.getShort() != TILE_TABLE_VERSION) {
+            throw new IOException("Tile table has an unknown header");
+        }
+
+        try {
+            int count = buf.getShort();
+            int[] tableIds = new int[count]; // Table order to registry ID
+            byte[] nameBytes = new byte[255];
+            for (int i = 0; i < count; i++) {
+                int nameLength = buf.get() & 0xFF;
+                buf.get(nameBytes, 0, nameLength);
+                String name = new String(nameBytes, 0, nameLength, "UTF-8");
+                int id = register(name);
+                tableIds[i] = id;
+                logicById[id] = buf.get();
+
+                int pieces = buf.get();
+                if (pieces == 0) continue;
+                PieceSpec spec = new PieceSpec();
+                for (int p = 0; p < pieces; p++) {
+                    spec.sliceIds[p] = buf.getShort();
+                    int flip = buf.get();
+                    spec.flipH[p] = (flip & 0x01) != 0;
+                    spec.flipV[p] = (flip & 0x02) != 0;
+                    spec.rotations[p] = buf.get() * 90;
+                }
+                specById[id] = spec;
+            }
+
+            int animations = buf.getShort();
+            for (int i = 0; i < animations; i++) {
+                int id = tableIds[buf.getShort()];
+                animFrameMillis[id] = buf.getInt();
+                animPhaseFromPosition[id] = (buf.get() & 0x01) != 0;
+                byte[] frames = new byte[buf.get()];
+                for (int f = 0; f < frames.length; f++) {
+                    frames[f] = (byte) tableIds[buf.getShort()];
+                }
+                animFrames[id] = frames;
+            }
+        } catch (RuntimeException e) {
+            // Truncated table: discard partial state
+            resetRegistry();
+            throw new IOException("Tile table is corrupt", e);
+        }
+        freeze();
+    }
+
+    /** Slice indices and transforms for the four quadrants of a full tile */
+    static class PieceSpec {
+        final int[] sliceIds = new int[4];
+        final boolean[] flipH = new boolean[4];
+        final boolean[] flipV = new boolean[4];
+        final int[] rotations = new int[4];
+    }
+}
@@ -0,0 +1,164 @@
+package com.dn.mygame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Raises enter, stay and exit events for tiles whose logic has listeners.
+ *
+ * <p>Nothing is polled per entity. Every tile change queues the entity, and the next
+ * {@link #update} compares the logic under it with the logic it was last seen on. Entities
+ * are only re-checked while they stand still when their tile is animated, so a dynamic pit
+ * opening under them is noticed, or when a listener asked for stay events on that logic.
+ * An idle entity on a plain tile costs nothing.
+ */
+public class TileTriggers {
+    /** Receives events for the logic types it was registered for */
+    public interface Listener {
+        void onTileEnter(Entity e, int logic, int x, int y);
+        void onTileStay(Entity e, int logic, int x, int y);
+        void onTileExit(Entity e, int logic, int x, int y);
+    }
+
+    private static final int MAX_LOGIC = 16; // Covers the TileMap logic constants
+    private static final int UNKNOWN = -1; // Not yet seen on a loaded tile
+
+    private final TileMap map;
+    private final EntityStore store;
+    private final Listener[][] listeners = new Listener[MAX_LOGIC][0];
+    private final Listener[][] stayListeners = new Listener[MAX_LOGIC][0];
+    private ArrayList<Entity> moved = new ArrayList<>();
+    private ArrayList<Entity> movedNext = new ArrayList<>();
+    private ArrayList<Entity> watched = new ArrayList<>();
+    private ArrayList<Entity> watchedNext = new ArrayList<>();
+
+    public TileTriggers(TileMap map, EntityStore store) {
+        this.map = map;
+        this.store = store;
+    }
+
+    /** Listen for entities entering and leaving tiles of a logic type, and optionally staying */
+    public void addListener(int logic, Listener listener, boolean stayEvents) {
+        listeners[logic] = append(listeners[logic], listener);
+        if (stayEvents) stayListeners[logic] = append(stayListeners[logic], listener);
+    }
+
+    /** Note that an entity's tile changed; called for every move and for new entities */
+    void onMoved(Entity e) {
+        queue(e, e.getSlot());
+    }
+
+    /**
+     * Deliver this tick's events: stay and animation changes for watched entities first, then
+     * enter and exit for entities that moved. Moves made by listeners are handled next tick.
+     */
+    public void update() {
+        ArrayList<Entity> current = watched;
+        watched = watchedNext;
+        watchedNext = current;
+        for (int i = 0; i < current.size(); i++) {
+            Entity e = current.get(i);
+            int slot = e.getSlot();
+            if (store.handles[slot] != e) continue; // Released since it was watched
+            store.triggerWatched[slot] = false;
+            if (store.triggerQueued[slot]) continue; // Moved; evaluated below
+
+            int x = store.triggerX[slot], y = store.triggerY[slot];
+            TileMap.TileData td = map.getLoadedTile(x, y);
+            if (td == null) {
+                watch(e, slot); // Chunk evicted under it; check again once it is back
+                continue;
+            }
+            int logic = logicOf(td, x, y);
+            if (logic != store.triggerLogic[slot]) {
+                transition(e, slot, x, y, logic);
+            } else {
+                fire(stayListeners[logic], e, logic, x, y, STAY);
+            }
+            if (!store.triggerQueued[slot] && needsWatch(td, logic)) watch(e, slot);
+        }
+        current.clear();
+
+        current = moved;
+        moved = movedNext;
+        movedNext = current;
+        for (int i = 0; i < current.size(); i++) {
+            Entity e = current.get(i);
+            int slot = e.getSlot();
+            if (store.handles[slot] != e) continue;
+            store.triggerQueued[slot] = false;
+
+            int x = e.getX(), y = e.getY();
+            TileMap.TileData td = map.getLoadedTile(x, y);
+            if (td == null) {
+                queue(e, slot); // Frozen on an unloaded chunk; never generate one here
+                continue;
+            }
+            int logic = logicOf(td, x, y);
+            if (x != store.triggerX[slot] || y != store.triggerY[slot]
+                    || logic != store.triggerLogic[slot]) {
+                transition(e, slot, x, y, logic);
+            }
+            if (!store.triggerQueued[slot] && !store.triggerWatched[slot] && needsWatch(td, logic)) {
+                watch(e, slot);
+            }
+        }
+        current.clear();
+    }
+
+    // Exit the tile the entity was last seen on, then enter the one it is on now
+    private void transition(Entity e, int slot, int x, int y, int logic) {
+        int oldLogic = store.triggerLogic[slot];
+        int oldX = store.triggerX[slot], oldY = store.triggerY[slot];
+        store.triggerLogic[slot] = logic;
+        store.triggerX[slot] = x;
+        store.triggerY[slot] = y;
+        if (oldLogic != UNKNOWN) fire(listeners[oldLogic], e, oldLogic, oldX, oldY, EXIT);
+        fire(listeners[logic], e, logic, x, y, ENTER);
+    }
+
+    private boolean needsWatch(TileMap.TileData td, int logic) {
+        byte id = (td.overlayId != 0) ? td.overlayId : td.baseId;
+        return stayListeners[logic].length > 0 || map.getTileRegistry().isAnimated(id);
+    }
+
+    // Logic of the frame currently shown, as TileMap's own checks see it
+    private int logicOf(TileMap.TileData td, int x, int y) {
+        TileRegistry lib = map.getTileRegistry();
+        byte id = (td.overlayId != 0) ? td.overlayId : td.baseId;
+        return lib.getLogic(lib.resolveFrame(id, x, y, map.getSimulationTimeMillis()));
+    }
+
+    private void queue(Entity e, int slot) {
+        if (store.triggerQueued[slot]) return;
+        store.triggerQueued[slot] = true;
+        moved.add(e);
+    }
+
+    private void watch(Entity e, int slot) {
+        store.triggerWatched[slot] = true;
+        watched.add(e);
+    }
+
+    private static final int ENTER = 0;
+    private static final int STAY = 1;
+    private static final int EXIT = 2;
+
+    private static void fire(Listener[] targets, Entity e, int logic, int x, int y, int event) {
+        for (Listener l : targets) {
+            if (event == ENTER) {
+                l.onTileEnter(e, logic, x, y);
+            } else if (event == STAY) {
+                l.onTileStay(e, logic, x, y);
+            } else {
+                l.onTileExit(e, logic, x, y);
+            }
+        }
+    }
+
+    private static Listener[] append(Listener[] list, Listener listener) {
+        Listener[] grown = Arrays.copyOf(list, list.length + 1);
+        grown[list.length] = listener;
+        return grown;
+    }
+}
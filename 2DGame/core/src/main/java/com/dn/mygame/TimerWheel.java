@@ -0,0 +1,205 @@
+package com.dn.mygame;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timer wheel counting simulation ticks.
+ *
+ * <p>Components schedule a callback some ticks ahead instead of decrementing a counter every
+ * tick. Four levels of 64 slots cover 2^24 ticks (about three days at 60 ticks/s); timers
+ * further out wait in the top level and are re-filed as it turns. {@link #advance} touches
+ * the current slot and, every 64th tick, one slot of a higher level, so a tick costs time in
+ * proportion to the timers that expire, not to how many entities exist.
+ *
+ * <p>Timers live in parallel primitive arrays linked into per-slot lists and are recycled;
+ * handles carry a generation so a stale handle never cancels a reused timer. Timers that
+ * expire on the same tick fire in the order they were filed, so runs are deterministic.
+ * Not thread-safe: schedule only from the game thread's serial phases.
+ */
+public class TimerWheel {
+    /** Receives an expired timer; kind tells apart the timers of one owner */
+    public interface Callback {
+        void onTimer(int kind);
+    }
+
+    public static final int NONE = -1; // Handle value for "no timer"
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+    private static final int INDEX_BITS = 20; // Up to a million live timers
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = 0x7FF;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private final int[] tails = new int[LEVELS * SLOTS];
+    private long now = 0;
+    private int pending = 0;
+
+    // Timer pool
+    private int capacity = INITIAL_CAPACITY;
+    private long[] deadline = new long[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] prev = new int[INITIAL_CAPACITY];
+    private int[] slotOf = new int[INITIAL_CAPACITY]; // -1 when free
+    private int[] generation = new int[INITIAL_CAPACITY];
+    private int[] kinds = new int[INITIAL_CAPACITY];
+    private Callback[] callbacks = new Callback[INITIAL_CAPACITY];
+    private int freeHead = -1;
+    private int highWater = 0;
+
+    public TimerWheel() {
+        Arrays.fill(heads, -1);
+        Arrays.fill(tails, -1);
+        Arrays.fill(slotOf, -1);
+    }
+
+    /** Call back after the given number of advances (at least one); returns a handle */
+    public int schedule(int delayTicks, Callback callback, int kind) {
+        int t = allocate();
+        deadline[t] = now + Math.max(1, delayTicks);
+        callbacks[t] = callback;
+        kinds[t] = kind;
+        file(t);
+        pending++;
+        return t | (generation[t] << INDEX_BITS);
+    }
+
+    /** Cancel a pending timer; stale and NONE handles are ignored. Always returns NONE */
+    public int cancel(int handle) {
+        int t = resolve(handle);
+        if (t >= 0) {
+            unlink(t);
+            release(t);
+            pending--;
+        }
+        return NONE;
+    }
+
+    public boolean isPending(int handle) {
+        return resolve(handle) >= 0;
+    }
+
+    /** Ticks until a pending timer fires, or 0 for stale and NONE handles */
+    public int getRemaining(int handle) {
+        int t = resolve(handle);
+        return t >= 0 ? (int) (deadline[t] - now) : 0;
+    }
+
+    /** Move to the next tick and fire the timers due on it */
+    public void advance() {
+        now++;
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((now & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                cascade(level, (int) (now >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+        }
+
+        // Callbacks may schedule and cancel; new timers never land in the current slot
+        int slot = (int) now & SLOT_MASK;
+        while (heads[slot] != -1) {
+            int t = heads[slot];
+            unlink(t);
+            Callback callback = callbacks[t];
+            int kind = kinds[t];
+            release(t);
+            pending--;
+            callback.onTimer(kind);
+        }
+    }
+
+    public long getTick() {
+        return now;
+    }
+
+    public int size() {
+        return pending;
+    }
+
+    // Re-file a higher-level slot's timers now that they are closer
+    private void cascade(int level, int index) {
+        int slot = level * SLOTS + index;
+        int t = heads[slot];
+        heads[slot] = -1;
+        tails[slot] = -1;
+        while (t != -1) {
+            int following = next[t];
+            file(t);
+            t = following;
+        }
+    }
+
+    private void file(int t) {
+        long due = deadline[t];
+        long delta = due - now;
+        int slot;
+        if (delta >= MAX_SPAN) {
+            // Park in the farthest top-level slot; re-filed each time that slot comes up
+            due = now + MAX_SPAN - 1;
+            delta = MAX_SPAN - 1;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) level++;
+        slot = level * SLOTS + ((int) (due >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        // Append so same-tick timers keep their filing order
+        slotOf[t] = slot;
+        next[t] = -1;
+        prev[t] = tails[slot];
+        if (tails[slot] != -1) {
+            next[tails[slot]] = t;
+        } else {
+            heads[slot] = t;
+        }
+        tails[slot] = t;
+    }
+
+    private void unlink(int t) {
+        int slot = slotOf[t];
+        if (prev[t] != -1) next[prev[t]] = next[t]; else heads[slot] = next[t];
+        if (next[t] != -1) prev[next[t]] = prev[t]; else tails[slot] = prev[t];
+    }
+
+    private int resolve(int handle) {
+        if (handle < 0) return -1;
+        int t = handle & INDEX_MASK;
+        if (t >= highWater || slotOf[t] == -1) return -1;
+        return generation[t] == (handle >>> INDEX_BITS) ? t : -1;
+    }
+
+    private int allocate() {
+        int t;
+        if (freeHead != -1) {
+            t = freeHead;
+            freeHead = next[t];
+        } else {
+            if (highWater == capacity) grow();
+            t = highWater++;
+        }
+        return t;
+    }
+
+    private void release(int t) {
+        slotOf[t] = -1;
+        callbacks[t] = null;
+        generation[t] = (generation[t] + 1) & GENERATION_MASK;
+        next[t] = freeHead;
+        freeHead = t;
+    }
+
+    private void grow() {
+        if (capacity > INDEX_MASK) throw new IllegalStateException("Too many timers");
+        capacity *= 2;
+        deadline = Arrays.copyOf(deadline, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        slotOf = Arrays.copyOf(slotOf, capacity);
+        Arrays.fill(slotOf, capacity / 2, capacity, -1);
+        generation = Arrays.copyOf(generation, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        callbacks = Arrays.copyOf(callbacks, capacity);
+    }
+}
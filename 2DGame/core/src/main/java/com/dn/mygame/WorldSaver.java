@@ -0,0 +1,80 @@
+package com.dn.mygame;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes {@link WorldSnapshot}s to a save file on a background thread.
+ *
+ * <p>Each save is compressed into a temporary file beside the target, synced, and renamed
+ * over the target. A crash or a full disk mid-write leaves the previous save as it was.
+ * Only the newest snapshot waiting behind the one being written is kept, so a slow disk
+ * costs skipped saves, never a queue of them.
+ */
+public class WorldSaver {
+    private final File file;
+    private final File temp;
+    private final Executor writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "WorldSaver");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+    private final AtomicReference<WorldSnapshot> waiting = new AtomicReference<>();
+    private final Runnable writeWaiting = new Runnable() {
+        @Override
+        public void run() {
+            WorldSnapshot snapshot = waiting.getAndSet(null);
+            if (snapshot != null) write(snapshot);
+        }
+    };
+    private volatile IOException failure; // Last write error, cleared by the next success
+
+    public WorldSaver(File file) {
+        this.file = file;
+        this.temp = new File(file.getPath() + ".tmp");
+    }
+
+    /** Queue a snapshot for writing; returns at once */
+    public void save(WorldSnapshot snapshot) {
+        if (waiting.getAndSet(snapshot) == null) writer.execute(writeWaiting);
+    }
+
+    private void write(WorldSnapshot snapshot) {
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                snapshot.writeTo(out);
+                out.getFD().sync(); // On disk before it replaces the old save
+            }
+            if (!temp.renameTo(file)) throw new IOException("Could not replace " + file);
+            failure = null;
+        } catch (IOException e) {
+            failure = e; // A failed save must never take the game down with it
+            temp.delete();
+        }
+    }
+
+    /** The error that stopped the last save, or null if it succeeded */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /** Read the save file; null if there is none yet */
+    public static WorldSnapshot load(File file) throws IOException {
+        if (!file.exists()) return null;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return WorldSnapshot.readFrom(in);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.dn.mygame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An immutable copy of everything a save needs to bring the world back.
+ *
+ * <p>It holds the world metadata (simulation clock, dynamic-pit phase, move gate, teleporter
+ * pairs and the exits they placed), every awake entity with its component state and the
+ * ticks its timers had left, and the sleeping NPC records by chunk. {@link #capture} runs on
+ * the game thread between ticks. It encodes the awake entities, which the active ring keeps
+ * to a few hundred, and shares the sleeping records, which are never modified once filed.
+ * Compression and disk I/O happen later on whatever thread calls {@link #writeTo}; see
+ * {@link WorldSaver}.
+ *
+ * <p>Tiles are not saved: chunks regenerate from their coordinates and the placed exits.
+ * Restoring builds only the entities that were awake, so load time follows the active ring.
+ * Sleeping NPCs stay as records until their chunk wakes, however far the player has roamed.
+ *
+ * <p>File layout: magic, version and world seed, then the body compressed with deflate.
+ * {@link InputRecorder} writes the uncompressed body as a log's start state.
+ */
+public final class WorldSnapshot {
+    static final int MAGIC = 0x57534E50; // "WSNP"
+    static final int VERSION = 1;
+
+    // Entity record kinds
+    static final int KIND_PLAYER = 0; // The world's player
+    static final int KIND_NPC = 1; // NPC record, then the entity record
+    static final int KIND_WALKER = 2; // Any other player
+
+    private final long simulationTimeMillis;
+    private final long lastUpdateMillis;
+    private final long lastMoveTime;
+    private final int trackedNpcId;
+    private final int[] telePairs;
+    private final int[] placedTeleporters;
+    private final int entityCount;
+    private final byte[] entities;
+    private final long[] sleepingKeys;
+    private final byte[][] sleepingRecords;
+
+    private WorldSnapshot(long simulationTimeMillis, long lastUpdateMillis, long lastMoveTime,
+            int trackedNpcId, int[] telePairs, int[] placedTeleporters, int entityCount,
+            byte[] entities, long[] sleepingKeys, byte[][] sleepingRecords) {
+        this.simulationTimeMillis = simulationTimeMillis;
+        this.lastUpdateMillis = lastUpdateMillis;
+        this.lastMoveTime = lastMoveTime;
+        this.trackedNpcId = trackedNpcId;
+        this.telePairs = telePairs;
+        this.placedTeleporters = placedTeleporters;
+        this.entityCount = entityCount;
+        this.entities = entities;
+        this.sleepingKeys = sleepingKeys;
+        this.sleepingRecords = sleepingRecords;
+    }
+
+    /** Copy the world's state; game thread, between ticks */
+    public static WorldSnapshot capture(GameWorld world) {
+        TileMap map = world.getTileMap();
+        List<Entity> live = world.getEntities();
+        int bytes = 0;
+        for (int i = 0; i < live.size(); i++) {
+            bytes += 1 + Entity.STATE_BYTES + (live.get(i) instanceof NPC ? NPC.STATE_BYTES : 0);
+        }
+        ByteBuffer out = ByteBuffer.allocate(bytes);
+        for (int i = 0; i < live.size(); i++) {
+            Entity e = live.get(i);
+            if (e instanceof NPC) {
+                out.put((byte) KIND_NPC);
+                ((NPC) e).writeState(out);
+            } else {
+                out.put((byte) (e == world.getPlayer() ? KIND_PLAYER : KIND_WALKER));
+            }
+            e.writeEntityState(out);
+        }
+
+        LongObjectMap<byte[]> sleeping = world.getSleeper().getSleepingRecords();
+        long[] keys = new long[sleeping.size()];
+        byte[][] records = new byte[sleeping.size()][];
+        int n = 0;
+        for (int slot = 0; slot < sleeping.capacity(); slot++) {
+            byte[] chunkRecords = sleeping.valueAt(slot);
+            if (chunkRecords == null) continue;
+            keys[n] = sleeping.keyAt(slot);
+            records[n++] = chunkRecords;
+        }
+
+        return new WorldSnapshot(map.getSimulationTimeMillis(), map.getLastUpdateMillis(),
+                world.getLastMoveTime(), world.getTrackedNpcId(), map.copyTeleporterPairs(),
+                map.copyPlacedTeleporters(), live.size(), out.array(), keys, records);
+    }
+
+    /** Write the snapshot as a save file: header, then the compressed body */
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream header = new DataOutputStream(stream);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeLong(TileMap.WORLD_SEED);
+        header.flush();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(stream);
+        DataOutputStream body = new DataOutputStream(new BufferedOutputStream(deflater));
+        write(body);
+        body.flush();
+        deflater.finish(); // Leaves the stream open for the caller to sync and close
+        stream.flush();
+    }
+
+    /** Read a save file written by {@link #writeTo} */
+    public static WorldSnapshot readFrom(InputStream stream) throws IOException {
+        DataInputStream header = new DataInputStream(stream);
+        if (header.readInt() != MAGIC) throw new IOException("Not a world save");
+        int version = header.readUnsignedShort();
+        if (version != VERSION) throw new IOException("Unsupported world save version " + version);
+        long worldSeed = header.readLong();
+        if (worldSeed != TileMap.WORLD_SEED) {
+            throw new IOException("Save was written on world seed " + worldSeed);
+        }
+        return read(new DataInputStream(new BufferedInputStream(new InflaterInputStream(stream))));
+    }
+
+    /** Write the uncompressed body */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(simulationTimeMillis);
+        out.writeLong(lastUpdateMillis);
+        out.writeLong(lastMoveTime);
+        out.writeInt(trackedNpcId);
+        writeInts(out, telePairs);
+        writeInts(out, placedTeleporters);
+        out.writeInt(entityCount);
+        out.writeInt(entities.length);
+        out.write(entities);
+        out.writeInt(sleepingKeys.length);
+        for (int i = 0; i < sleepingKeys.length; i++) {
+            out.writeLong(sleepingKeys[i]);
+            out.writeInt(sleepingRecords[i].length);
+            out.write(sleepingRecords[i]);
+        }
+    }
+
+    static WorldSnapshot read(DataInput in) throws IOException {
+        long simulationTime = in.readLong();
+        long lastUpdate = in.readLong();
+        long lastMove = in.readLong();
+        int trackedNpcId = in.readInt();
+        int[] pairs = readInts(in);
+        int[] placed = readInts(in);
+        int entityCount = in.readInt();
+        byte[] entities = readBytes(in, in.readInt());
+        int chunks = in.readInt();
+        if (chunks < 0) throw new IOException("Corrupt world save");
+        long[] keys = new long[chunks];
+        byte[][] records = new byte[chunks][];
+        for (int i = 0; i < chunks; i++) {
+            keys[i] = in.readLong();
+            records[i] = readBytes(in, in.readInt());
+        }
+        return new WorldSnapshot(simulationTime, lastUpdate, lastMove, trackedNpcId, pairs,
+                placed, entityCount, entities, keys, records);
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) out.writeInt(value);
+    }
+
+    private static int[] readInts(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) throw new IOException("Corrupt world save");
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) values[i] = in.readInt();
+        return values;
+    }
+
+    private static byte[] readBytes(DataInput in, int length) throws IOException {
+        if (length < 0) throw new IOException("Corrupt world save");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    // Getters for GameWorld.restore
+    public long getSimulationTimeMillis() { return simulationTimeMillis; }
+    public long getLastUpdateMillis() { return lastUpdateMillis; }
+    public long getLastMoveTime() { return lastMoveTime; }
+    int getTrackedNpcId() { return trackedNpcId; }
+    int[] getTeleporterPairs() { return telePairs; }
+    int[] getPlacedTeleporters() { return placedTeleporters; }
+    public int getEntityCount() { return entityCount; }
+    ByteBuffer readEntities() { return ByteBuffer.wrap(entities).asReadOnlyBuffer(); }
+    int getSleepingChunkCount() { return sleepingKeys.length; }
+    long getSleepingKey(int i) { return sleepingKeys[i]; }
+    byte[] getSleepingRecords(int i) { return sleepingRecords[i]; }
+}
@@ -0,0 +1,90 @@
+package com.dn.mygame;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Two worlds built from the same seed and fed the same inputs must stay identical tick for
+ * tick: the same {@link GameWorld#stateHash} and the same spatial index bucket order, which
+ * decides the order queries return entities in and so what the AI and triggers see.
+ *
+ * <p>The crowd is large enough to keep NPCs bumping into each other, waking and sleeping at
+ * the ring's edge, and crossing teleporters. Entities are compared by their index in the
+ * world's entity list, since NPC ids come from a process-wide counter.
+ */
+public class CrowdDeterminismTest {
+    private static final int NPCS = 300;
+    private static final int TICKS = 2000;
+    private static final long SEED = 7L;
+    private static final int TURN_TICKS = 50; // Ticks before the player turns
+    private static final int SCATTER_TILES = 2 * TileMap.CHUNK_SIZE;
+    private static final int QUERY_TILES = 3 * TileMap.CHUNK_SIZE + TileMap.CHUNK_SIZE / 2;
+
+    @Test
+    public void seededCrowdsMatchEveryTick() throws IOException {
+        TileRegistry registry = TestTiles.load();
+        GameWorld a = crowd(registry);
+        GameWorld b = crowd(registry);
+        TickInput input = new TickInput();
+        List<Entity> found = new ArrayList<>();
+        for (int tick = 0; tick < TICKS; tick++) {
+            script(input, tick);
+            a.step(input, tick * 16L);
+            script(input, tick);
+            b.step(input, tick * 16L);
+
+            assertEquals("state at tick " + tick, a.stateHash(), b.stateHash());
+            List<Integer> orderA = bucketOrder(a, found);
+            List<Integer> orderB = bucketOrder(b, found);
+            assertEquals("bucket order at tick " + tick, orderA, orderB);
+        }
+        assertTrue("the crowd never reached the ring's edge", a.getSleepingCount() > 0);
+    }
+
+    private static GameWorld crowd(TileRegistry registry) {
+        Random rnd = new Random(SEED);
+        TileMap map = new TileMap(registry);
+        GameWorld world = new GameWorld(map);
+        Player player = world.getPlayer();
+        for (int i = 1; i < NPCS; i++) { // The world starts with one NPC
+            int x = player.getX() + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            int y = player.getY() + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            world.addEntity(new NPC(x, y, map, rnd.nextLong()));
+        }
+        map.startClock(0L);
+        return world;
+    }
+
+    // The player walks a slow spiral and dashes now and then; AI runs uncut
+    private static void script(TickInput input, int tick) {
+        input.clear();
+        input.heldDirection = TickInput.UP + (tick / TURN_TICKS) % 8; // UP..DOWN_RIGHT
+        if (tick % 97 == 0) input.dashDirection = input.heldDirection;
+        input.aiVisits = Integer.MAX_VALUE;
+    }
+
+    // Entities around the player as list indices, in the order the index returns them
+    private static List<Integer> bucketOrder(GameWorld world, List<Entity> found) {
+        IdentityHashMap<Entity, Integer> indices = new IdentityHashMap<>();
+        List<Entity> entities = world.getEntities();
+        for (int i = 0; i < entities.size(); i++) {
+            indices.put(entities.get(i), i);
+        }
+        found.clear();
+        Player player = world.getPlayer();
+        world.getTileMap().getSpatialIndex().queryRadius(player.getX(), player.getY(), QUERY_TILES, found);
+        List<Integer> order = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            order.add(indices.get(found.get(i)));
+        }
+        return order;
+    }
+}
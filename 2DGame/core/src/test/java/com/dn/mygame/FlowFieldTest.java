@@ -0,0 +1,99 @@
+package com.dn.mygame;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * A field repaired in place after one-tile target moves must stay within its stated
+ * staleness of a field built from scratch for the same target: distances off by at most the
+ * number of repairs, and every reached tile still led to the target within that many extra
+ * steps. Repairs must also touch fewer cells than a build.
+ */
+public class FlowFieldTest {
+    private static final int RADIUS_CHUNKS = 3;
+    private static final long SEED = 5L;
+    private static final int WALKS = 20; // Target walks of DEFAULT_MAX_REPAIRS moves each
+
+    @Test
+    public void repairedFieldStaysWithinItsStaleness() throws IOException {
+        TileMap map = new TileMap(TestTiles.load());
+        TileMap.Point spawn = map.getSpawnPoint();
+        int chunkX = Math.floorDiv(spawn.x, TileMap.CHUNK_SIZE);
+        int chunkY = Math.floorDiv(spawn.y, TileMap.CHUNK_SIZE);
+        map.loadChunks(chunkX - RADIUS_CHUNKS, chunkY - RADIUS_CHUNKS,
+                chunkX + RADIUS_CHUNKS, chunkY + RADIUS_CHUNKS);
+        int minX = (chunkX - RADIUS_CHUNKS) * TileMap.CHUNK_SIZE;
+        int minY = (chunkY - RADIUS_CHUNKS) * TileMap.CHUNK_SIZE;
+        int size = (2 * RADIUS_CHUNKS + 1) * TileMap.CHUNK_SIZE;
+
+        Random rnd = new Random(SEED);
+        int repairs = 0;
+        for (int walk = 0; walk < WALKS; walk++) {
+            FlowField field = new FlowField(map, RADIUS_CHUNKS, Integer.MAX_VALUE);
+            int x = spawn.x, y = spawn.y;
+            field.update(x, y);
+            int buildCells = field.getLastReachedCells();
+            int heading = rnd.nextInt(8);
+            for (int k = 1; k <= FlowField.DEFAULT_MAX_REPAIRS; k++) {
+                // Keep heading the same way while it stays inside spawn's chunk
+                int d = heading;
+                for (int tries = 0; !canStep(field, x, y, d, chunkX, chunkY); tries++) {
+                    d = rnd.nextInt(8);
+                    if (tries > 64) break;
+                }
+                if (!canStep(field, x, y, d, chunkX, chunkY)) break;
+                heading = d;
+                x += FlowField.directionX(d);
+                y += FlowField.directionY(d);
+                field.getDirection(x, y); // A chaser read the field since the last update
+                field.update(x, y);
+                assertEquals("walk " + walk + " move " + k, k, field.getRepairsSinceBuild());
+                assertTrue("a repair touched as many cells as a build",
+                        field.getLastRepairedCells() < buildCells);
+                repairs++;
+            }
+
+            int k = field.getRepairsSinceBuild();
+            FlowField fresh = new FlowField(map, RADIUS_CHUNKS, Integer.MAX_VALUE);
+            fresh.update(x, y);
+            for (int ty = minY; ty < minY + size; ty++) {
+                for (int tx = minX; tx < minX + size; tx++) {
+                    int truth = fresh.getDistance(tx, ty);
+                    int repaired = field.getDistance(tx, ty);
+                    String at = "walk " + walk + " at " + tx + "," + ty;
+                    assertEquals(at + " reached", truth >= 0, repaired >= 0);
+                    if (truth < 0) continue;
+                    assertTrue(at + ": " + repaired + " for " + truth, Math.abs(repaired - truth) <= k);
+                    int steps = walk(field, tx, ty, x, y, truth + k + 1);
+                    assertTrue(at + ": " + steps + " steps for " + truth, steps >= 0 && steps <= truth + k);
+                }
+            }
+        }
+        assertTrue("the target never moved", repairs > 0);
+    }
+
+    // A move the repair takes: onto a tile the field reaches, inside the window's centre chunk
+    private static boolean canStep(FlowField field, int x, int y, int d, int chunkX, int chunkY) {
+        int nx = x + FlowField.directionX(d), ny = y + FlowField.directionY(d);
+        return Math.floorDiv(nx, TileMap.CHUNK_SIZE) == chunkX
+                && Math.floorDiv(ny, TileMap.CHUNK_SIZE) == chunkY
+                && field.getDistance(nx, ny) == 1;
+    }
+
+    // Steps from (x, y) following the field to the target, or -1 if it strays or loops
+    private static int walk(FlowField field, int x, int y, int targetX, int targetY, int maxSteps) {
+        for (int steps = 0; steps <= maxSteps; steps++) {
+            if (x == targetX && y == targetY) return steps;
+            int d = field.getDirection(x, y);
+            if (d == FlowField.NO_DIRECTION) return -1;
+            x += FlowField.directionX(d);
+            y += FlowField.directionY(d);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,114 @@
+package com.dn.mygame;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Records a scripted session with {@link InputRecorder} and replays it with {@link
+ * InputReplayer}: the replay must reproduce every recorded state hash, and a log with one
+ * input changed must be caught at the first hash after it.
+ */
+public class InputReplayTest {
+    private static final int NPCS = 100;
+    private static final int TICKS = 1200;
+    private static final int HASH_INTERVAL = 10;
+    private static final int FRAME_MILLIS = 16;
+    private static final int FLIP_AFTER = 300; // The flipped tick is the first move after this
+    private static final int SCATTER_TILES = 2 * TileMap.CHUNK_SIZE;
+    private static final long SEED = 11L;
+
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    private int flipOffset = -1; // Log offset of the flipped tick's flags byte
+    private int flipTick = -1;
+
+    @Test
+    public void replayReproducesEveryHash() throws IOException {
+        record(TestTiles.load());
+        InputReplayer.Result result = InputReplayer.replay(new TileMap(TestTiles.load()),
+                new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(TICKS, result.ticks);
+        assertEquals(TICKS / HASH_INTERVAL, result.hashesChecked);
+        assertTrue(result.toString(), result.isDeterministic());
+    }
+
+    @Test
+    public void flippedInputIsCaught() throws IOException {
+        TileRegistry registry = TestTiles.load();
+        record(registry);
+        assertTrue("the player never moved after tick " + FLIP_AFTER, flipOffset >= 0);
+        byte[] bytes = log.toByteArray();
+        int flags = bytes[flipOffset] & 0xFF;
+        int held = flags & 0x0F;
+        bytes[flipOffset] = (byte) ((flags & ~0x0F) | opposite(held));
+
+        InputReplayer.Result result = InputReplayer.replay(new TileMap(registry),
+                new ByteArrayInputStream(bytes));
+        assertFalse("a flipped input went unnoticed", result.isDeterministic());
+        // Replay counts ticks from 1; the first hash written after the flipped tick
+        long expected = (flipTick / HASH_INTERVAL + 1) * HASH_INTERVAL;
+        assertEquals(expected, result.firstMismatchTick);
+    }
+
+    private void record(TileRegistry registry) throws IOException {
+        Random rnd = new Random(SEED);
+        TileMap map = new TileMap(registry);
+        GameWorld world = new GameWorld(map);
+        Player player = world.getPlayer();
+        for (int i = 1; i < NPCS; i++) { // The world starts with one NPC
+            int x = player.getX() + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            int y = player.getY() + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            world.addEntity(new NPC(x, y, map, rnd.nextLong()));
+        }
+        map.startClock(0L);
+
+        InputRecorder recorder = new InputRecorder(log, world, HASH_INTERVAL);
+        TickInput input = new TickInput();
+        long now = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            input.clear();
+            input.heldDirection = TickInput.UP + (tick / 40) % 8; // UP..DOWN_RIGHT
+            input.running = (tick / 200) % 2 == 1;
+            if (tick % 23 == 0) input.pressedDirection = input.heldDirection;
+            if (tick % 97 == 0) input.dashDirection = input.heldDirection;
+            now += FRAME_MILLIS;
+
+            int x = player.getX(), y = player.getY();
+            // A tick whose only move can come from the held direction
+            boolean candidate = flipOffset < 0 && tick > FLIP_AFTER
+                    && input.dashDirection == TickInput.NONE
+                    && map.getEntityStore().bufferedCommand[player.getSlot()] == CommandBufferComponent.NONE;
+            if (candidate) recorder.flush(); // So the log's size is this tick's offset
+            int offset = log.size();
+            world.step(input, now);
+            recorder.record(input, now, world);
+            if (candidate && (player.getX() != x || player.getY() != y)) {
+                flipOffset = offset;
+                flipTick = tick;
+            }
+        }
+        recorder.close();
+        assertNull(recorder.getFailure());
+    }
+
+    private static int opposite(int direction) {
+        switch (direction) {
+            case TickInput.UP: return TickInput.DOWN;
+            case TickInput.DOWN: return TickInput.UP;
+            case TickInput.LEFT: return TickInput.RIGHT;
+            case TickInput.RIGHT: return TickInput.LEFT;
+            case TickInput.UP_LEFT: return TickInput.DOWN_RIGHT;
+            case TickInput.UP_RIGHT: return TickInput.DOWN_LEFT;
+            case TickInput.DOWN_LEFT: return TickInput.UP_RIGHT;
+            default: return TickInput.UP_LEFT;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.dn.mygame;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Allocation regression test: the steady-state tick must not allocate on the game thread.
+ *
+ * <p>The player paces back and forth inside the spawn chunk, taps and dashes now and then, and
+ * NPCs wander the active ring around it. After the warm-up ticks, which fill the caches,
+ * pools and timer wheel, the game thread's allocated bytes are read from {@link
+ * com.sun.management.ThreadMXBean} around every tick. Ticks that generate a chunk or put an
+ * NPC to sleep or wake one (an NPC wandering off the ring or through a teleporter) are load
+ * work and may allocate, but only {@link #MAX_LOAD_TICKS} of them; every other tick must
+ * allocate nothing. Ticks run on a {@link SimClock.AsFastAsPossible} clock with the AI
+ * uncut, so every run takes the same path, and core's test task runs on C1 alone.
+ *
+ * <p>Every {@link #AUTOSAVE_TICKS} the test captures a snapshot the way GameView autosaves.
+ * {@link WorldSnapshot#capture} allocates the entity buffer and copies the teleporter and
+ * sleeping tables, because the snapshot is handed to the saver's thread and must not change
+ * under it; its bytes are counted apart and, after the warm-up, bounded by the size of what
+ * it copies. The tick
+ * around it is held to the steady rule like any other. The draw path needs Android and is
+ * not run here.
+ */
+public class SteadyTickAllocationTest {
+    private static final int NPCS = 200;
+    private static final int WARMUP_TICKS = 3000;
+    private static final int TICKS = 5000;
+    private static final int MAX_LOAD_TICKS = 100; // Typical runs see 40 to 60
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int AUTOSAVE_TICKS = 30 * TICKS_PER_SECOND; // GameView's 30 s
+    private static final int CAPTURE_SLACK_BYTES = 4096; // Object headers, the ByteBuffer, the snapshot
+    private static final int PACE_TICKS = 40; // Ticks before the player turns around
+    private static final int TAP_TICKS = 23; // Ticks between taps into the move delay
+    private static final int DASH_TICKS = 97; // Ticks between dashes
+    private static final int SCATTER_TILES = 2 * TileMap.CHUNK_SIZE;
+
+    @Test
+    public void steadyTicksAllocateNothing() throws IOException {
+        for (long seed = 1; seed <= 3; seed++) {
+            run(TestTiles.load(), seed);
+        }
+    }
+
+    private static void run(TileRegistry registry, long seed) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue("Thread allocation counting unavailable",
+                threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Random rnd = new Random(seed);
+        TileMap map = new TileMap(registry);
+        GameWorld world = new GameWorld(map);
+        Player player = world.getPlayer();
+        int spawnX = player.getX(), spawnY = player.getY();
+        for (int i = 1; i < NPCS; i++) { // The world starts with one NPC
+            int x = spawnX + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            int y = spawnY + rnd.nextInt(2 * SCATTER_TILES + 1) - SCATTER_TILES;
+            world.addEntity(new NPC(x, y, map, rnd.nextLong()));
+        }
+
+        TickInput input = new TickInput();
+        SimClock clock = new SimClock.AsFastAsPossible(TICKS_PER_SECOND, 0L);
+        map.startClock(clock.getTimeMillis());
+        world.setInputLatency(new InputLatency(clock));
+        long threadId = Thread.currentThread().getId();
+        long steadyBytes = 0;
+        int loadTicks = 0;
+        int captures = 0;
+        for (int tick = 0; tick < WARMUP_TICKS + TICKS; tick++) {
+            long chunks = map.getGeneratedChunkCount();
+            int sleeping = world.getSleepingCount();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            clock.advance();
+            input.clear();
+            // Pace along the spawn row, turning before the player can leave the chunk
+            int heading = (tick / PACE_TICKS) % 2 == 0 ? TickInput.RIGHT : TickInput.LEFT;
+            if (player.getX() >= spawnX + 3) heading = TickInput.LEFT;
+            if (player.getX() <= spawnX - 3) heading = TickInput.RIGHT;
+            input.heldDirection = heading;
+            input.aiVisits = Integer.MAX_VALUE; // Uncut, so every run takes the same path
+            if (tick % TAP_TICKS == 0) {
+                input.pressedDirection = heading;
+                input.touchNanos = clock.nanoTime();
+            }
+            if (tick % DASH_TICKS == 0) input.dashDirection = heading;
+            world.step(input, clock.getTimeMillis());
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            if (tick >= WARMUP_TICKS) {
+                if (map.getGeneratedChunkCount() != chunks || world.getSleepingCount() != sleeping) {
+                    loadTicks++;
+                } else {
+                    steadyBytes += allocated;
+                }
+            }
+            if (tick % AUTOSAVE_TICKS == AUTOSAVE_TICKS - 1) {
+                int awake = world.getEntities().size();
+                int asleep = world.getSleepingCount();
+                int teleporterInts = map.copyTeleporterPairs().length
+                        + map.copyPlacedTeleporters().length;
+                long start = threads.getThreadAllocatedBytes(threadId);
+                WorldSnapshot.capture(world);
+                long captured = threads.getThreadAllocatedBytes(threadId) - start;
+                long bound = (long) awake * (1 + Entity.STATE_BYTES + NPC.STATE_BYTES)
+                        + 4L * teleporterInts + 16L * asleep + CAPTURE_SLACK_BYTES;
+                if (tick < WARMUP_TICKS) continue; // The first capture loads its classes
+                assertTrue("seed " + seed + ": capture allocated " + captured + " bytes for "
+                        + awake + " awake and " + asleep + " asleep", captured <= bound);
+                captures++;
+            }
+        }
+        assertEquals("seed " + seed + ": bytes allocated by steady ticks", 0, steadyBytes);
+        assertTrue("seed " + seed + ": " + loadTicks + " load ticks out of " + TICKS,
+                loadTicks <= MAX_LOAD_TICKS);
+        assertTrue("seed " + seed + ": no autosave ran", captures > 0);
+    }
+}
@@ -0,0 +1,26 @@
+package com.dn.mygame;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Shared setup for the core tests: the compiled tile table the app ships */
+final class TestTiles {
+    /** System property naming the compiled tile table; core's test task sets it */
+    static final String TABLE_PROPERTY = "tiles.table";
+
+    private TestTiles() {
+    }
+
+    static TileRegistry load() throws IOException {
+        String path = System.getProperty(TABLE_PROPERTY);
+        if (path == null) {
+            throw new IllegalStateException("Set -D" + TABLE_PROPERTY + "=app/src/main/assets/tiles.bin");
+        }
+        TileRegistry registry = new TileRegistry();
+        try (InputStream in = new FileInputStream(path)) {
+            registry.loadTable(in);
+        }
+        return registry;
+    }
+}
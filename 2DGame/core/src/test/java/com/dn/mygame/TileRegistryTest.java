@@ -0,0 +1,47 @@
+package com.dn.mygame;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/** A loaded registry is frozen: every loading-time setter and a second load throw */
+public class TileRegistryTest {
+    @Test(expected = IllegalStateException.class)
+    public void registerAfterLoadThrows() throws IOException {
+        TestTiles.load().register("late-tile");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setLogicAfterLoadThrows() throws IOException {
+        TestTiles.load().setLogic(TileRegistry.GRASSY_GROUND, TileMap.OBSTACLE);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setPiecesAfterLoadThrows() throws IOException {
+        TestTiles.load().setPieces(TileRegistry.GRASSY_GROUND, null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setAnimationAfterLoadThrows() throws IOException {
+        TestTiles.load().setAnimation(TileRegistry.GRASSY_GROUND, new byte[] {TileRegistry.BUSH}, 100, false);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void secondLoadThrows() throws IOException {
+        TestTiles.load().loadTable(new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Test
+    public void corruptTableLeavesRegistryLoadable() throws IOException {
+        TileRegistry registry = new TileRegistry();
+        try {
+            registry.loadTable(new ByteArrayInputStream(new byte[] {0x54, 0x49, 0x4C, 0x45, 0, 2, 0, 1}));
+        } catch (IOException expected) {
+        }
+        registry.setLogic(registry.register("json-tile"), TileMap.OBSTACLE); // The JSON fallback
+        assertEquals(TileMap.OBSTACLE, registry.getLogic(registry.getId("json-tile")));
+    }
+}
@@ -0,0 +1,356 @@
+package com.dn.mygame.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dn.mygame.TileMap;
+import com.dn.mygame.TileRegistry;
+
+/**
+ * Offline compiler for the binary tile table read by TileRegistry.
+ *
+ * <p>Usage: TileTableCompiler tile_logic.json tile_pieces.json tile_animations.json tiles.bin
+ *
+ * <p>Tiles are written in the order TileLibrary registers them from JSON (logic file first,
+ * then any remaining piece definitions), so both loaders assign the same byte IDs.
+ *
+ * <p>Layout (big-endian): int magic, short version, short tileCount, then per tile a
+ * length-prefixed UTF-8 name, a logic byte, a piece count (0 or 4) and per piece a short
+ * slice index, a flip byte (bit 0 horizontal, bit 1 vertical) and a quarter-turn count.
+ * An animation section follows: short animationCount, then per animation the animated tile's
+ * table index, an int frame duration in ms, a flag byte (bit 0 phase from world position), a
+ * frame count and one table index per frame.
+ */
+public class TileTableCompiler {
+    public static final int MAGIC = 0x54494C45; // "TILE"
+    public static final short VERSION = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Logic types by the names tile_logic.json uses, read from TileMap's constants
+    private static final Map<String, Integer> LOGIC_CODES = new HashMap<>();
+
+    static {
+        LOGIC_CODES.put("SPAWN", TileMap.SPAWN);
+        LOGIC_CODES.put("CHECKPOINT", TileMap.CHECKPOINT);
+        LOGIC_CODES.put("OBSTACLE", TileMap.OBSTACLE);
+        LOGIC_CODES.put("SPACE", TileMap.SPACE);
+        LOGIC_CODES.put("SLIPPERY", TileMap.SLIPPERY);
+        LOGIC_CODES.put("DYNAMIC_PIT", TileMap.DYNAMIC_PIT);
+        LOGIC_CODES.put("PERMANENT_PIT", TileMap.PERMANENT_PIT);
+        LOGIC_CODES.put("JUMP_PAD", TileMap.JUMP_PAD);
+        LOGIC_CODES.put("TELEPORTER", TileMap.TELEPORTER);
+    }
+
+    private static final int DEFAULT_LOGIC = TileMap.SPACE;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: TileTableCompiler <tile_logic.json> <tile_pieces.json>"
+                    + " <tile_animations.json> <out.bin>");
+            System.exit(2);
+        }
+        long startTime = System.nanoTime();
+        Map<String, Object> logicJson = readJson(new File(args[0]));
+        Map<String, Object> piecesJson = readJson(new File(args[1]));
+        Map<String, Object> animationsJson = readJson(new File(args[2]));
+        long jsonNanos = System.nanoTime() - startTime;
+
+        byte[] table = compile(logicJson, piecesJson, animationsJson);
+        File out = new File(args[3]);
+        try (FileOutputStream fos = new FileOutputStream(out)) {
+            fos.write(table);
+        }
+
+        startTime = System.nanoTime();
+        int tileCount = verify(ByteBuffer.wrap(Files.readAllBytes(out.toPath())));
+        long binaryNanos = System.nanoTime() - startTime;
+
+        System.out.println("Wrote " + tileCount + " tiles (" + table.length + " bytes) to " + out);
+        System.out.println("Load time: JSON " + jsonNanos / 1000 + " us, binary " + binaryNanos / 1000 + " us");
+    }
+
+    @SuppressWarnings("unchecked")
+    static byte[] compile(Map<String, Object> logicJson, Map<String, Object> piecesJson,
+            Map<String, Object> animationsJson) throws IOException {
+        // Preserve TileLibrary's registration order
+        Map<String, Integer> logicByName = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : logicJson.entrySet()) {
+            Integer code = LOGIC_CODES.get(entry.getKey());
+            if (code == null) {
+                throw new IOException("Unknown logic type: " + entry.getKey());
+            }
+            for (Object name : (List<Object>) entry.getValue()) {
+                logicByName.put((String) name, code);
+            }
+        }
+        List<String> names = new ArrayList<>(logicByName.keySet());
+        for (String name : piecesJson.keySet()) {
+            if (!logicByName.containsKey(name)) names.add(name);
+        }
+        int ids = idCount(names);
+        if (ids > TileRegistry.MAX_TILES) {
+            throw new IOException("Too many tiles for byte IDs: " + names.size() + " tiles need "
+                    + ids + " IDs, at most " + TileRegistry.MAX_TILES);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(names.size());
+
+        for (String name : names) {
+            byte[] nameBytes = name.getBytes(UTF_8);
+            out.writeByte(nameBytes.length);
+            out.write(nameBytes);
+            Integer logic = logicByName.get(name);
+            out.writeByte(logic != null ? logic : DEFAULT_LOGIC);
+
+            List<Object> pieces = (List<Object>) piecesJson.get(name);
+            if (pieces == null) {
+                out.writeByte(0);
+                continue;
+            }
+            if (pieces.size() != 4) {
+                throw new IOException(name + ": expected 4 pieces, found " + pieces.size());
+            }
+            out.writeByte(4);
+            for (Object p : pieces) {
+                Map<String, Object> piece = (Map<String, Object>) p;
+                String flip = piece.containsKey("flip") ? (String) piece.get("flip") : "false-false";
+                String[] parts = flip.split("-");
+                int rotate = piece.containsKey("rotate") ? ((Number) piece.get("rotate")).intValue() : 0;
+                if (rotate % 90 != 0) {
+                    throw new IOException(name + ": rotation must be a multiple of 90");
+                }
+                out.writeShort(((Number) piece.get("id")).intValue());
+                out.writeByte((Boolean.parseBoolean(parts[0]) ? 1 : 0)
+                        | (Boolean.parseBoolean(parts[1]) ? 2 : 0));
+                out.writeByte(((rotate / 90) % 4 + 4) % 4);
+            }
+        }
+
+        out.writeShort(animationsJson.size());
+        for (Map.Entry<String, Object> entry : animationsJson.entrySet()) {
+            Map<String, Object> animation = (Map<String, Object>) entry.getValue();
+            List<Object> frames = (List<Object>) animation.get("frames");
+            Number frameMillis = (Number) animation.get("frameMillis");
+            if (frames == null || frames.isEmpty() || frames.size() > 127) {
+                throw new IOException(entry.getKey() + ": expected 1-127 frames");
+            }
+            if (frameMillis == null || frameMillis.intValue() <= 0) {
+                throw new IOException(entry.getKey() + ": frameMillis must be positive");
+            }
+            out.writeShort(tableIndex(names, entry.getKey()));
+            out.writeInt(frameMillis.intValue());
+            out.writeByte(Boolean.TRUE.equals(animation.get("phaseFromPosition")) ? 1 : 0);
+            out.writeByte(frames.size());
+            for (Object frame : frames) {
+                out.writeShort(tableIndex(names, (String) frame));
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // IDs TileRegistry.loadTable assigns: EMPTY and the built-ins, plus one per other name
+    private static int idCount(List<String> names) {
+        TileRegistry registry = new TileRegistry();
+        int ids = registry.getTileCount();
+        for (String name : names) {
+            if (registry.getId(name) == TileRegistry.EMPTY) ids++;
+        }
+        return ids;
+    }
+
+    private static int tableIndex(List<String> names, String name) throws IOException {
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new IOException("Animation references unknown tile: " + name);
+        }
+        return index;
+    }
+
+    /** Walk the table the way TileRegistry does and return the tile count */
+    static int verify(ByteBuffer buf) throws IOException {
+        if (buf.getInt() != MAGIC || buf.getShort() != VERSION) {
+            throw new IOException("Bad tile table header");
+        }
+        int count = buf.getShort();
+        for (int i = 0; i < count; i++) {
+            int nameLength = buf.get() & 0xFF;
+            buf.position(buf.position() + nameLength);
+            buf.get(); // Logic
+            int pieces = buf.get();
+            buf.position(buf.position() + pieces * 4);
+        }
+        int animations = buf.getShort();
+        for (int i = 0; i < animations; i++) {
+            buf.position(buf.position() + 2 + 4 + 1); // Tile, frame duration, flags
+            int frames = buf.get();
+            buf.position(buf.position() + frames * 2);
+        }
+        if (buf.hasRemaining()) {
+            throw new IOException("Trailing bytes in tile table");
+        }
+        return count;
+    }
+
+    private static Map<String, Object> readJson(File file) throws IOException {
+        String text = new String(Files.readAllBytes(file.toPath()), UTF_8);
+        Object value = new JsonReader(text).readValue();
+        if (!(value instanceof Map)) {
+            throw new IOException(file + ": expected a JSON object");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = (Map<String, Object>) value;
+        return map;
+    }
+
+    /** Minimal JSON reader; objects keep their key order */
+    private static class JsonReader {
+        private final String text;
+        private int pos = 0;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        Object readValue() throws IOException {
+            skipWhitespace();
+            if (pos >= text.length()) throw error("Unexpected end of input");
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{':
+                    return readObject();
+                case '[':
+                    return readArray();
+                case '"':
+                    return readString();
+                case 't':
+                    expect("true");
+                    return Boolean.TRUE;
+                case 'f':
+                    expect("false");
+                    return Boolean.FALSE;
+                case 'n':
+                    expect("null");
+                    return null;
+                default:
+                    return readNumber();
+            }
+        }
+
+        private Map<String, Object> readObject() throws IOException {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++; // {
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = readString();
+                skipWhitespace();
+                expect(":");
+                map.put(key, readValue());
+                skipWhitespace();
+                char c = text.charAt(pos++);
+                if (c == '}') return map;
+                if (c != ',') throw error("Expected ',' or '}'");
+            }
+        }
+
+        private List<Object> readArray() throws IOException {
+            List<Object> list = new ArrayList<>();
+            pos++; // [
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(readValue());
+                skipWhitespace();
+                char c = text.charAt(pos++);
+                if (c == ']') return list;
+                if (c != ',') throw error("Expected ',' or ']'");
+            }
+        }
+
+        private String readString() throws IOException {
+            if (peek() != '"') throw error("Expected string");
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (true) {
+                char c = text.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c == '\\') {
+                    char esc = text.charAt(pos++);
+                    switch (esc) {
+                        case 'n': sb.append('\n'); break;
+                        case 't': sb.append('\t'); break;
+                        case 'r': sb.append('\r'); break;
+                        case 'b': sb.append('\b'); break;
+                        case 'f': sb.append('\f'); break;
+                        case 'u':
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                            pos += 4;
+                            break;
+                        default: sb.append(esc);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        private Number readNumber() throws IOException {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) throw error("Unexpected character");
+            String num = text.substring(start, pos);
+            try {
+                if (num.indexOf('.') >= 0 || num.indexOf('e') >= 0 || num.indexOf('E') >= 0) {
+                    return Double.parseDouble(num);
+                }
+                return Long.parseLong(num);
+            } catch (NumberFormatException e) {
+                throw error("Bad number " + num);
+            }
+        }
+
+        private void expect(String token) throws IOException {
+            if (!text.startsWith(token, pos)) throw error("Expected " + token);
+            pos += token.length();
+        }
+
+        private char peek() throws IOException {
+            if (pos >= text.length()) throw error("Unexpected end of input");
+            return text.charAt(pos);
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at offset " + pos);
+        }
+    }
+}